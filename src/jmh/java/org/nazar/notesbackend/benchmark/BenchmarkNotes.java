@@ -0,0 +1,110 @@
+package org.nazar.notesbackend.benchmark;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.nazar.notesbackend.NotesBackendApplication;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Sample data and application bootstrapping shared by the benchmarks.
+ */
+final class BenchmarkNotes {
+    private static final String DESCRIPTION = "Remember to review the quarterly roadmap, order more coffee beans for the office, "
+            + "reply to the design feedback and book the meeting room for the planning session on Thursday.";
+
+    private static final String[] WORDS = ("meeting agenda budget review draft release customer feedback deadline roadmap "
+            + "invoice coffee travel booking design sprint backlog hiring interview onboarding server outage incident "
+            + "report migration database schema backup holiday birthday groceries milk bread doctor appointment call "
+            + "follow up email contract renewal vendor quote workshop slides demo launch marketing campaign metrics").split(" ");
+
+    private BenchmarkNotes() {
+    }
+
+    /**
+     * @return stored notes with varied names and descriptions of 5 to 300 words, the same for every run.
+     */
+    static List<NoteDto> corpus(int count) {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.of(2024, 5, 1);
+        return IntStream.range(0, count)
+                .mapToObj(i -> new NoteDto((long) i + 1, words(random, 1 + random.nextInt(4)) + " " + i,
+                        words(random, 5 + random.nextInt(296)), today.minusDays(random.nextInt(365)), (long) random.nextInt(20)))
+                .toList();
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(random.nextInt(12) == 0 ? ". " : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return notes as they would come back from the service, with ids and creation dates set.
+     */
+    static List<NoteDto> stored(int count) {
+        LocalDate today = LocalDate.of(2024, 5, 1);
+        return IntStream.range(0, count)
+                .mapToObj(i -> new NoteDto((long) i + 1, "Note " + i, DESCRIPTION, today.minusDays(i % 365), (long) i % 7))
+                .toList();
+    }
+
+    /**
+     * @return notes as they would come in with a create request.
+     */
+    static List<NoteDto> requests(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new NoteDto(null, "Note " + i, DESCRIPTION, null)).toList();
+    }
+
+    /**
+     * Starts the application on an in-memory database of its own and seeds it with notes.
+     * @param name the name of the in-memory database.
+     * @param notes the number of notes to create.
+     * @param properties additional application properties.
+     * @return the running application context.
+     */
+    static ConfigurableApplicationContext start(String name, int notes, String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NotesBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        "spring.datasource.url=jdbc:h2:mem:" + name)
+                .properties(properties)
+                .run();
+        context.getBean(NoteService.class).createNotes(requests(notes));
+        return context;
+    }
+
+    /**
+     * @return a Prometheus registry recording timers with the histogram buckets the application uses for notes.service.
+     */
+    static MeterRegistry prometheusRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        });
+        return registry;
+    }
+}
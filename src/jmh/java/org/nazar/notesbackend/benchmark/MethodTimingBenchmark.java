@@ -0,0 +1,69 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.nazar.notesbackend.entity.Note;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.nazar.notesbackend.mapper.NoteMapper;
+import org.nazar.notesbackend.metrics.MethodTimingInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+
+/**
+ * Measures what the service timers add to a call: a plain call, a call through a Spring AOP proxy with a pass-through
+ * interceptor, and a call through the MethodTimingInterceptor recording into a Prometheus registry with the
+ * histogram buckets configured for notes.service.
+ * Run with -prof gc to check that timing a call allocates nothing on top of the proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(2)
+public class MethodTimingBenchmark {
+    @Param({"direct", "proxy", "timed"})
+    public String mode;
+
+    private NoteMapper noteMapper;
+
+    private Note note;
+
+    @Setup
+    public void setUp() {
+        NoteDto noteDto = BenchmarkNotes.stored(1).getFirst();
+        note = new Note(noteDto.id(), noteDto.name(), noteDto.description(), noteDto.createdAt(), noteDto.updatedAt(),
+                noteDto.version(), NoteSummary.excerptOf(noteDto.description()));
+        noteMapper = switch (mode) {
+            case "direct" -> new NoteMapper();
+            case "proxy" -> proxy(invocation -> invocation.proceed());
+            case "timed" -> proxy(new MethodTimingInterceptor(BenchmarkNotes::prometheusRegistry, "notes.service"));
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+    }
+
+    @Benchmark
+    public NoteDto mapToDto() {
+        return noteMapper.mapToDto(note);
+    }
+
+    private static NoteMapper proxy(MethodInterceptor interceptor) {
+        ProxyFactory proxyFactory = new ProxyFactory(new NoteMapper());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return (NoteMapper) proxyFactory.getProxy();
+    }
+}
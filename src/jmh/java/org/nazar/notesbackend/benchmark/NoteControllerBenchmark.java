@@ -0,0 +1,70 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Benchmarks full requests through the NoteController, from the DispatcherServlet down to the database and back
+ * through Jackson, using MockMvc to leave out the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteControllerBenchmark {
+    @Param({"none", "caffeine"})
+    public String cache;
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkNotes.start("controller_benchmark", 1000, "spring.cache.type=" + cache);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        ids = context.getBean(NoteService.class).getAllNotes().stream().map(NoteDto::id).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String getById() throws Exception {
+        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes/{id}", id)).andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String getPage() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes").param("limit", "50"))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,51 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.nazar.notesbackend.entity.Note;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.nazar.notesbackend.mapper.NoteMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the entity/DTO conversions of the NoteMapper.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteMapperBenchmark {
+    private final NoteMapper noteMapper = new NoteMapper();
+
+    private NoteDto noteDto;
+
+    private Note note;
+
+    @Setup
+    public void setUp() {
+        noteDto = BenchmarkNotes.stored(1).getFirst();
+        note = new Note(noteDto.id(), noteDto.name(), noteDto.description(), noteDto.createdAt(), noteDto.updatedAt(),
+                noteDto.version(), NoteSummary.excerptOf(noteDto.description()));
+    }
+
+    @Benchmark
+    public NoteDto mapToDto() {
+        return noteMapper.mapToDto(note);
+    }
+
+    @Benchmark
+    public Note mapToEntity() {
+        return noteMapper.mapToEntity(noteDto);
+    }
+}
@@ -0,0 +1,70 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.mapper.NoteMapper;
+import org.nazar.notesbackend.repository.NotesRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares reading all notes as managed entities mapped to NoteDtos with reading NoteDtos straight from the
+ * result set, both in a read-only transaction. Run with -prof gc to see the allocation per read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteReadPathBenchmark {
+    @Param({"1000", "10000"})
+    public int notes;
+
+    private ConfigurableApplicationContext context;
+
+    private NotesRepository notesRepository;
+
+    private NoteMapper noteMapper;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkNotes.start("read_path_benchmark", notes, "spring.main.web-application-type=none");
+        notesRepository = context.getBean(NotesRepository.class);
+        noteMapper = context.getBean(NoteMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<NoteDto> entities() {
+        return readOnlyTransaction.execute(status -> notesRepository.findAll().stream().map(noteMapper::mapToDto).toList());
+    }
+
+    @Benchmark
+    public List<NoteDto> projection() {
+        return readOnlyTransaction.execute(status -> notesRepository.findAllDtos());
+    }
+}
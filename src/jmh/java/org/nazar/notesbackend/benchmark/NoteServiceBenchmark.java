@@ -0,0 +1,84 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Benchmarks the NoteService read paths against the embedded H2 database seeded with notes.
+ * The note cache is turned off so every call reaches the database, while misses are answered by the MissingNoteCache
+ * after the first lookup of each missing id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteServiceBenchmark {
+    @Param({"1000", "10000"})
+    public int notes;
+
+    private ConfigurableApplicationContext context;
+
+    private NoteService noteService;
+
+    private List<Long> ids;
+
+    private long firstMissingId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkNotes.start("service_benchmark", notes, "spring.main.web-application-type=none", "spring.cache.type=none");
+        noteService = context.getBean(NoteService.class);
+        ids = noteService.getAllNotes().stream().map(NoteDto::id).toList();
+        firstMissingId = ids.getLast() + 1_000_000;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<NoteDto> getAllNotes() {
+        return noteService.getAllNotes();
+    }
+
+    @Benchmark
+    public NoteDto getNoteById() {
+        return noteService.getNoteById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public Object getMissingNote() {
+        try {
+            return noteService.getNoteById(firstMissingId + ThreadLocalRandom.current().nextInt(1000));
+        } catch (NoteNotFoundException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public NotePage getNotesPage() {
+        return noteService.getNotesPage(null, 50);
+    }
+}
@@ -0,0 +1,87 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the NoteService on the JPA store over the embedded H2 database with the in-memory store,
+ * for reads and for writes. The note cache is turned off so every call reaches the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteStoreBenchmark {
+    @Param({"jpa", "memory"})
+    public String store;
+
+    @Param({"10000"})
+    public int notes;
+
+    private ConfigurableApplicationContext context;
+
+    private NoteService noteService;
+
+    private List<Long> ids;
+
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String profile = store.equals("memory") ? "in-memory" : "default";
+        context = BenchmarkNotes.start("store_benchmark", notes, "spring.profiles.active=" + profile,
+                "spring.main.web-application-type=none", "spring.cache.type=none");
+        noteService = context.getBean(NoteService.class);
+        ids = noteService.getAllNotes().stream().map(NoteDto::id).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public NoteDto getNoteById() {
+        return noteService.getNoteById(randomId());
+    }
+
+    @Benchmark
+    public NotePage getNotesPage() {
+        return noteService.getNotesPage(null, 50);
+    }
+
+    @Benchmark
+    public NoteDto createNote() {
+        return noteService.createNote(new NoteDto(null, "Created " + created.incrementAndGet(), "Benchmark", null));
+    }
+
+    @Benchmark
+    public NoteDto updateNote() {
+        return noteService.updateNote(new NoteDto(null, null, "Updated " + System.nanoTime(), null), randomId(), null);
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
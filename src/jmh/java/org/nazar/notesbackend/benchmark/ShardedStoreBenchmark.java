@@ -0,0 +1,96 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures how the throughput of the NoteService on the sharded store follows the number of shards, each one an
+ * in-memory H2 database with a pool of its own, under concurrent callers. Single-note operations go to one shard;
+ * pages ask every shard and merge. shards=1 is the baseline of a single database behind the same code.
+ * The note cache is turned off so every call reaches the store. Throughput only grows with shards while the
+ * machine has cores left for the extra databases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ShardedStoreBenchmark {
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    @Param({"10000"})
+    public int notes;
+
+    private ConfigurableApplicationContext context;
+
+    private NoteService noteService;
+
+    private List<Long> ids;
+
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String urls = IntStream.range(0, shards)
+                .mapToObj(shard -> "jdbc:h2:mem:sharded_benchmark_" + shards + "_" + shard)
+                .collect(Collectors.joining(","));
+        context = BenchmarkNotes.start("sharded_benchmark", notes, "spring.profiles.active=sharded",
+                "notes.store.sharded.urls=" + urls, "spring.main.web-application-type=none", "spring.cache.type=none");
+        noteService = context.getBean(NoteService.class);
+        ids = noteService.getAllNotes().stream().map(NoteDto::id).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public NoteDto getNoteById() {
+        return noteService.getNoteById(randomId());
+    }
+
+    @Benchmark
+    public NotePage getNotesPage() {
+        return noteService.getNotesPage(null, 50);
+    }
+
+    @Benchmark
+    public NoteDto createNote() {
+        return noteService.createNote(new NoteDto(null, "Created " + created.incrementAndGet(), "Benchmark", null));
+    }
+
+    @Benchmark
+    public NoteDto updateNote() {
+        return noteService.updateNote(new NoteDto(null, null, "Updated " + System.nanoTime(), null), randomId(), null);
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
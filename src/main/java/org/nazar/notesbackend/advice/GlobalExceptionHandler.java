@@ -1,6 +1,15 @@
 package org.nazar.notesbackend.advice;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.nazar.notesbackend.entity.dto.ErrorResponse;
+import org.nazar.notesbackend.exception.AdmissionRejectedException;
+import org.nazar.notesbackend.exception.NoteConflictException;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.exception.SyncTokenExpiredException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -10,9 +19,45 @@ import java.util.NoSuchElementException;
 
 /**
  * Global exception handler that captures and handles specific exceptions across the entire application.
+ * Every handler counts the errors it maps in the notes.errors metric, tagged by handler and status.
  */
 @ControllerAdvice
 public class GlobalExceptionHandler {
+    public static final String ERRORS_COUNTER = "notes.errors";
+
+    /**
+     * Shared by all not found responses, which clients asking for missing ids can request at a high rate.
+     * The client knows which id it asked for, so the body does not repeat it.
+     */
+    private static final ResponseEntity<ErrorResponse> NOTE_NOT_FOUND = ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .body(new ErrorResponse(HttpStatus.NOT_FOUND.value(), "Cannot find note with such id"));
+
+    private final Counter illegalArgumentErrors;
+
+    private final Counter noSuchElementErrors;
+
+    private final Counter noteNotFoundErrors;
+
+    private final Counter noteConflictErrors;
+
+    private final Counter dataIntegrityViolationErrors;
+
+    private final Counter optimisticLockingFailureErrors;
+
+    private final Counter syncTokenExpiredErrors;
+
+    private final Counter admissionRejectedErrors;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        illegalArgumentErrors = errorCounter(meterRegistry, "illegal_argument", HttpStatus.BAD_REQUEST);
+        noSuchElementErrors = errorCounter(meterRegistry, "no_such_element", HttpStatus.NOT_FOUND);
+        noteNotFoundErrors = errorCounter(meterRegistry, "note_not_found", HttpStatus.NOT_FOUND);
+        noteConflictErrors = errorCounter(meterRegistry, "note_conflict", HttpStatus.CONFLICT);
+        dataIntegrityViolationErrors = errorCounter(meterRegistry, "data_integrity_violation", HttpStatus.BAD_REQUEST);
+        optimisticLockingFailureErrors = errorCounter(meterRegistry, "optimistic_locking_failure", HttpStatus.PRECONDITION_FAILED);
+        syncTokenExpiredErrors = errorCounter(meterRegistry, "sync_token_expired", HttpStatus.GONE);
+        admissionRejectedErrors = errorCounter(meterRegistry, "admission_rejected", HttpStatus.SERVICE_UNAVAILABLE);
+    }
 
     /**
      * Handles IllegalArgumentExceptions thrown anywhere in the application.
@@ -21,6 +66,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(Exception ex) {
+        illegalArgumentErrors.increment();
         ErrorResponse response = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), ex.getMessage());
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
@@ -33,9 +79,98 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<ErrorResponse> handleNoSuchElementException(Exception ex) {
+        noSuchElementErrors.increment();
         ErrorResponse response = new ErrorResponse(HttpStatus.NOT_FOUND.value(), ex.getMessage());
 
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    /**
+     * Handles NoteNotFoundException thrown when a note with the requested id does not exist.
+     * @param ex the exception that was thrown.
+     * @return the shared not found ResponseEntity.
+     */
+    @ExceptionHandler(NoteNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNoteNotFoundException(NoteNotFoundException ex) {
+        noteNotFoundErrors.increment();
+
+        return NOTE_NOT_FOUND;
+    }
+
+    /**
+     * Handles NoteConflictException thrown when the name of a created or renamed note is already taken.
+     * @param ex the exception that was thrown.
+     * @return a ResponseEntity containing the error details.
+     */
+    @ExceptionHandler(NoteConflictException.class)
+    public ResponseEntity<ErrorResponse> handleNoteConflictException(NoteConflictException ex) {
+        noteConflictErrors.increment();
+        ErrorResponse response = new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    /**
+     * Handles DataIntegrityViolationException thrown when a write breaks a database constraint. The NoteService
+     * reports a taken name as a NoteConflictException instead, also when a concurrent write took it first.
+     * @param ex the exception that was thrown.
+     * @return a ResponseEntity containing the error details.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(Exception ex) {
+        dataIntegrityViolationErrors.increment();
+        ErrorResponse response = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Note conflicts with an existing note");
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    /**
+     * Handles OptimisticLockingFailureException thrown when a note changed since the version the client expected.
+     * @param ex the exception that was thrown.
+     * @return a ResponseEntity containing the error details.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(Exception ex) {
+        optimisticLockingFailureErrors.increment();
+        ErrorResponse response = new ErrorResponse(HttpStatus.PRECONDITION_FAILED.value(), ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+    }
+
+    /**
+     * Handles SyncTokenExpiredException thrown when a sync token is older than the tombstone retention.
+     * @param ex the exception that was thrown.
+     * @return a ResponseEntity containing the error details.
+     */
+    @ExceptionHandler(SyncTokenExpiredException.class)
+    public ResponseEntity<ErrorResponse> handleSyncTokenExpiredException(Exception ex) {
+        syncTokenExpiredErrors.increment();
+        ErrorResponse response = new ErrorResponse(HttpStatus.GONE.value(), ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.GONE).body(response);
+    }
+
+    /**
+     * Handles AdmissionRejectedException thrown when admission control sheds a request,
+     * telling the client when to try again.
+     * @param ex the exception that was thrown.
+     * @return a ResponseEntity containing the error details.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+        admissionRejectedErrors.increment();
+        ErrorResponse response = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+
+    private static Counter errorCounter(MeterRegistry meterRegistry, String handler, HttpStatus status) {
+        return Counter.builder(ERRORS_COUNTER)
+                .tag("handler", handler)
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,46 @@
+package org.nazar.notesbackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.nazar.notesbackend.web.AdmissionInterceptor;
+import org.nazar.notesbackend.web.AdmissionLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts admission control in front of the API, with separate limits for reads and writes so a burst of slow writes
+ * cannot starve reads served from the cache.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notes.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig implements WebMvcConfigurer {
+    private final AdmissionInterceptor admissionInterceptor;
+
+    public AdmissionConfig(MeterRegistry meterRegistry,
+                           @Value("${notes.admission.reads.max-concurrent:64}") int maxConcurrentReads,
+                           @Value("${notes.admission.reads.max-queue:128}") int maxQueuedReads,
+                           @Value("${notes.admission.writes.max-concurrent:16}") int maxConcurrentWrites,
+                           @Value("${notes.admission.writes.max-queue:32}") int maxQueuedWrites,
+                           @Value("${notes.admission.queue-timeout:100ms}") Duration queueTimeout,
+                           @Value("${notes.admission.retry-after:1s}") Duration retryAfter,
+                           @Value("${notes.admission.adaptive.enabled:false}") boolean adaptiveEnabled,
+                           @Value("${notes.admission.adaptive.latency-threshold:250ms}") Duration latencyThreshold,
+                           @Value("${notes.admission.adaptive.backoff-ratio:0.9}") double backoffRatio,
+                           @Value("${notes.admission.adaptive.min-limit:2}") int minLimit) {
+        AdmissionLimiter.Adaptive adaptive = adaptiveEnabled
+                ? new AdmissionLimiter.Adaptive(latencyThreshold, backoffRatio, minLimit)
+                : null;
+        this.admissionInterceptor = new AdmissionInterceptor(
+                new AdmissionLimiter("read", maxConcurrentReads, maxQueuedReads, queueTimeout, adaptive, meterRegistry),
+                new AdmissionLimiter("write", maxConcurrentWrites, maxQueuedWrites, queueTimeout, adaptive, meterRegistry),
+                retryAfter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,57 @@
+package org.nazar.notesbackend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.nazar.notesbackend.store.InMemoryNoteStore;
+import org.nazar.notesbackend.store.InMemoryTransactionManager;
+import org.nazar.notesbackend.store.NoteSnapshotter;
+import org.nazar.notesbackend.store.NoteWriteAheadLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Configuration of the in-memory note store. Its transaction manager makes the JPA one back off,
+ * so @Transactional service methods never open a database connection.
+ * With notes.store.durable.enabled the store keeps its notes across restarts in a log and snapshots.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notes.store.type", havingValue = "memory")
+public class InMemoryStoreConfig {
+    public static final String LOG_RECORDS_COUNTER = "notes.store.log.records";
+
+    public static final String LOG_SYNCS_COUNTER = "notes.store.log.syncs";
+
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new InMemoryTransactionManager();
+    }
+
+    @Bean
+    public InMemoryNoteStore noteStore(@Value("${notes.store.durable.enabled:false}") boolean durable,
+                                       @Value("${notes.store.durable.directory:data/notes}") Path directory,
+                                       @Value("${notes.store.durable.fsync:true}") boolean fsync,
+                                       MeterRegistry meterRegistry) throws IOException {
+        if (!durable) {
+            return new InMemoryNoteStore();
+        }
+        InMemoryNoteStore noteStore = InMemoryNoteStore.open(directory, fsync);
+        NoteWriteAheadLog log = noteStore.writeAheadLog().orElseThrow();
+        FunctionCounter.builder(LOG_RECORDS_COUNTER, log, NoteWriteAheadLog::appendedRecords).register(meterRegistry);
+        FunctionCounter.builder(LOG_SYNCS_COUNTER, log, NoteWriteAheadLog::syncs).register(meterRegistry);
+        return noteStore;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notes.store.durable.enabled", havingValue = "true")
+    public NoteSnapshotter noteSnapshotter(InMemoryNoteStore noteStore,
+                                           @Value("${notes.store.durable.snapshot-interval:5m}") Duration interval,
+                                           @Value("${notes.store.durable.snapshot-after-records:1000000}") long maxRecords) {
+        return new NoteSnapshotter(noteStore, interval, maxRecords);
+    }
+}
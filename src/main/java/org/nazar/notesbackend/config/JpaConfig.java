@@ -1,12 +1,26 @@
 package org.nazar.notesbackend.config;
 
+import java.util.Optional;
+import org.nazar.notesbackend.store.NoteStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
 /**
- * Configuration class to enable JPA auditing.
+ * Configuration class to enable JPA auditing when notes are stored through JPA.
  */
 @Configuration
-@EnableJpaAuditing
+@ConditionalOnProperty(name = "notes.store.type", havingValue = "jpa", matchIfMissing = true)
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
 public class JpaConfig {
+
+    /**
+     * Audits at the millisecond precision the update statements of the JpaNoteStore use.
+     */
+    @Bean
+    public DateTimeProvider auditingDateTimeProvider() {
+        return () -> Optional.of(NoteStore.currentTimestamp());
+    }
 }
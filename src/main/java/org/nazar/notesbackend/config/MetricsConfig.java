@@ -0,0 +1,36 @@
+package org.nazar.notesbackend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.nazar.notesbackend.metrics.MethodTimingInterceptor;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Instruments the note pipeline. Endpoints are timed by Spring MVC as http.server.requests, repository methods by
+ * Spring Data as spring.data.repository.invocations and connection pool waits by Hikari as hikaricp.connections.acquire.
+ * This adds timers for the NoteService methods.
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_TIMER = "notes.service";
+
+    /**
+     * Times every public NoteService method. Ordered ahead of the cache and transaction advice,
+     * so the timings include cache hits and commits.
+     * The registry is looked up lazily, advisors are created before Boot has configured it.
+     */
+    @Bean
+    public static Advisor noteServiceTimingAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new ComposablePointcut(new RootClassFilter(NoteService.class)),
+                new MethodTimingInterceptor(meterRegistry::getObject, SERVICE_TIMER));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,40 @@
+package org.nazar.notesbackend.config;
+
+import java.util.Collection;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration class to enable caching of notes.
+ * The cache advice runs outside the transaction advice, so entries are only put or evicted after a commit.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class NoteCacheConfig {
+    /**
+     * Name of the cache holding NoteDtos by note id.
+     */
+    public static final String NOTES_CACHE = "notes";
+
+    /**
+     * Name of the CacheResolver bean handing out the note cache as a VersionedNoteCache.
+     */
+    public static final String NOTE_CACHE_RESOLVER = "noteCacheResolver";
+
+    @Bean(NOTE_CACHE_RESOLVER)
+    public CacheResolver noteCacheResolver(CacheManager cacheManager) {
+        return new SimpleCacheResolver(cacheManager) {
+            @Override
+            public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+                return super.resolveCaches(context).stream().map(VersionedNoteCache::new).toList();
+            }
+        };
+    }
+}
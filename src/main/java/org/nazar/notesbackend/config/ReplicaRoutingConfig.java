@@ -0,0 +1,85 @@
+package org.nazar.notesbackend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.nazar.notesbackend.store.NoteReplicator;
+import org.nazar.notesbackend.store.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Configuration of read replicas for the JPA store: read-only transactions run on the replicas of
+ * notes.replicas.urls and everything else on the spring.datasource database, which becomes the primary.
+ * The DataSource of the application routes each transaction at its first statement. The pools publish the usual
+ * hikaricp metrics, tagged with the pool names notes-primary, notes-replica-0 and so on, and the connections handed
+ * out per pool are counted in notes.datasource.connections, which shows the split of the load.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notes.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+    public static final String CONNECTIONS_COUNTER = "notes.datasource.connections";
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                             @Value("${notes.replicas.urls}") String[] urls,
+                                                             @Value("${notes.replicas.pool-size:10}") int poolSize,
+                                                             @Value("${notes.replicas.balancing:round-robin}") ReplicaRoutingDataSource.Balancing balancing,
+                                                             MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("notes-primary");
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        List<DataSource> replicas = new ArrayList<>(urls.length);
+        for (int replica = 0; replica < urls.length; replica++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("notes-replica-" + replica);
+            dataSource.setJdbcUrl(urls[replica].trim());
+            dataSource.setUsername(properties.determineUsername());
+            dataSource.setPassword(properties.determinePassword());
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(dataSource);
+        }
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replicas, balancing);
+        for (String poolName : routingDataSource.poolNames()) {
+            FunctionCounter.builder(CONNECTIONS_COUNTER, routingDataSource, routing -> routing.connectionsServed(poolName))
+                    .tag("pool", poolName)
+                    .register(meterRegistry);
+        }
+        return routingDataSource;
+    }
+
+    /**
+     * The DataSource of the application, asking the ReplicaRoutingDataSource for a connection only at the first
+     * statement, once the transaction is known to be read-only.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notes.replicas.replicator.enabled", havingValue = "true")
+    public NoteReplicator noteReplicator(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                         @Value("${notes.replicas.replicator.interval:500ms}") Duration interval,
+                                         @Value("${notes.replicas.replicator.overlap:5s}") Duration overlap) {
+        return new NoteReplicator(replicaRoutingDataSource.primary(), replicaRoutingDataSource.replicas(), interval, overlap);
+    }
+}
@@ -0,0 +1,59 @@
+package org.nazar.notesbackend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.nazar.notesbackend.store.InMemoryTransactionManager;
+import org.nazar.notesbackend.store.NoteNameSweeper;
+import org.nazar.notesbackend.store.ShardedNoteStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Configuration of the sharded note store, with a connection pool per shard database. Like the in-memory store it
+ * brings a transaction manager that only scopes synchronizations, since no database transaction can span the shards.
+ * The pools publish the usual hikaricp metrics, tagged with the pool names notes-shard-0, notes-shard-1 and so on.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notes.store.type", havingValue = "sharded")
+public class ShardedStoreConfig {
+
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new InMemoryTransactionManager();
+    }
+
+    @Bean
+    public ShardedNoteStore noteStore(@Value("${notes.store.sharded.urls}") String[] urls,
+                                      @Value("${notes.store.sharded.username:sa}") String username,
+                                      @Value("${notes.store.sharded.password:}") String password,
+                                      @Value("${notes.store.sharded.pool-size:10}") int poolSize,
+                                      MeterRegistry meterRegistry) {
+        List<DataSource> dataSources = new ArrayList<>(urls.length);
+        for (int shard = 0; shard < urls.length; shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("notes-shard-" + shard);
+            dataSource.setJdbcUrl(urls[shard].trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            dataSources.add(dataSource);
+        }
+        return new ShardedNoteStore(dataSources);
+    }
+
+    @Bean
+    public NoteNameSweeper noteNameSweeper(ShardedNoteStore noteStore,
+                                           @Value("${notes.store.sharded.name-sweep.interval:10m}") Duration interval,
+                                           @Value("${notes.store.sharded.name-sweep.grace:1m}") Duration grace) {
+        return new NoteNameSweeper(noteStore, interval, grace);
+    }
+}
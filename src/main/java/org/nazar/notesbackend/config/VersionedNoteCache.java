@@ -0,0 +1,92 @@
+package org.nazar.notesbackend.config;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.springframework.cache.Cache;
+
+/**
+ * Decorator of the note cache that never replaces a cached note with an older version of it.
+ * A read that loaded a note just before an update committed would otherwise put its stale copy over the one the
+ * update put, and keep serving it until the entry expires. The version check and the put run atomically on the
+ * map behind Caffeine and ConcurrentMap caches. Other caches are put to as they are.
+ */
+public class VersionedNoteCache implements Cache {
+    private final Cache delegate;
+
+    public VersionedNoteCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    /**
+     * Puts the note unless the cache already holds a newer version of it.
+     */
+    @Override
+    public void put(Object key, Object value) {
+        ConcurrentMap<Object, Object> entries = entries();
+        if (!(value instanceof NoteDto note) || note.version() == null || entries == null) {
+            delegate.put(key, value);
+            return;
+        }
+        entries.merge(key, note, (cached, offered) -> isNewer(cached, note) ? cached : offered);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<Object, Object> entries() {
+        Object nativeCache = delegate.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache) {
+            return (ConcurrentMap<Object, Object>) caffeineCache.asMap();
+        }
+        return nativeCache instanceof ConcurrentMap<?, ?> map ? (ConcurrentMap<Object, Object>) map : null;
+    }
+
+    private static boolean isNewer(Object cached, NoteDto note) {
+        return cached instanceof NoteDto cachedNote && cachedNote.version() != null
+                && cachedNote.version() > note.version();
+    }
+}
@@ -1,17 +1,42 @@
 package org.nazar.notesbackend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import org.nazar.notesbackend.entity.dto.NoteBatchResult;
+import org.nazar.notesbackend.entity.dto.NoteChanges;
+import org.nazar.notesbackend.entity.dto.NoteDeleteResult;
 import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.entity.dto.NoteSearchResult;
+import org.nazar.notesbackend.entity.dto.NoteSummaryPage;
+import org.nazar.notesbackend.event.NoteChangeFeed;
 import org.nazar.notesbackend.service.NoteService;
+import org.nazar.notesbackend.service.NoteSyncService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller for managing notes.
@@ -19,50 +44,178 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/api/v1/notes")
 public class NoteController {
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
     private final NoteService noteService;
 
-    public NoteController(NoteService noteService) {
+    private final NoteSyncService noteSyncService;
+
+    private final NoteChangeFeed noteChangeFeed;
+
+    private final ObjectWriter exportWriter;
+
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    public NoteController(NoteService noteService, NoteSyncService noteSyncService, NoteChangeFeed noteChangeFeed,
+                          ObjectMapper objectMapper, ContentNegotiationManager contentNegotiationManager) {
         this.noteService = noteService;
+        this.noteSyncService = noteSyncService;
+        this.noteChangeFeed = noteChangeFeed;
+        this.exportWriter = objectMapper.writerFor(NoteDto.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.contentNegotiationManager = contentNegotiationManager;
     }
 
     /**
-     * Retrieves all notes.
-     * @return a ResponseEntity containing a list of NoteDto.
+     * Retrieves a page of notes ordered by id.
+     * Answers 304 without querying the notes when nothing changed since the ETag sent in If-None-Match. A page read
+     * from a replica may lag behind the collection version, so it is sent without an ETag.
+     * @param after the cursor returned with the previous page, absent for the first page.
+     * @param limit the maximum number of notes in the page.
+     * @param request the current request, used for conditional GET.
+     * @return a ResponseEntity containing a NotePage.
      */
     @GetMapping
-    public ResponseEntity<List<NoteDto>> getAll() {
-        return ResponseEntity.ok(noteService.getAllNotes());
+    public ResponseEntity<NotePage> getAll(@RequestParam(required = false) String after,
+                                           @RequestParam(defaultValue = "50") int limit,
+                                           WebRequest request) {
+        String etag = collectionEtag(noteService.getNotesVersion());
+        if (collectionNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        NotePage page = noteService.getNotesPage(after, limit);
+        return collectionResponse(etag).body(page);
+    }
+
+    /**
+     * Retrieves a page of note summaries, e.g. GET /api/v1/notes?view=summary&excerpt=true: ids, names and creation
+     * dates, and with excerpt the first characters of each description. Full descriptions come with GET /api/v1/notes/{id}.
+     * Answers 304 like getAll when nothing changed.
+     * @param after the cursor returned with the previous page, absent for the first page.
+     * @param limit the maximum number of notes in the page.
+     * @param excerpt whether to include an excerpt of each description.
+     * @param request the current request, used for conditional GET.
+     * @return a ResponseEntity containing a NoteSummaryPage.
+     */
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<NoteSummaryPage> getSummaries(@RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "50") int limit,
+                                                        @RequestParam(defaultValue = "false") boolean excerpt,
+                                                        WebRequest request) {
+        String etag = collectionEtag(noteService.getNotesVersion());
+        if (collectionNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        NoteSummaryPage page = noteService.getNoteSummariesPage(after, limit, excerpt);
+        return collectionResponse(etag).body(page);
+    }
+
+    /**
+     * Retrieves the notes changed and deleted since the last sync, e.g. GET /api/v1/notes?since= for a full sync.
+     * Answers 410 when the token is older than the tombstone retention.
+     * @param since the token returned by the previous sync, empty for a full sync.
+     * @param limit the maximum number of changed notes in the response.
+     * @return a ResponseEntity containing the NoteChanges.
+     */
+    @GetMapping(params = "since")
+    public ResponseEntity<NoteChanges> getChanges(@RequestParam String since,
+                                                  @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(noteSyncService.getChanges(since, limit));
+    }
+
+    /**
+     * Exports all notes as newline-delimited JSON, streaming them to the client one by one.
+     * @return a ResponseEntity containing the streamed body.
+     */
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportNotes() {
+        StreamingResponseBody body = outputStream -> noteService.forEachNote(note -> {
+            try {
+                exportWriter.writeValue(outputStream, note);
+                outputStream.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Streams created, updated and deleted notes as Server-Sent Events, starting after the event sent in Last-Event-ID.
+     * @param lastEventId the id of the last event the client received, absent to receive new changes only.
+     * @return the emitter streaming the changes.
+     */
+    @GetMapping(value = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return noteChangeFeed.subscribe(lastEventId);
+    }
+
+    /**
+     * Searches notes by name and description, best matches first.
+     * @param query the words to search for; words ending with '*' match as prefixes.
+     * @param limit the maximum number of hits.
+     * @return a ResponseEntity containing the NoteSearchResult.
+     */
+    @GetMapping("search")
+    public ResponseEntity<NoteSearchResult> searchNotes(@RequestParam("q") String query,
+                                                        @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(noteService.searchNotes(query, limit));
     }
 
     /**
      * Retrieves a single note by its ID.
+     * Answers 304 after only looking up the note version when it still matches the ETag sent in If-None-Match.
      * @param id the ID of the note to retrieve.
+     * @param request the current request, used for conditional GET.
      * @return a ResponseEntity containing the NoteDto.
      */
     @GetMapping("{id}")
-    public ResponseEntity<NoteDto> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(noteService.getNoteById(id));
+    public ResponseEntity<NoteDto> getById(@PathVariable Long id, NativeWebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(noteEtag(noteService.getNoteVersion(id), request))) {
+            return null;
+        }
+        NoteDto note = noteService.getNoteById(id);
+        return ResponseEntity.ok().eTag(noteEtag(note.version(), request)).body(note);
     }
 
     /**
      * Creates a new note.
      * @param saveRequest the NoteDto containing the details of the new note.
+     * @param request the current request, whose Accept header selects the ETag.
      * @return a ResponseEntity containing the newly created NoteDto.
      */
     @PostMapping
-    public ResponseEntity<NoteDto> createNote(@RequestBody NoteDto saveRequest) {
-        return ResponseEntity.ok(noteService.createNote(saveRequest));
+    public ResponseEntity<NoteDto> createNote(@RequestBody NoteDto saveRequest, NativeWebRequest request) {
+        NoteDto note = noteService.createNote(saveRequest);
+        return ResponseEntity.ok().eTag(noteEtag(note.version(), request)).body(note);
+    }
+
+    /**
+     * Creates many notes in one request.
+     * @param saveRequests the NoteDtos containing the details of the new notes.
+     * @return a ResponseEntity containing the per-item outcome of the batch.
+     */
+    @PostMapping("batch")
+    public ResponseEntity<NoteBatchResult> createNotes(@RequestBody List<NoteDto> saveRequests) {
+        return ResponseEntity.ok(noteService.createNotes(saveRequests));
     }
 
     /**
-     * Updates an existing note.
-     * @param updateRequest the NoteDto containing the updated details of the note.
+     * Updates an existing note with PUT or PATCH, which share the same semantics: only the fields present in the request
+     * body change and absent fields keep their value. The note is updated in place with a single statement.
+     * @param updateRequest the NoteDto containing the fields to change.
      * @param id the ID of the note to update.
+     * @param ifMatch the strong ETag of the note version the changes are based on; the update fails with 412 when the
+     *                note changed since or the ETag is weak.
+     * @param request the current request, whose Accept header selects the ETag.
      * @return a ResponseEntity containing the updated NoteDto.
      */
-    @PutMapping("{id}")
-    public ResponseEntity<NoteDto> updateNote(@RequestBody NoteDto updateRequest, @PathVariable Long id) {
-        return ResponseEntity.ok(noteService.updateNote(updateRequest, id));
+    @RequestMapping(value = "{id}", method = {RequestMethod.PUT, RequestMethod.PATCH})
+    public ResponseEntity<NoteDto> updateNote(@RequestBody NoteDto updateRequest, @PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              NativeWebRequest request) {
+        NoteDto note = noteService.updateNote(updateRequest, id, parseVersion(ifMatch));
+        return ResponseEntity.ok().eTag(noteEtag(note.version(), request)).body(note);
     }
 
     /**
@@ -76,4 +229,108 @@ public class NoteController {
         return ResponseEntity.ok("Note with id: " + id + " was deleted successfully");
     }
 
+    /**
+     * Deletes the notes with the given IDs, e.g. DELETE /api/v1/notes?ids=1,2,3.
+     * @param ids the IDs of the notes to delete.
+     * @return a ResponseEntity containing the outcome of the bulk delete.
+     */
+    @DeleteMapping
+    public ResponseEntity<NoteDeleteResult> deleteNotes(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(noteService.deleteByIds(ids));
+    }
+
+    /**
+     * Deletes the notes with the given IDs, taking them in the request body for lists too long for a query string.
+     * @param ids the IDs of the notes to delete.
+     * @return a ResponseEntity containing the outcome of the bulk delete.
+     */
+    @PostMapping("batch/delete")
+    public ResponseEntity<NoteDeleteResult> deleteNotesInBody(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(noteService.deleteByIds(ids));
+    }
+
+    /**
+     * The ETag of the whole collection is weak: it only validates cached pages with If-None-Match, and Tomcat compresses
+     * large pages only when their ETag is weak.
+     */
+    private static String collectionEtag(String version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Compares If-None-Match weakly with the collection ETag. Unlike WebRequest.checkNotModified it does not put the
+     * ETag on the response, which a page read from a replica has to go without.
+     */
+    private static boolean collectionNotModified(WebRequest request, String etag) {
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = etag.substring(2);
+        for (String header : ifNoneMatch) {
+            for (String tag : header.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaqueTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The collection version counts the changes committed on the primary, so a page read from a lagging replica
+     * may not hold them yet and must not be validated by it.
+     */
+    private ResponseEntity.BodyBuilder collectionResponse(String etag) {
+        return noteService.lastReadFromReplica() ? ResponseEntity.ok() : ResponseEntity.ok().eTag(etag);
+    }
+
+    /**
+     * Notes get strong ETags, which If-Match requires. Each encoding is a different representation of the note, so
+     * the ETags of CBOR and Smile carry a suffix, e.g. "5-cbor", while JSON keeps the plain "5".
+     */
+    private String noteEtag(Long version, NativeWebRequest request) {
+        return "\"" + version + encodingSuffix(request) + "\"";
+    }
+
+    private String encodingSuffix(NativeWebRequest request) {
+        List<MediaType> acceptableTypes;
+        try {
+            acceptableTypes = contentNegotiationManager.resolveMediaTypes(request);
+        } catch (HttpMediaTypeNotAcceptableException ex) {
+            return "";
+        }
+        for (MediaType acceptableType : acceptableTypes) {
+            if (acceptableType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+            if (acceptableType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return "-cbor";
+            }
+            if (acceptableType.isCompatibleWith(APPLICATION_SMILE)) {
+                return "-smile";
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Reads the note version out of a strong ETag of any encoding. A weak ETag never matches If-Match.
+     */
+    private static Long parseVersion(String etag) {
+        if (etag == null || etag.equals("*")) {
+            return null;
+        }
+        if (etag.startsWith("W/")) {
+            throw new OptimisticLockingFailureException("If-Match needs a strong ETag instead of " + etag);
+        }
+        String version = etag.replace("\"", "");
+        int suffix = version.indexOf('-');
+        try {
+            return Long.valueOf(suffix < 0 ? version : version.substring(0, suffix));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + etag);
+        }
+    }
 }
@@ -1,20 +1,31 @@
 package org.nazar.notesbackend.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+import java.time.Instant;
 import java.time.LocalDate;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 /**
  * Entity class for notes, including auditing capabilities.
+ * The index on updatedAt and id serves delta sync, which scans the notes changed after a point in time.
  */
 @Entity
 @Getter
@@ -22,14 +33,43 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_note_name", columnNames = "name"),
+        indexes = @Index(name = "idx_note_updated_at", columnList = "updated_at, id"))
 public class Note {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_seq")
+    @SequenceGenerator(name = "note_seq", sequenceName = "note_seq", allocationSize = 50)
     private Long id;
     private String name;
+
+    /**
+     * Kept as a large object, so descriptions have no length limit. Reads go through DTO projections, and those of
+     * listings leave it out, so their queries never touch the large object pages.
+     */
+    @Lob
     private String description;
 
     @CreatedDate
     private LocalDate createdAt;
+
+    /**
+     * Set on insert by auditing and explicitly by every update statement, which bypass the entity listeners.
+     */
+    @LastModifiedDate
+    private Instant updatedAt;
+
+    @Version
+    private Long version;
+
+    /**
+     * The first NoteSummary.EXCERPT_LENGTH characters of the description, computed by the database on every write,
+     * for summary listings that show an excerpt. Like NoteSummary.excerptOf it stops one character short rather than
+     * split a surrogate pair.
+     */
+    @Column(length = NoteSummary.EXCERPT_LENGTH, insertable = false, updatable = false,
+            columnDefinition = "varchar(" + NoteSummary.EXCERPT_LENGTH + ") generated always as (left(description, "
+                    + NoteSummary.EXCERPT_LENGTH + " - case when ascii(substring(description, " + NoteSummary.EXCERPT_LENGTH
+                    + ", 1)) between 55296 and 56319 then 1 else 0 end))")
+    private String descriptionExcerpt;
 }
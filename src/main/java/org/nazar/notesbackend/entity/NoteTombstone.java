@@ -0,0 +1,27 @@
+package org.nazar.notesbackend.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Record of a deleted note, kept for the retention window so delta sync can report the deletion.
+ * Tombstones live apart from the notes, so deleted notes free their name and never show up in other reads.
+ */
+@Entity
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "idx_note_tombstone_deleted_at", columnList = "deleted_at"))
+public class NoteTombstone {
+
+    @Id
+    private Long noteId;
+
+    private Instant deletedAt;
+}
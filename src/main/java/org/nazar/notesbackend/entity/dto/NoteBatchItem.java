@@ -0,0 +1,10 @@
+package org.nazar.notesbackend.entity.dto;
+
+/**
+ * Outcome of a single item of a bulk create request.
+ * @param index the position of the item in the request.
+ * @param note the created note, or null when the item was rejected.
+ * @param error the reason the item was rejected, or null when it was created.
+ */
+public record NoteBatchItem(int index, NoteDto note, String error) {
+}
@@ -0,0 +1,9 @@
+package org.nazar.notesbackend.entity.dto;
+
+import java.util.List;
+
+/**
+ * Report of a bulk create request, with one item per requested note in request order.
+ */
+public record NoteBatchResult(int created, int failed, List<NoteBatchItem> items) {
+}
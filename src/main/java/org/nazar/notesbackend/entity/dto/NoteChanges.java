@@ -0,0 +1,13 @@
+package org.nazar.notesbackend.entity.dto;
+
+import java.util.List;
+
+/**
+ * A page of the notes changed and deleted since a sync token.
+ * @param notes the created and updated notes, ordered by update time.
+ * @param deletedIds the ids of the deleted notes; may contain ids the client never received.
+ * @param nextSince the token to pass as since on the next request.
+ * @param hasMore whether more changes are waiting, so the client should ask again right away.
+ */
+public record NoteChanges(List<NoteDto> notes, List<Long> deletedIds, String nextSince, boolean hasMore) {
+}
@@ -0,0 +1,9 @@
+package org.nazar.notesbackend.entity.dto;
+
+import java.util.List;
+
+/**
+ * Report of a bulk delete request, listing the requested ids that did not belong to any note.
+ */
+public record NoteDeleteResult(int deleted, List<Long> notFound) {
+}
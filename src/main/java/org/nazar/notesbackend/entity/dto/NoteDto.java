@@ -1,8 +1,20 @@
 package org.nazar.notesbackend.entity.dto;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 /**
  * Data Transfer Object (DTO) for notes.
+ * The version grows with every update of the note and is exposed as its ETag.
+ * updatedAt is the time of the last change at millisecond precision, set by the store.
  */
-public record NoteDto(Long id, String name, String description, LocalDate createdAt) {}
+public record NoteDto(Long id, String name, String description, LocalDate createdAt, Long version, Instant updatedAt) {
+
+    public NoteDto(Long id, String name, String description, LocalDate createdAt, Long version) {
+        this(id, name, description, createdAt, version, null);
+    }
+
+    public NoteDto(Long id, String name, String description, LocalDate createdAt) {
+        this(id, name, description, createdAt, null, null);
+    }
+}
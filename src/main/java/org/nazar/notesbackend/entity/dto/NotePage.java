@@ -0,0 +1,11 @@
+package org.nazar.notesbackend.entity.dto;
+
+import java.util.List;
+
+/**
+ * A single page of notes returned by keyset pagination.
+ * @param notes the notes of this page ordered by id.
+ * @param nextCursor opaque cursor pointing past the last note of this page, or null when there are no more notes.
+ */
+public record NotePage(List<NoteDto> notes, String nextCursor) {
+}
@@ -0,0 +1,7 @@
+package org.nazar.notesbackend.entity.dto;
+
+/**
+ * A note matching a search query together with its relevance score.
+ */
+public record NoteSearchHit(NoteDto note, double score) {
+}
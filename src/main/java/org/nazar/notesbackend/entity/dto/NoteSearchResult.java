@@ -0,0 +1,12 @@
+package org.nazar.notesbackend.entity.dto;
+
+import java.util.List;
+
+/**
+ * Result of a full-text search over notes.
+ * @param hits the best matching notes ordered by descending score.
+ * @param totalHits the number of notes matching the query.
+ * @param tookMicros the time spent querying the index, in microseconds.
+ */
+public record NoteSearchResult(List<NoteSearchHit> hits, int totalHits, long tookMicros) {
+}
@@ -0,0 +1,31 @@
+package org.nazar.notesbackend.entity.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDate;
+
+/**
+ * Summary of a note for listings, without the description. The excerpt holds the first EXCERPT_LENGTH characters of
+ * the description when asked for, and is left out of the JSON otherwise.
+ */
+public record NoteSummary(Long id, String name, LocalDate createdAt, @JsonInclude(JsonInclude.Include.NON_NULL) String excerpt) {
+    /**
+     * Maximum length of an excerpt, which the stores keep in a column of its own.
+     */
+    public static final int EXCERPT_LENGTH = 200;
+
+    public NoteSummary(Long id, String name, LocalDate createdAt) {
+        this(id, name, createdAt, null);
+    }
+
+    /**
+     * @param description the description of a note, may be null.
+     * @return the first EXCERPT_LENGTH characters of the description, one less when the cut would split a surrogate pair.
+     */
+    public static String excerptOf(String description) {
+        if (description == null || description.length() <= EXCERPT_LENGTH) {
+            return description;
+        }
+        int end = Character.isHighSurrogate(description.charAt(EXCERPT_LENGTH - 1)) ? EXCERPT_LENGTH - 1 : EXCERPT_LENGTH;
+        return description.substring(0, end);
+    }
+}
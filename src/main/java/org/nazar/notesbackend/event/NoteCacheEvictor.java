@@ -0,0 +1,31 @@
+package org.nazar.notesbackend.event;
+
+import org.nazar.notesbackend.config.NoteCacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts deleted notes from the note cache once their deletion has committed.
+ * Deletes find out which notes they removed only while running, so their keys cannot be declared with @CacheEvict.
+ */
+@Component
+public class NoteCacheEvictor {
+    private final CacheManager cacheManager;
+
+    public NoteCacheEvictor(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.type() != NoteChangedEvent.Type.DELETED) {
+            return;
+        }
+        Cache notesCache = cacheManager.getCache(NoteCacheConfig.NOTES_CACHE);
+        if (notesCache != null) {
+            notesCache.evict(event.id());
+        }
+    }
+}
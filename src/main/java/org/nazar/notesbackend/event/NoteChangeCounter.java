@@ -0,0 +1,43 @@
+package org.nazar.notesbackend.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Counts note changes on this node, giving the collection of notes a version that is cheap to compare.
+ * The counter moves both before a change commits and after it completes, so a version read before a commit
+ * never matches one read after it.
+ */
+@Component
+public class NoteChangeCounter {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final AtomicLong changes = new AtomicLong();
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void beforeNoteChangeCommit(NoteChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void afterNoteChangeCompletion(NoteChangedEvent event) {
+        changed();
+    }
+
+    /**
+     * Moves the version for a write that publishes no NoteChangedEvent of its own, such as the flush of buffered
+     * descriptions. Like the listeners, call it both before the write commits and after it completes.
+     */
+    public void changed() {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * @return the current version of the collection, unique across restarts of this node.
+     */
+    public String currentVersion() {
+        return epoch + "-" + changes.get();
+    }
+}
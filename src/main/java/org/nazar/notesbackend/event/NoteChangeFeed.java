@@ -0,0 +1,323 @@
+package org.nazar.notesbackend.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes committed note changes to clients as Server-Sent Events.
+ * Every change gets an event id and is kept in a ring of the latest changes, so a client reconnecting with
+ * Last-Event-ID receives the changes it missed. A client whose id is no longer in the ring, or comes from before a
+ * restart, receives a reset event and has to reload the notes.
+ * Subscribers hold no thread while idle. Each has a bounded buffer of changes not yet written to it; a subscriber
+ * falling further behind is disconnected and can resume from the ring.
+ */
+@Component
+public class NoteChangeFeed implements SmartLifecycle {
+    public static final String SUBSCRIBERS_GAUGE = "notes.changes.subscribers";
+
+    public static final String DROPPED_COUNTER = "notes.changes.dropped";
+
+    public static final String RESET_EVENT = "reset";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final ObjectMapper objectMapper;
+
+    private final Change[] ring;
+
+    private final int bufferSize;
+
+    private final Duration heartbeatInterval;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Lock lock = new ReentrantLock();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter dropped;
+
+    private long lastSequence;
+
+    private ScheduledExecutorService heartbeats;
+
+    private volatile boolean running;
+
+    public NoteChangeFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${notes.changes.replay-size:1024}") int replaySize,
+                          @Value("${notes.changes.buffer-size:256}") int bufferSize,
+                          @Value("${notes.changes.heartbeat-interval:30s}") Duration heartbeatInterval) {
+        this.objectMapper = objectMapper;
+        this.ring = new Change[replaySize];
+        this.bufferSize = bufferSize;
+        this.heartbeatInterval = heartbeatInterval;
+        Gauge.builder(SUBSCRIBERS_GAUGE, subscribers, Set::size).register(meterRegistry);
+        this.dropped = Counter.builder(DROPPED_COUNTER).register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of note changes.
+     * @param lastEventId the id of the last event the client received, or null to receive new changes only.
+     * @return the emitter streaming the changes.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        Subscriber subscriber = new Subscriber(new SseEmitter());
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(ex -> subscribers.remove(subscriber));
+        lock.lock();
+        try {
+            subscriber.offer(missedChanges(lastEventId), false);
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * Assigns the next event id to a committed change and sends it to all subscribers.
+     * @param event the change published by the NoteService.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        String data = toJson(event.type() == NoteChangedEvent.Type.DELETED ? Map.of("id", event.id()) : event.note());
+        lock.lock();
+        try {
+            Change change = new Change(++lastSequence, event.type().name().toLowerCase(Locale.ROOT), data);
+            ring[(int) (change.sequence() % ring.length)] = change;
+            List<Change> changes = List.of(change);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(changes, true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of open streams.
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void start() {
+        heartbeats = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("note-change-heartbeat").daemon().factory());
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    /**
+     * Ends all open streams, before the web server stops so they do not hold up its shutdown.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+        subscribers.forEach(subscriber -> subscriber.close(false));
+        senders.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the changes to send first: the ones missed since the given event, a reset, or a heartbeat that makes
+     *         the stream open right away when there is nothing to catch up on.
+     */
+    private List<Change> missedChanges(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of(Change.HEARTBEAT);
+        }
+        long oldest = Math.max(1, lastSequence - ring.length + 1);
+        long lastSeen = parseSequence(lastEventId);
+        if (lastSeen < oldest - 1 || lastSeen > lastSequence) {
+            return List.of(new Change(lastSequence, RESET_EVENT, ""));
+        }
+        List<Change> missed = new ArrayList<>((int) (lastSequence - lastSeen));
+        for (long sequence = lastSeen + 1; sequence <= lastSequence; sequence++) {
+            missed.add(ring[(int) (sequence % ring.length)]);
+        }
+        return missed.isEmpty() ? List.of(Change.HEARTBEAT) : missed;
+    }
+
+    /**
+     * @return the sequence number of an event id handed out by this feed, or -1 when it is not one.
+     */
+    private long parseSequence(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private void sendHeartbeats() {
+        List<Change> heartbeat = List.of(Change.HEARTBEAT);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerIfIdle(heartbeat);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * A change as sent to subscribers, with its data already serialized once for all of them.
+     */
+    private record Change(long sequence, String name, String data) {
+        static final Change HEARTBEAT = new Change(0, null, null);
+    }
+
+    /**
+     * An open stream with the changes not yet written to it. At most one sender writes to a stream at a time,
+     * on a virtual thread that exists only while there are changes to write.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        private final ArrayDeque<Change> pending = new ArrayDeque<>();
+
+        private final Lock subscriberLock = new ReentrantLock();
+
+        private boolean sending;
+
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * @param bounded whether to disconnect the subscriber instead of buffering more than the buffer size.
+         */
+        void offer(List<Change> changes, boolean bounded) {
+            subscriberLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (bounded && pending.size() + changes.size() > bufferSize) {
+                    dropped.increment();
+                    closeLocked(false);
+                    return;
+                }
+                pending.addAll(changes);
+                startSendingLocked();
+            } finally {
+                subscriberLock.unlock();
+            }
+        }
+
+        void offerIfIdle(List<Change> changes) {
+            subscriberLock.lock();
+            try {
+                if (!closed && !sending) {
+                    pending.addAll(changes);
+                    startSendingLocked();
+                }
+            } finally {
+                subscriberLock.unlock();
+            }
+        }
+
+        void close(boolean failed) {
+            subscriberLock.lock();
+            try {
+                if (!closed) {
+                    closeLocked(failed);
+                }
+            } finally {
+                subscriberLock.unlock();
+            }
+        }
+
+        private void startSendingLocked() {
+            if (!sending && !pending.isEmpty()) {
+                sending = true;
+                senders.execute(this::send);
+            }
+        }
+
+        /**
+         * Completes the emitter on a sender, since it waits for a write in progress to a slow client.
+         */
+        private void closeLocked(boolean failed) {
+            closed = true;
+            pending.clear();
+            subscribers.remove(this);
+            if (!failed) {
+                senders.execute(emitter::complete);
+            }
+        }
+
+        private void send() {
+            while (true) {
+                Change change;
+                subscriberLock.lock();
+                try {
+                    change = pending.poll();
+                    if (change == null) {
+                        sending = false;
+                        return;
+                    }
+                } finally {
+                    subscriberLock.unlock();
+                }
+                try {
+                    emitter.send(toEvent(change));
+                } catch (IOException | IllegalStateException ex) {
+                    close(true);
+                    return;
+                }
+            }
+        }
+
+        private SseEmitter.SseEventBuilder toEvent(Change change) {
+            if (change == Change.HEARTBEAT) {
+                return SseEmitter.event().comment("");
+            }
+            return SseEmitter.event().id(epoch + "-" + change.sequence()).name(change.name())
+                    .data(change.data());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.nazar.notesbackend.event;
+
+import org.nazar.notesbackend.entity.dto.NoteDto;
+
+/**
+ * Event published by the NoteService whenever a note is created, updated or deleted.
+ * @param type the kind of change.
+ * @param id the ID of the changed note.
+ * @param note the new state of the note, or null when it was deleted.
+ */
+public record NoteChangedEvent(Type type, Long id, NoteDto note) {
+
+    public static NoteChangedEvent created(NoteDto note) {
+        return new NoteChangedEvent(Type.CREATED, note.id(), note);
+    }
+
+    public static NoteChangedEvent updated(NoteDto note) {
+        return new NoteChangedEvent(Type.UPDATED, note.id(), note);
+    }
+
+    public static NoteChangedEvent deleted(Long id) {
+        return new NoteChangedEvent(Type.DELETED, id, null);
+    }
+
+    /**
+     * Kind of change applied to a note.
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
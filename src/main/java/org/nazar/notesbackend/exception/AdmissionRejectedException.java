@@ -0,0 +1,23 @@
+package org.nazar.notesbackend.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is shed by admission control because too many requests of its class are running or waiting.
+ * Shedding happens when the node is overloaded, so the exception skips capturing a stack trace.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return how long the client should wait before trying again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,39 @@
+package org.nazar.notesbackend.exception;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a note cannot be created or renamed because another note already has its name.
+ * The exception is expected in normal operation, so it skips capturing a stack trace.
+ */
+public class NoteConflictException extends RuntimeException {
+    private final List<String> names;
+
+    public NoteConflictException(String name) {
+        this(Collections.singletonList(name));
+    }
+
+    /**
+     * @param names the names of notes written together, one or more of which is already taken.
+     */
+    public NoteConflictException(List<String> names) {
+        super(null, null, false, false);
+        this.names = names;
+    }
+
+    /**
+     * @return the name that is already taken, or the first of the names written together.
+     */
+    public String getName() {
+        return names.getFirst();
+    }
+
+    @Override
+    public String getMessage() {
+        if (names.size() == 1) {
+            return "Note with such name: " + names.getFirst() + " already exists";
+        }
+        return "A note with one of the names: " + String.join(", ", names) + " already exists";
+    }
+}
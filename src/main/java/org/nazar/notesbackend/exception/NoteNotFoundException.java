@@ -0,0 +1,27 @@
+package org.nazar.notesbackend.exception;
+
+/**
+ * Thrown when a note with the requested id does not exist.
+ * Clients asking for missing ids can do so at a high rate, so the exception skips capturing a stack trace
+ * and builds its message only when asked for it.
+ */
+public class NoteNotFoundException extends RuntimeException {
+    private final Long id;
+
+    public NoteNotFoundException(Long id) {
+        super(null, null, false, false);
+        this.id = id;
+    }
+
+    /**
+     * @return the id of the missing note.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Cannot find note with such id: " + id;
+    }
+}
@@ -0,0 +1,12 @@
+package org.nazar.notesbackend.exception;
+
+/**
+ * Thrown when a sync token is older than the tombstone retention, so deletions since the token may have been purged.
+ * The client has to start over with a full sync.
+ */
+public class SyncTokenExpiredException extends RuntimeException {
+
+    public SyncTokenExpiredException(String message) {
+        super(message);
+    }
+}
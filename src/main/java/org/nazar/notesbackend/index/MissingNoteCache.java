@@ -0,0 +1,93 @@
+package org.nazar.notesbackend.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bounded cache of ids that recently turned out not to belong to any note, so repeated lookups of missing ids
+ * skip the NoteStore. Ids of deleted notes are added once the deletion has committed.
+ * An id leaves the cache once a note with it is created. A lookup that started before such a creation committed
+ * may still find the id missing; recordMiss drops its entry then, so the cache never hides a committed note.
+ * Only creations on this node are seen, so a note created by another node sharing the store stays hidden until its
+ * entry expires, which is why entries live for seconds only.
+ */
+@Component
+public class MissingNoteCache {
+    /**
+     * Name of the cache in the cache.gets metric.
+     */
+    public static final String CACHE_NAME = "missingNotes";
+
+    private final boolean enabled;
+
+    private final Cache<Long, Boolean> missingIds;
+
+    private final AtomicLong creations = new AtomicLong();
+
+    public MissingNoteCache(MeterRegistry meterRegistry,
+                            @Value("${notes.missing-cache.enabled:true}") boolean enabled,
+                            @Value("${notes.missing-cache.maximum-size:100000}") long maximumSize,
+                            @Value("${notes.missing-cache.expire-after-write:5s}") Duration expireAfterWrite) {
+        this.enabled = enabled;
+        this.missingIds = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, missingIds, CACHE_NAME);
+    }
+
+    /**
+     * Tells whether no note with the given id exists, as far as recent lookups know.
+     * @param id the note id to check.
+     * @return true only when the id is known to be missing; false when the NoteStore has to be asked.
+     */
+    public boolean isMissing(Long id) {
+        return enabled && id != null && missingIds.getIfPresent(id) != null;
+    }
+
+    /**
+     * Takes the stamp to pass to recordMiss, before looking the id up in the NoteStore.
+     * @return the number of creations seen so far.
+     */
+    public long stamp() {
+        return creations.get();
+    }
+
+    /**
+     * Remembers an id the NoteStore did not find. The entry is dropped again when a note was created since the
+     * lookup started, as the lookup may have missed that note.
+     * @param id the id that was not found.
+     * @param stamp the stamp taken before the lookup.
+     */
+    public void recordMiss(Long id, long stamp) {
+        if (!enabled || id == null) {
+            return;
+        }
+        missingIds.put(id, Boolean.TRUE);
+        if (creations.get() != stamp) {
+            missingIds.invalidate(id);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.type() == NoteChangedEvent.Type.CREATED) {
+            creations.incrementAndGet();
+            missingIds.invalidate(event.id());
+        } else if (event.type() == NoteChangedEvent.Type.DELETED) {
+            missingIds.put(event.id(), Boolean.TRUE);
+        }
+    }
+}
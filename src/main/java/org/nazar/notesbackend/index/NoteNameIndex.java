@@ -0,0 +1,152 @@
+package org.nazar.notesbackend.index;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+import org.nazar.notesbackend.store.NoteStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-process index of note names used to skip the NoteStore probe when creating notes with new names.
+ * Names are added before their write commits, so once warmed up the index never misses a committed name and a
+ * negative answer is reliable. The name a note held before a committed rename or delete is forgotten, so names can be
+ * reused without the probe. Names of writes that rolled back may linger; the unique name rule of the NoteStore stays
+ * the source of truth.
+ */
+@Component
+public class NoteNameIndex {
+    private static final int WARM_UP_PAGE_SIZE = 1000;
+
+    private final NoteStore noteStore;
+
+    private final boolean enabled;
+
+    /**
+     * The id of the note holding each name, for names added before commit possibly a note that never got it.
+     */
+    private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+
+    /**
+     * The committed name of each note.
+     */
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Set<Long> changedDuringWarmUp = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean warmedUp;
+
+    public NoteNameIndex(NoteStore noteStore, @Value("${notes.name-index.enabled:true}") boolean enabled) {
+        this.noteStore = noteStore;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Loads all existing names once the application has started, a page of summaries at a time.
+     * Notes changed while the index is being built keep the name delivered by their change event.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long afterId = 0L;
+        List<NoteSummary> page;
+        do {
+            page = noteStore.findSummaryPage(afterId, WARM_UP_PAGE_SIZE, false);
+            lock.lock();
+            try {
+                for (NoteSummary summary : page) {
+                    if (!changedDuringWarmUp.contains(summary.id())) {
+                        recordLocked(summary.id(), summary.name());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            afterId = page.isEmpty() ? afterId : page.getLast().id();
+        } while (page.size() == WARM_UP_PAGE_SIZE);
+        warmedUp = true;
+    }
+
+    /**
+     * Tells whether a note with the given name may exist.
+     * @param name the name to check.
+     * @return false only when no note with such name exists; true when the NoteStore has to be asked.
+     */
+    public boolean mightContain(String name) {
+        if (name == null) {
+            return false;
+        }
+        return !enabled || !warmedUp || idsByName.containsKey(name);
+    }
+
+    /**
+     * Registers a name that is about to be in use, before the write giving it to the note commits.
+     * @param id the ID of the created or renamed note.
+     * @param name the new name of the note.
+     */
+    public void add(Long id, String name) {
+        if (enabled && name != null) {
+            idsByName.put(name, id);
+        }
+    }
+
+    /**
+     * Follows committed changes, forgetting the previous name of renamed and deleted notes.
+     * @param event the change published by the NoteService.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!warmedUp) {
+            changedDuringWarmUp.add(event.id());
+        }
+        lock.lock();
+        try {
+            if (event.type() == NoteChangedEvent.Type.DELETED) {
+                forgetLocked(event.id());
+            } else {
+                recordLocked(event.id(), event.note().name());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Notes without a name hold no entry, so a note losing its name is forgotten instead.
+     */
+    private void recordLocked(Long id, String name) {
+        if (name == null) {
+            forgetLocked(id);
+            return;
+        }
+        String previousName = namesById.put(id, name);
+        if (previousName != null && !previousName.equals(name)) {
+            idsByName.remove(previousName, id);
+        }
+        idsByName.put(name, id);
+    }
+
+    private void forgetLocked(Long id) {
+        String name = namesById.remove(id);
+        if (name != null) {
+            idsByName.remove(name, id);
+        }
+    }
+}
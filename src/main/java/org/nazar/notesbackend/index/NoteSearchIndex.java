@@ -0,0 +1,268 @@
+package org.nazar.notesbackend.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+import org.nazar.notesbackend.store.NoteStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-process inverted index over note names and descriptions, ranking matches with BM25.
+ * Built from all notes once the application has started and kept up to date from committed note changes.
+ */
+@Component
+public class NoteSearchIndex {
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    /**
+     * A term found in the name counts as much as this many occurrences in the description.
+     */
+    private static final int NAME_WEIGHT = 2;
+
+    private final NoteStore noteStore;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+    private final Map<Long, IndexedNote> indexedNotes = new HashMap<>();
+
+    private long totalLength;
+
+    private final Set<Long> changedDuringWarmUp = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean warmedUp;
+
+    public NoteSearchIndex(NoteStore noteStore) {
+        this.noteStore = noteStore;
+    }
+
+    /**
+     * Indexes all existing notes once the application has started.
+     * Notes changed while the index is being built keep the state delivered by their change event.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (Stream<NoteDto> notes = noteStore.streamAll()) {
+            notes.forEach(note -> {
+                lock.writeLock().lock();
+                try {
+                    if (!changedDuringWarmUp.contains(note.id())) {
+                        indexLocked(note);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        }
+        warmedUp = true;
+        changedDuringWarmUp.clear();
+    }
+
+    /**
+     * Applies a committed note change to the index.
+     * @param event the change published by the NoteService.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (!warmedUp) {
+            changedDuringWarmUp.add(event.id());
+        }
+        lock.writeLock().lock();
+        try {
+            if (event.type() == NoteChangedEvent.Type.DELETED) {
+                removeLocked(event.id());
+            } else {
+                indexLocked(event.note());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the notes best matching the query. Every word of the query is matched on its own and a word
+     * ending with '*' matches all terms starting with it.
+     * @param query the words to search for.
+     * @param limit the maximum number of matches to return.
+     * @return the top matches ordered by descending score, along with the total number of matching notes.
+     */
+    public Result search(String query, int limit) {
+        List<QueryTerm> queryTerms = parse(query);
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            double averageLength = indexedNotes.isEmpty() ? 0 : (double) totalLength / indexedNotes.size();
+            for (QueryTerm queryTerm : queryTerms) {
+                for (PostingList postingList : lookup(queryTerm)) {
+                    score(postingList, averageLength, scores);
+                }
+            }
+            return new Result(topMatches(scores, limit), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed notes.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexedNotes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexLocked(NoteDto note) {
+        removeLocked(note.id());
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : tokenize(note.name())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(note.description())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).put(note.id(), entry.getValue());
+            length += entry.getValue();
+        }
+        indexedNotes.put(note.id(), new IndexedNote(frequencies.keySet().toArray(String[]::new), length));
+        totalLength += length;
+    }
+
+    private void removeLocked(Long id) {
+        IndexedNote indexedNote = indexedNotes.remove(id);
+        if (indexedNote == null) {
+            return;
+        }
+        for (String term : indexedNote.terms()) {
+            PostingList postingList = postings.get(term);
+            postingList.remove(id);
+            if (postingList.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= indexedNote.length();
+    }
+
+    private Collection<PostingList> lookup(QueryTerm queryTerm) {
+        if (queryTerm.prefix()) {
+            return postings.subMap(queryTerm.term(), true, queryTerm.term() + Character.MAX_VALUE, false).values();
+        }
+        PostingList postingList = postings.get(queryTerm.term());
+        return postingList == null ? List.of() : List.of(postingList);
+    }
+
+    private void score(PostingList postingList, double averageLength, Map<Long, Double> scores) {
+        int noteCount = indexedNotes.size();
+        int documentFrequency = postingList.size();
+        double idf = Math.log(1 + (noteCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        for (int i = 0; i < documentFrequency; i++) {
+            long id = postingList.idAt(i);
+            int frequency = postingList.frequencyAt(i);
+            int length = indexedNotes.get(id).length();
+            double score = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+            scores.merge(id, score, Double::sum);
+        }
+    }
+
+    private static List<Match> topMatches(Map<Long, Double> scores, int limit) {
+        Comparator<Match> byRank = Comparator.comparingDouble(Match::score).thenComparing(Match::noteId, Comparator.reverseOrder());
+        PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, byRank);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.add(new Match(entry.getKey(), entry.getValue()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort(byRank.reversed());
+        return matches;
+    }
+
+    private static List<QueryTerm> parse(String query) {
+        List<QueryTerm> queryTerms = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            List<String> terms = tokenize(prefix ? word.substring(0, word.length() - 1) : word);
+            for (int i = 0; i < terms.size(); i++) {
+                queryTerms.add(new QueryTerm(terms.get(i), prefix && i == terms.size() - 1));
+            }
+        }
+        if (queryTerms.isEmpty()) {
+            throw new IllegalArgumentException("Search query must contain at least one letter or digit");
+        }
+        return queryTerms;
+    }
+
+    /**
+     * Splits text into lower-cased runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private record IndexedNote(String[] terms, int length) {
+    }
+
+    private record QueryTerm(String term, boolean prefix) {
+    }
+
+    /**
+     * A note matching a search query.
+     * @param noteId the ID of the matching note.
+     * @param score the BM25 relevance score, higher is better.
+     */
+    public record Match(long noteId, double score) {
+    }
+
+    /**
+     * Outcome of a search.
+     * @param matches the best matches ordered by descending score.
+     * @param totalMatches the number of notes matching at least one query term.
+     */
+    public record Result(List<Match> matches, int totalMatches) {
+    }
+}
@@ -0,0 +1,62 @@
+package org.nazar.notesbackend.index;
+
+import java.util.Arrays;
+
+/**
+ * Posting list of a single term: note ids in ascending order with the term frequency in each note,
+ * kept in primitive arrays.
+ */
+final class PostingList {
+    private long[] ids = new long[4];
+
+    private int[] frequencies = new int[4];
+
+    private int size;
+
+    /**
+     * Adds the note to the list or replaces its frequency when already present.
+     */
+    void put(long id, int frequency) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            frequencies[position] = frequency;
+            return;
+        }
+        position = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+        ids[position] = id;
+        frequencies[position] = frequency;
+        size++;
+    }
+
+    void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long idAt(int index) {
+        return ids[index];
+    }
+
+    int frequencyAt(int index) {
+        return frequencies[index];
+    }
+}
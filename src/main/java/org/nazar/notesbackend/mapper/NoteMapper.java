@@ -14,6 +14,7 @@ public class NoteMapper {
     }
 
     public NoteDto mapToDto(Note note) {
-        return new NoteDto(note.getId(), note.getName(), note.getDescription(), note.getCreatedAt());
+        return new NoteDto(note.getId(), note.getName(), note.getDescription(), note.getCreatedAt(), note.getVersion(),
+                note.getUpdatedAt());
     }
 }
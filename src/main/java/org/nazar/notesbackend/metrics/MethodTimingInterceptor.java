@@ -0,0 +1,64 @@
+package org.nazar.notesbackend.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Times every intercepted method call with a Timer tagged by method name and outcome.
+ * The timers of a method are registered on its first call and looked up by Method afterwards,
+ * so a call allocates neither tags nor timer samples.
+ */
+public class MethodTimingInterceptor implements MethodInterceptor {
+    private final Supplier<MeterRegistry> meterRegistry;
+
+    private final String metricName;
+
+    private final Map<Method, MethodTimers> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry supplies the registry to register the timers in, asked on the first call of each method.
+     * @param metricName the name shared by all timers of this interceptor.
+     */
+    public MethodTimingInterceptor(Supplier<MeterRegistry> meterRegistry, String metricName) {
+        this.meterRegistry = meterRegistry;
+        this.metricName = metricName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodTimers methodTimers = timers.get(invocation.getMethod());
+        if (methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(invocation.getMethod(), this::register);
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            methodTimers.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable ex) {
+            methodTimers.error().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+    }
+
+    private MethodTimers register(Method method) {
+        return new MethodTimers(timer(method, "success"), timer(method, "error"));
+    }
+
+    private Timer timer(Method method, String outcome) {
+        return Timer.builder(metricName)
+                .tag("method", method.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry.get());
+    }
+
+    private record MethodTimers(Timer success, Timer error) {
+    }
+}
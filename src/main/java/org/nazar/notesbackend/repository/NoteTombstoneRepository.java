@@ -0,0 +1,32 @@
+package org.nazar.notesbackend.repository;
+
+import java.time.Instant;
+import java.util.List;
+import org.nazar.notesbackend.entity.NoteTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the tombstones of deleted notes.
+ */
+@Repository
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+    /**
+     * Range scan on the deletedAt index.
+     * @param after the start of the range, exclusive.
+     * @param until the end of the range, inclusive.
+     * @return the IDs of the notes deleted in the range.
+     */
+    @Query("select t.noteId from NoteTombstone t where t.deletedAt > :after and t.deletedAt <= :until")
+    List<Long> findNoteIdsDeletedBetween(Instant after, Instant until);
+
+    /**
+     * @param before the oldest deletion time to keep.
+     * @return the number of removed tombstones.
+     */
+    @Modifying
+    @Query("delete from NoteTombstone t where t.deletedAt < :before")
+    int deleteByDeletedAtBefore(Instant before);
+}
@@ -1,19 +1,173 @@
 package org.nazar.notesbackend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.nazar.notesbackend.entity.Note;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for the Note entity.
  */
 @Repository
-public interface NotesRepository extends JpaRepository<Note, Long> {
+public interface NotesRepository extends JpaRepository<Note, Long>, NotesRepositoryCustom {
+    /**
+     * Builds NoteDtos straight from the result set. Nothing enters the persistence context,
+     * so reads skip entity hydration, snapshots for dirty checking and mapping.
+     */
+    String SELECT_NOTE_DTO = "select new org.nazar.notesbackend.entity.dto.NoteDto(n.id, n.name, n.description, n.createdAt, n.version,"
+            + " n.updatedAt)"
+            + " from Note n";
+
+    /**
+     * Builds NoteSummarys from the id, name and creation date only, so listings never read the description.
+     */
+    String SELECT_NOTE_SUMMARY = "select new org.nazar.notesbackend.entity.dto.NoteSummary(n.id, n.name, n.createdAt)"
+            + " from Note n";
+
+    /**
+     * Builds NoteSummarys with the excerpt column next to the id, name and creation date, still without the description.
+     */
+    String SELECT_NOTE_SUMMARY_WITH_EXCERPT = "select new org.nazar.notesbackend.entity.dto.NoteSummary(n.id, n.name,"
+            + " n.createdAt, n.descriptionExcerpt)"
+            + " from Note n";
+
     Optional<Note> findNoteById(Long id);
 
     boolean existsNoteByName(String name);
 
     boolean existsNoteById(Long id);
+
+    /**
+     * Reads the version of a single note. Read-only, so with read replicas it runs on one of them.
+     * @param id the ID of the note.
+     * @return the version of the note, if it exists.
+     */
+    @Transactional(readOnly = true)
+    @Query("select n.version from Note n where n.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * Looks up which of the given names are already taken, in a single query.
+     * @param names the names to check.
+     * @return the subset of names that already belong to a note.
+     */
+    @Query("select n.name from Note n where n.name in :names")
+    List<String> findExistingNames(Collection<String> names);
+
+    /**
+     * Reads a single note as a NoteDto. Read-only, so with read replicas it runs on one of them.
+     * @param id the ID of the note.
+     * @return the NoteDto of the note, if it exists.
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_NOTE_DTO + " where n.id = :id")
+    Optional<NoteDto> findDtoById(Long id);
+
+    /**
+     * Reads all notes as NoteDtos, ordered by id.
+     * @return a List of NoteDto representing all notes.
+     */
+    @Query(SELECT_NOTE_DTO + " order by n.id")
+    List<NoteDto> findAllDtos();
+
+    /**
+     * Reads the notes with the given ids as NoteDtos, in no particular order.
+     * @param ids the IDs of the notes.
+     * @return the NoteDtos of the notes that exist.
+     */
+    @Query(SELECT_NOTE_DTO + " where n.id in :ids")
+    List<NoteDto> findDtosByIdIn(Collection<Long> ids);
+
+    /**
+     * Seeks on the primary key index to the first note after the given id, so every page costs the same.
+     * @param id the id of the last note of the previous page.
+     * @param limit the maximum number of notes to return.
+     * @return NoteDtos of the notes with an id greater than the given one, ordered by id.
+     */
+    @Query(SELECT_NOTE_DTO + " where n.id > :id order by n.id")
+    List<NoteDto> findDtosByIdGreaterThan(Long id, Limit limit);
+
+    /**
+     * Seeks like findDtosByIdGreaterThan, reading only the columns of a NoteSummary.
+     * @param id the id of the last note of the previous page.
+     * @param limit the maximum number of notes to return.
+     * @return NoteSummarys without excerpts of the notes with an id greater than the given one, ordered by id.
+     */
+    @Query(SELECT_NOTE_SUMMARY + " where n.id > :id order by n.id")
+    List<NoteSummary> findSummariesByIdGreaterThan(Long id, Limit limit);
+
+    /**
+     * Seeks like findDtosByIdGreaterThan, reading only the columns of a NoteSummary and the excerpt.
+     * @param id the id of the last note of the previous page.
+     * @param limit the maximum number of notes to return.
+     * @return NoteSummarys with excerpts of the notes with an id greater than the given one, ordered by id.
+     */
+    @Query(SELECT_NOTE_SUMMARY_WITH_EXCERPT + " where n.id > :id order by n.id")
+    List<NoteSummary> findSummariesWithExcerptByIdGreaterThan(Long id, Limit limit);
+
+    /**
+     * Range scan on the updatedAt index from the given position, so the cost follows the number of changed notes.
+     * @param updatedAt the update time of the last note of the previous page.
+     * @param id the id of the last note of the previous page, 0 to start at the given time.
+     * @param limit the maximum number of notes to return.
+     * @return NoteDtos of the notes changed after the given position, ordered by update time and id.
+     */
+    @Query(SELECT_NOTE_DTO + " where n.updatedAt >= :updatedAt and (n.updatedAt > :updatedAt or n.id > :id)"
+            + " order by n.updatedAt, n.id")
+    List<NoteDto> findDtosChangedAfter(Instant updatedAt, Long id, Limit limit);
+
+    /**
+     * Streams all notes as NoteDtos ordered by id, fetching rows from the JDBC driver in chunks.
+     * Must be consumed and closed inside a transaction.
+     * @return a Stream of NoteDtos of all notes.
+     */
+    @Query(SELECT_NOTE_DTO + " order by n.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<NoteDto> streamAllDtos();
+
+    /**
+     * Writes a description coalesced by the NoteWriteBuffer together with the version it reached,
+     * unless the note has moved to that version or past it in the meantime.
+     * @param id the ID of the note.
+     * @param description the latest buffered description.
+     * @param version the version of the note after the buffered updates.
+     * @param updatedAt the time of the write.
+     * @return the number of updated notes.
+     */
+    @Modifying
+    @Query("update Note n set n.description = :description, n.version = :version, n.updatedAt = :updatedAt"
+            + " where n.id = :id and n.version < :version")
+    int writeBufferedDescription(Long id, String description, Long version, Instant updatedAt);
+
+    /**
+     * Deletes a note with a single statement, without loading it first.
+     * @param id the ID of the note to delete.
+     * @return the number of deleted notes, 0 when the note does not exist.
+     */
+    @Modifying
+    @Query("delete from Note n where n.id = :id")
+    int deleteNoteById(Long id);
+
+    /**
+     * Deletes the notes with the given ids with a single statement and reports which ones existed,
+     * reading the deleted rows back from H2's OLD TABLE data change delta table.
+     * @param ids the IDs of the notes to delete.
+     * @return the IDs of the notes that were deleted.
+     */
+    @Query(value = "select id from old table (delete from note where id in :ids)", nativeQuery = true)
+    List<Long> deleteNotesByIdIn(Collection<Long> ids);
 }
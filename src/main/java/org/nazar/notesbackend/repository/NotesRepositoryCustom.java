@@ -0,0 +1,22 @@
+package org.nazar.notesbackend.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+
+/**
+ * Note queries that Spring Data cannot derive, implemented by NotesRepositoryCustomImpl.
+ */
+public interface NotesRepositoryCustom {
+    /**
+     * Updates only the given columns of a note with a single statement and increments its version,
+     * returning the new state of the note from the same statement.
+     * @param id the ID of the note to update.
+     * @param name the new name, or null to keep the current one.
+     * @param description the new description, or null to keep the current one.
+     * @param expectedVersion the version the note must have to be updated, or null to update any version.
+     * @param updatedAt the time of the update.
+     * @return the NoteDto of the updated note, empty when no note has the ID and expected version.
+     */
+    Optional<NoteDto> updateInPlace(Long id, String name, String description, Long expectedVersion, Instant updatedAt);
+}
@@ -0,0 +1,64 @@
+package org.nazar.notesbackend.repository;
+
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.query.NativeQuery;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+
+/**
+ * Updates notes in place through H2's FINAL TABLE data change delta table, which returns the updated rows
+ * like UPDATE ... RETURNING, so an update and reading its outcome take one round trip.
+ */
+class NotesRepositoryCustomImpl implements NotesRepositoryCustom {
+    private final EntityManager entityManager;
+
+    NotesRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<NoteDto> updateInPlace(Long id, String name, String description, Long expectedVersion,
+                                           Instant updatedAt) {
+        StringBuilder sql = new StringBuilder("select id, name, description, created_at, version, updated_at from final table (")
+                .append("update note set version = version + 1, updated_at = :updatedAt");
+        if (name != null) {
+            sql.append(", name = :name");
+        }
+        if (description != null) {
+            sql.append(", description = :description");
+        }
+        sql.append(" where id = :id");
+        if (expectedVersion != null) {
+            sql.append(" and version = :version");
+        }
+        sql.append(')');
+
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+        query.addScalar("id", Long.class)
+                .addScalar("name", String.class)
+                .addScalar("description", String.class)
+                .addScalar("created_at", LocalDate.class)
+                .addScalar("version", Long.class)
+                .addScalar("updated_at", Instant.class)
+                .setParameter("id", id)
+                .setParameter("updatedAt", updatedAt);
+        if (name != null) {
+            query.setParameter("name", name);
+        }
+        if (description != null) {
+            query.setParameter("description", description);
+        }
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+
+        List<Object[]> rows = query.getResultList();
+        return rows.stream().findFirst()
+                .map(row -> new NoteDto((Long) row[0], (String) row[1], (String) row[2], (LocalDate) row[3], (Long) row[4],
+                        (Instant) row[5]));
+    }
+}
@@ -1,47 +1,264 @@
 package org.nazar.notesbackend.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import org.nazar.notesbackend.entity.Note;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.nazar.notesbackend.config.NoteCacheConfig;
+import org.nazar.notesbackend.entity.dto.NoteBatchItem;
+import org.nazar.notesbackend.entity.dto.NoteBatchResult;
+import org.nazar.notesbackend.entity.dto.NoteDeleteResult;
 import org.nazar.notesbackend.entity.dto.NoteDto;
-import org.nazar.notesbackend.mapper.NoteMapper;
-import org.nazar.notesbackend.repository.NotesRepository;
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.entity.dto.NoteSearchHit;
+import org.nazar.notesbackend.entity.dto.NoteSearchResult;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.nazar.notesbackend.entity.dto.NoteSummaryPage;
+import org.nazar.notesbackend.event.NoteChangeCounter;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+import org.nazar.notesbackend.exception.NoteConflictException;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.index.MissingNoteCache;
+import org.nazar.notesbackend.index.NoteNameIndex;
+import org.nazar.notesbackend.index.NoteSearchIndex;
+import org.nazar.notesbackend.store.NoteStore;
+import org.nazar.notesbackend.store.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service layer for managing notes.
  */
 @Service
+@CacheConfig(cacheNames = NoteCacheConfig.NOTES_CACHE, cacheResolver = NoteCacheConfig.NOTE_CACHE_RESOLVER)
 public class NoteService {
-    private final NotesRepository notesRepository;
+    /**
+     * Upper bound for the page size a client may request.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Upper bound for the number of search hits a client may request.
+     */
+    public static final int MAX_SEARCH_HITS = 100;
+
+    /**
+     * Upper bound for the number of notes a client may delete in one request.
+     */
+    public static final int MAX_BULK_DELETE = 10000;
+
+    /**
+     * Number of names bound into the IN list of a single lookup when checking the names of a batch.
+     */
+    private static final int NAME_LOOKUP_SIZE = 1000;
+
+    /**
+     * Number of times a batch is inserted before a name lost to concurrent writes fails the whole batch.
+     */
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    private final NoteStore noteStore;
+
+    private final NoteNameIndex noteNameIndex;
+
+    private final NoteSearchIndex noteSearchIndex;
 
-    private final NoteMapper noteMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public NoteService(NotesRepository notesRepository, NoteMapper noteMapper) {
-        this.notesRepository = notesRepository;
-        this.noteMapper = noteMapper;
+    private final NoteChangeCounter noteChangeCounter;
+
+    private final NoteWriteBuffer noteWriteBuffer;
+
+    private final MissingNoteCache missingNoteCache;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxBatchSize;
+
+    public NoteService(NoteStore noteStore, NoteNameIndex noteNameIndex, NoteSearchIndex noteSearchIndex,
+                       ApplicationEventPublisher eventPublisher, NoteChangeCounter noteChangeCounter,
+                       NoteWriteBuffer noteWriteBuffer, MissingNoteCache missingNoteCache,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${notes.batch.max-size:1000}") int maxBatchSize) {
+        this.noteStore = noteStore;
+        this.noteNameIndex = noteNameIndex;
+        this.noteSearchIndex = noteSearchIndex;
+        this.eventPublisher = eventPublisher;
+        this.noteChangeCounter = noteChangeCounter;
+        this.noteWriteBuffer = noteWriteBuffer;
+        this.missingNoteCache = missingNoteCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
-     * Retrieves a note by its ID.
+     * Retrieves a note by its ID, including changes still waiting in the write buffer.
+     * Ids recently found missing are answered from the MissingNoteCache without asking the NoteStore. The lookup is a
+     * single read-only statement without a service transaction around it, so such misses do not take a connection either.
+     * A miss on a replica is looked up again on the primary before it counts. A note read from a replica is not cached,
+     * since it may be older than the last eviction and would then stay stale. A note read before a concurrent update
+     * committed does not replace the updated one in the cache, see VersionedNoteCache.
      * @param id the ID of the note to retrieve.
      * @return the NoteDto of the retrieved note.
      */
-    @Transactional(readOnly = true)
+    @Cacheable(key = "#id", unless = "T(org.nazar.notesbackend.store.ReplicaRoutingDataSource).lastReadFromReplica()")
     public NoteDto getNoteById(Long id) {
-        return noteMapper.mapToDto(
-                notesRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Cannot find note with such id: " + id)));
+        if (missingNoteCache.isMissing(id)) {
+            throw new NoteNotFoundException(id);
+        }
+        long stamp = missingNoteCache.stamp();
+        ReplicaRoutingDataSource.forgetLastRead();
+        return noteWriteBuffer.pending(id).or(() -> noteStore.findById(id))
+                .or(() -> confirmOnPrimary(() -> noteStore.findById(id)))
+                .orElseThrow(() -> notFound(id, stamp));
     }
 
     /**
-     * Retrieves all notes.
+     * Retrieves only the version of a note, without loading the note itself. Like getNoteById it runs without a transaction.
+     * @param id the ID of the note.
+     * @return the current version of the note.
+     */
+    public Long getNoteVersion(Long id) {
+        if (missingNoteCache.isMissing(id)) {
+            throw new NoteNotFoundException(id);
+        }
+        long stamp = missingNoteCache.stamp();
+        return noteWriteBuffer.pending(id).map(NoteDto::version).or(() -> noteStore.findVersionById(id))
+                .or(() -> confirmOnPrimary(() -> noteStore.findVersionById(id)))
+                .orElseThrow(() -> notFound(id, stamp));
+    }
+
+    /**
+     * Retrieves the version of the whole collection of notes, which changes whenever any note changes.
+     * @return the current collection version.
+     */
+    public String getNotesVersion() {
+        return noteChangeCounter.currentVersion();
+    }
+
+    /**
+     * Tells whether the last read of the current thread was served by a replica, so it may lag behind the collection
+     * version.
+     * @return true when the last read came from a replica.
+     */
+    public boolean lastReadFromReplica() {
+        return ReplicaRoutingDataSource.lastReadFromReplica();
+    }
+
+    /**
+     * Retrieves all notes, ordered by id.
      * @return a List of NoteDto representing all notes.
      */
     @Transactional(readOnly = true)
     public List<NoteDto> getAllNotes() {
-        return notesRepository.findAll().stream().map(noteMapper::mapToDto).toList();
+        return noteStore.findAll();
+    }
+
+    /**
+     * Retrieves a page of notes ordered by id, starting right after the given cursor.
+     * @param after the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit the maximum number of notes to return.
+     * @return a NotePage with the notes and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public NotePage getNotesPage(String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        long afterId = after == null ? 0L : decodeCursor(after);
+        ReplicaRoutingDataSource.forgetLastRead();
+        List<NoteDto> notes = noteStore.findPage(afterId, limit + 1);
+
+        boolean hasMore = notes.size() > limit;
+        List<NoteDto> page = hasMore ? notes.subList(0, limit) : notes;
+        String nextCursor = hasMore ? encodeCursor(page.getLast().id()) : null;
+
+        return new NotePage(page, nextCursor);
+    }
+
+    /**
+     * Retrieves a page of note summaries ordered by id, like getNotesPage but without reading the descriptions, so the
+     * cost of a page does not grow with the size of the notes.
+     * @param after the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit the maximum number of notes to return.
+     * @param withExcerpt whether each summary carries the first NoteSummary.EXCERPT_LENGTH characters of the description.
+     * @return a NoteSummaryPage with the summaries and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public NoteSummaryPage getNoteSummariesPage(String after, int limit, boolean withExcerpt) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        long afterId = after == null ? 0L : decodeCursor(after);
+        ReplicaRoutingDataSource.forgetLastRead();
+        List<NoteSummary> summaries = noteStore.findSummaryPage(afterId, limit + 1, withExcerpt);
+
+        boolean hasMore = summaries.size() > limit;
+        List<NoteSummary> page = hasMore ? summaries.subList(0, limit) : summaries;
+        String nextCursor = hasMore ? encodeCursor(page.getLast().id()) : null;
+
+        return new NoteSummaryPage(page, nextCursor);
+    }
+
+    /**
+     * Passes every note, ordered by id, to the given consumer without holding them all in memory.
+     * @param consumer the consumer receiving the NoteDto of each note.
+     */
+    @Transactional(readOnly = true)
+    public void forEachNote(Consumer<NoteDto> consumer) {
+        try (Stream<NoteDto> notes = noteStore.streamAll()) {
+            notes.forEach(consumer);
+        }
+    }
+
+    /**
+     * Searches note names and descriptions. Words ending with '*' match as prefixes.
+     * @param query the words to search for.
+     * @param limit the maximum number of hits to return.
+     * @return a NoteSearchResult with the best matching notes, ordered by relevance.
+     */
+    @Transactional(readOnly = true)
+    public NoteSearchResult searchNotes(String query, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_HITS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_HITS);
+        }
+
+        long start = System.nanoTime();
+        NoteSearchIndex.Result result = noteSearchIndex.search(query, limit);
+        long tookMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+        List<Long> ids = result.matches().stream().map(NoteSearchIndex.Match::noteId).toList();
+        Map<Long, NoteDto> notesById = noteStore.findAllById(ids).stream()
+                .collect(Collectors.toMap(NoteDto::id, Function.identity()));
+        List<NoteSearchHit> hits = result.matches().stream()
+                .filter(match -> notesById.containsKey(match.noteId()))
+                .map(match -> new NoteSearchHit(notesById.get(match.noteId()), match.score()))
+                .toList();
+
+        return new NoteSearchResult(hits, result.totalMatches(), tookMicros);
     }
 
     /**
@@ -49,42 +266,248 @@ public class NoteService {
      * @param request the NoteDto containing the note details.
      * @return the NoteDto of the newly created note.
      */
+    @CachePut(key = "#result.id")
     @Transactional
     public NoteDto createNote(NoteDto request) {
-        if (notesRepository.existsNoteByName(request.name())) {
-            throw new IllegalArgumentException("Note with such name: " + request.name() + " already exists");
+        if (noteNameIndex.mightContain(request.name()) && noteStore.existsByName(request.name())) {
+            throw new NoteConflictException(request.name());
         }
 
-        Note noteToBeSaved = noteMapper.mapToEntity(request);
+        NoteDto createdNote = createUniquelyNamed(request);
+        noteNameIndex.add(createdNote.id(), createdNote.name());
 
-        return noteMapper.mapToDto(notesRepository.save(noteToBeSaved));
+        eventPublisher.publishEvent(NoteChangedEvent.created(createdNote));
+        return createdNote;
     }
 
     /**
-     * Updates an existing note.
+     * Creates many notes at once. Names are validated for the whole batch with one lookup per NAME_LOOKUP_SIZE names and
+     * the notes are stored together, with JDBC batching in the database store. Items with a duplicate name are reported as failed without aborting the others.
+     * A name taken by a concurrent write between the lookup and the insert rolls the insert back. The names are then
+     * looked up again and the insert is retried in a new transaction without the items that lost their name, up to
+     * MAX_BATCH_ATTEMPTS times in all. Only when the last attempt also fails is the whole batch refused with a NoteConflictException.
+     * @param requests the NoteDtos containing the details of the notes to create.
+     * @return a NoteBatchResult with the outcome of every item in request order.
+     */
+    public NoteBatchResult createNotes(List<NoteDto> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Cannot create more than " + maxBatchSize + " notes at once");
+        }
+        NoteBatchItem[] items = new NoteBatchItem[requests.size()];
+        Set<String> batchNames = new HashSet<>();
+        List<Integer> indexesToSave = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String name = requests.get(i).name();
+            if (name != null && !batchNames.add(name)) {
+                items[i] = nameTaken(i, name);
+            } else {
+                indexesToSave.add(i);
+            }
+        }
+        indexesToSave = withoutTakenNames(requests, indexesToSave, items);
+
+        int created = 0;
+        for (int attempt = 1; !indexesToSave.isEmpty(); attempt++) {
+            List<NoteDto> notesToSave = indexesToSave.stream().map(requests::get).toList();
+            List<NoteDto> createdNotes;
+            try {
+                createdNotes = transactionTemplate.execute(status -> createAll(notesToSave));
+            } catch (DataIntegrityViolationException ex) {
+                if (attempt == MAX_BATCH_ATTEMPTS) {
+                    throw new NoteConflictException(notesToSave.stream().map(NoteDto::name).filter(Objects::nonNull).toList());
+                }
+                indexesToSave = withoutTakenNames(requests, indexesToSave, items);
+                continue;
+            }
+            for (int i = 0; i < createdNotes.size(); i++) {
+                int index = indexesToSave.get(i);
+                items[index] = new NoteBatchItem(index, createdNotes.get(i), null);
+            }
+            created = createdNotes.size();
+            break;
+        }
+
+        return new NoteBatchResult(created, requests.size() - created, Arrays.asList(items));
+    }
+
+    private List<NoteDto> createAll(List<NoteDto> notesToSave) {
+        List<NoteDto> createdNotes = noteStore.createAll(notesToSave);
+        for (NoteDto createdNote : createdNotes) {
+            noteNameIndex.add(createdNote.id(), createdNote.name());
+            eventPublisher.publishEvent(NoteChangedEvent.created(createdNote));
+        }
+        return createdNotes;
+    }
+
+    /**
+     * Looks up the names of the given batch items, NAME_LOOKUP_SIZE names at a time, and reports the items whose
+     * name is taken as failed.
+     * @return the indexes of the items whose name is still free.
+     */
+    private List<Integer> withoutTakenNames(List<NoteDto> requests, List<Integer> indexes, NoteBatchItem[] items) {
+        List<String> names = indexes.stream().map(index -> requests.get(index).name()).filter(Objects::nonNull).toList();
+        Set<String> takenNames = new HashSet<>();
+        for (int from = 0; from < names.size(); from += NAME_LOOKUP_SIZE) {
+            takenNames.addAll(noteStore.findExistingNames(names.subList(from, Math.min(from + NAME_LOOKUP_SIZE, names.size()))));
+        }
+        List<Integer> freeIndexes = new ArrayList<>();
+        for (int index : indexes) {
+            String name = requests.get(index).name();
+            if (takenNames.contains(name)) {
+                items[index] = nameTaken(index, name);
+            } else {
+                freeIndexes.add(index);
+            }
+        }
+        return freeIndexes;
+    }
+
+    private static NoteBatchItem nameTaken(int index, String name) {
+        return new NoteBatchItem(index, null, "Note with such name: " + name + " already exists");
+    }
+
+    /**
+     * Updates the given fields of an existing note in place, with a single statement that also returns the new state.
+     * Null fields keep their current value, so changes without any field return the note as it is. In write-behind mode
+     * description-only changes go to the NoteWriteBuffer instead, while renames are written right away so the unique
+     * name rule is checked before answering. Those writes run in a transaction of their own, started only once the
+     * NoteWriteBuffer has flushed the pending changes of the note, so the flush never holds a second connection.
      * @param newNote the NoteDto containing the updated details.
      * @param id the ID of the note to update.
+     * @param expectedVersion the version the client based its changes on, or null to update unconditionally.
      * @return the NoteDto of the updated note.
      */
-    @Transactional
-    public NoteDto updateNote(NoteDto newNote, Long id) {
-        Note noteToUpdate = notesRepository.findNoteById(id).orElseThrow(() -> new IllegalArgumentException("Cannot find note with such id: " + id));
-
-        Optional.ofNullable(newNote.name()).ifPresent(noteToUpdate::setName);
-        Optional.ofNullable(newNote.description()).ifPresent(noteToUpdate::setDescription);
+    @CachePut(key = "#id")
+    public NoteDto updateNote(NoteDto newNote, Long id, Long expectedVersion) {
+        if (missingNoteCache.isMissing(id)) {
+            throw new NoteNotFoundException(id);
+        }
+        if (newNote.name() == null && newNote.description() == null) {
+            return unchangedNote(id, expectedVersion);
+        }
+        if (newNote.name() == null && noteWriteBuffer.isEnabled()) {
+            NoteDto bufferedNote = noteWriteBuffer.updateDescription(id, newNote.description(), expectedVersion);
+            eventPublisher.publishEvent(NoteChangedEvent.updated(bufferedNote));
+            return bufferedNote;
+        }
+        return noteWriteBuffer.bypass(id, () -> transactionTemplate.execute(status -> {
+            long stamp = missingNoteCache.stamp();
+            NoteDto updatedNote;
+            try {
+                updatedNote = noteStore.update(id, newNote.name(), newNote.description(), expectedVersion)
+                        .orElseThrow(() -> updateFailure(id, expectedVersion, stamp));
+            } catch (DataIntegrityViolationException ex) {
+                throw new NoteConflictException(newNote.name());
+            }
+            if (newNote.name() != null) {
+                noteNameIndex.add(id, newNote.name());
+            }
 
-        return noteMapper.mapToDto(notesRepository.save(noteToUpdate));
+            eventPublisher.publishEvent(NoteChangedEvent.updated(updatedNote));
+            return updatedNote;
+        }));
     }
 
     /**
-     * Deletes a note by its ID.
+     * Deletes a note by its ID, with a single statement in the database store. The note is evicted from the cache by the NoteCacheEvictor.
      * @param id the ID of the note to delete.
      */
     @Transactional
     public void deleteById(Long id) {
-        if (!notesRepository.existsNoteById(id)) {
-            throw new NoSuchElementException("Cannot find note with such id: " + id);
+        if (missingNoteCache.isMissing(id)) {
+            throw new NoteNotFoundException(id);
+        }
+        long stamp = missingNoteCache.stamp();
+        if (!noteStore.delete(id)) {
+            throw notFound(id, stamp);
+        }
+        eventPublisher.publishEvent(NoteChangedEvent.deleted(id));
+    }
+
+    /**
+     * Deletes many notes at once, with one statement per chunk of ids in the database store. Ids that do not belong to any note are
+     * reported instead of failing the request.
+     * @param ids the IDs of the notes to delete.
+     * @return a NoteDeleteResult with the number of deleted notes and the ids that were not found.
+     */
+    @Transactional
+    public NoteDeleteResult deleteByIds(List<Long> ids) {
+        if (ids.size() > MAX_BULK_DELETE) {
+            throw new IllegalArgumentException("Cannot delete more than " + MAX_BULK_DELETE + " notes at once");
+        }
+
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Set<Long> deletedIds = distinctIds.isEmpty() ? Set.of() : new HashSet<>(noteStore.deleteAll(distinctIds));
+        for (Long id : deletedIds) {
+            eventPublisher.publishEvent(NoteChangedEvent.deleted(id));
+        }
+
+        List<Long> notFound = distinctIds.stream().filter(id -> !deletedIds.contains(id)).toList();
+        return new NoteDeleteResult(deletedIds.size(), notFound);
+    }
+
+    /**
+     * Stores the note, turning a clash with the unique name rule of the store into a conflict.
+     */
+    private NoteDto createUniquelyNamed(NoteDto note) {
+        try {
+            return noteStore.create(note);
+        } catch (DataIntegrityViolationException ex) {
+            throw new NoteConflictException(note.name());
+        }
+    }
+
+    /**
+     * Answers an update without changes with the current note, still checking the expected version.
+     */
+    private NoteDto unchangedNote(Long id, Long expectedVersion) {
+        long stamp = missingNoteCache.stamp();
+        NoteDto note = noteWriteBuffer.pending(id).or(() -> noteStore.findById(id)).orElseThrow(() -> notFound(id, stamp));
+        if (expectedVersion != null && !expectedVersion.equals(note.version())) {
+            throw new OptimisticLockingFailureException("Note with id: " + id + " has version " + note.version()
+                    + " instead of " + expectedVersion);
+        }
+        return note;
+    }
+
+    /**
+     * Tells apart a note that does not exist from one that moved past the expected version, which costs a query
+     * only when an update did not apply.
+     */
+    private RuntimeException updateFailure(Long id, Long expectedVersion, long stamp) {
+        Optional<Long> version = expectedVersion == null ? Optional.empty() : noteStore.findVersionById(id);
+        if (version.isPresent()) {
+            return new OptimisticLockingFailureException("Note with id: " + id + " has version " + version.get()
+                    + " instead of " + expectedVersion);
+        }
+        return notFound(id, stamp);
+    }
+
+    /**
+     * Repeats a lookup that found nothing on the primary when it read a replica, which may not have the note yet,
+     * so a note created moments ago is neither missed nor remembered as missing.
+     */
+    private static <T> Optional<T> confirmOnPrimary(Supplier<Optional<T>> lookup) {
+        return ReplicaRoutingDataSource.lastReadFromReplica() ? ReplicaRoutingDataSource.onPrimary(lookup) : Optional.empty();
+    }
+
+    /**
+     * Remembers an id the NoteStore did not find, so the next lookups of it skip the store.
+     */
+    private NoteNotFoundException notFound(Long id, long stamp) {
+        missingNoteCache.recordMiss(id, stamp);
+        return new NoteNotFoundException(id);
+    }
+
+    private static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
         }
-        notesRepository.deleteById(id);
     }
 }
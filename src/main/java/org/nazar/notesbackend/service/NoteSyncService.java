@@ -0,0 +1,174 @@
+package org.nazar.notesbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.nazar.notesbackend.entity.dto.NoteChanges;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.exception.SyncTokenExpiredException;
+import org.nazar.notesbackend.store.NoteStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Delta sync: serves the notes changed and deleted since a sync token, read by a range scan over the update time
+ * index and the tombstones of deleted notes. Tombstones are purged once they are older than the retention, and tokens
+ * older than that are rejected, since deletions since then may be gone.
+ * A token is the position reached in the update time index. Sync runs in chains of pages: the last page of a chain
+ * returns a token starting from the time the chain began minus the overlap, so changes committed by transactions that
+ * took their timestamp before the scan passed it are served again on the next sync. Clients apply notes by id and
+ * version, so seeing a change twice is harmless.
+ */
+@Slf4j
+@Service
+public class NoteSyncService implements SmartLifecycle {
+    public static final String PURGED_COUNTER = "notes.sync.tombstones.purged";
+
+    private final NoteStore noteStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration retention;
+
+    private final Duration overlap;
+
+    private final Duration purgeInterval;
+
+    private final Counter purged;
+
+    private ScheduledExecutorService purger;
+
+    private volatile boolean running;
+
+    public NoteSyncService(NoteStore noteStore, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                           @Value("${notes.sync.retention:7d}") Duration retention,
+                           @Value("${notes.sync.overlap:5s}") Duration overlap,
+                           @Value("${notes.sync.purge-interval:1h}") Duration purgeInterval) {
+        this.noteStore = noteStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.overlap = overlap;
+        this.purgeInterval = purgeInterval;
+        this.purged = Counter.builder(PURGED_COUNTER).register(meterRegistry);
+    }
+
+    /**
+     * Retrieves a page of the notes changed and deleted since the given token.
+     * @param since the token returned by the previous sync, or an empty string for a full sync.
+     * @param limit the maximum number of changed notes to return.
+     * @return a NoteChanges with the changes and the token of the next sync.
+     */
+    @Transactional(readOnly = true)
+    public NoteChanges getChanges(String since, int limit) {
+        if (limit < 1 || limit > NoteService.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + NoteService.MAX_PAGE_SIZE);
+        }
+
+        Instant now = NoteStore.currentTimestamp();
+        SyncPosition position = since.isEmpty() ? SyncPosition.full(now) : SyncPosition.decode(since);
+        if (position.deletedAfter().isBefore(now.minus(retention))) {
+            throw new SyncTokenExpiredException("Sync token is older than " + retention + ", start a full sync");
+        }
+        Instant chainStart = position.chainStart() != null ? position.chainStart() : now;
+
+        List<NoteDto> notes = noteStore.findChangedAfter(position.time(), position.afterId(), limit + 1);
+        boolean hasMore = notes.size() > limit;
+        List<NoteDto> page = hasMore ? notes.subList(0, limit) : notes;
+        Instant until = hasMore ? page.getLast().updatedAt() : now;
+        List<Long> deletedIds = position.deletedAfter().isBefore(until)
+                ? noteStore.findDeletedBetween(position.deletedAfter(), until)
+                : List.of();
+
+        SyncPosition next;
+        if (hasMore) {
+            NoteDto last = page.getLast();
+            Instant deletedAfter = position.deletedAfter().isAfter(until) ? position.deletedAfter() : until;
+            next = new SyncPosition(last.updatedAt(), last.id(), chainStart, deletedAfter);
+        } else {
+            Instant restart = chainStart.minus(overlap);
+            next = new SyncPosition(restart, 0, null, restart);
+        }
+        return new NoteChanges(page, deletedIds, next.encode(), hasMore);
+    }
+
+    /**
+     * Removes the tombstones older than the retention.
+     * @return the number of tombstones removed.
+     */
+    public int purgeTombstones() {
+        Integer count = transactionTemplate.execute(status ->
+                noteStore.purgeTombstones(NoteStore.currentTimestamp().minus(retention)));
+        purged.increment(count);
+        return count;
+    }
+
+    @Override
+    public void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("note-tombstone-purge").daemon().factory());
+        purger.scheduleWithFixedDelay(this::purgeQuietly, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (purger != null) {
+            purger.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void purgeQuietly() {
+        try {
+            purgeTombstones();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to purge note tombstones, retrying on the next purge", ex);
+        }
+    }
+
+    /**
+     * The position a sync continues from.
+     * @param time the update time of the last note served, or the time to continue after.
+     * @param afterId the id of the last note served at that time, 0 when none was.
+     * @param chainStart when the first page of the current chain was served, null before it is.
+     * @param deletedAfter deletions up to this time were already served, or happened before a full sync began.
+     */
+    private record SyncPosition(Instant time, long afterId, Instant chainStart, Instant deletedAfter) {
+        static SyncPosition full(Instant now) {
+            return new SyncPosition(Instant.EPOCH, 0, now, now);
+        }
+
+        String encode() {
+            String token = time.toEpochMilli() + ":" + afterId + ":" + (chainStart == null ? 0 : chainStart.toEpochMilli())
+                    + ":" + deletedAfter.toEpochMilli();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static SyncPosition decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+                long chainStart = Long.parseLong(parts[2]);
+                return new SyncPosition(Instant.ofEpochMilli(Long.parseLong(parts[0])), Long.parseLong(parts[1]),
+                        chainStart == 0 ? null : Instant.ofEpochMilli(chainStart), Instant.ofEpochMilli(Long.parseLong(parts[3])));
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+                throw new IllegalArgumentException("Invalid sync token: " + token);
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package org.nazar.notesbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.nazar.notesbackend.config.NoteCacheConfig;
+import org.nazar.notesbackend.config.VersionedNoteCache;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.event.NoteChangeCounter;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.store.NoteStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind buffer for description updates. Successive updates of a note are coalesced in memory into its latest
+ * state and written to the NoteStore in one transaction per flush, when the flush interval elapses or the number of
+ * buffered notes reaches its limit. Every buffered update still moves the note version, so ETags keep working.
+ * The collection version moves again when a flush writes the descriptions, since pages read from the NoteStore only
+ * show them from then on.
+ * Pending notes are flushed before the application shuts down, after the web server has stopped taking requests.
+ * Updates that bypass the buffer lock their note until they commit, so no description is buffered on top of a state
+ * they are about to replace.
+ */
+@Slf4j
+@Component
+public class NoteWriteBuffer implements SmartLifecycle {
+    public static final String DEPTH_GAUGE = "notes.write.buffer.depth";
+
+    public static final String UPDATES_COUNTER = "notes.write.buffer.updates";
+
+    public static final String WRITES_COUNTER = "notes.write.buffer.writes";
+
+    /**
+     * Stops after the web server, whose lifecycles use higher phases, so no update arrives after the last flush.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final NoteStore noteStore;
+
+    private final CacheManager cacheManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final NoteChangeCounter noteChangeCounter;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final Duration flushInterval;
+
+    private final int maxPending;
+
+    private final Map<Long, NoteDto> pending = new ConcurrentHashMap<>();
+
+    private final Lock flushLock = new ReentrantLock();
+
+    private final Lock[] noteLocks = new Lock[LOCK_STRIPES];
+
+    /**
+     * Number of times bypassing updates started or completed per lock stripe, telling a buffered update that its note
+     * may have changed since it was read.
+     */
+    private final AtomicLongArray bypassCounts = new AtomicLongArray(LOCK_STRIPES);
+
+    private final Counter updates;
+
+    private final Counter writes;
+
+    private ScheduledExecutorService flusher;
+
+    private volatile boolean running;
+
+    public NoteWriteBuffer(NoteStore noteStore, PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                           ApplicationEventPublisher eventPublisher, NoteChangeCounter noteChangeCounter,
+                           MeterRegistry meterRegistry,
+                           @Value("${notes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${notes.write-behind.flush-interval:1s}") Duration flushInterval,
+                           @Value("${notes.write-behind.max-pending:1000}") int maxPending) {
+        this.noteStore = noteStore;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.noteChangeCounter = noteChangeCounter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.maxPending = maxPending;
+        Gauge.builder(DEPTH_GAUGE, pending, Map::size).register(meterRegistry);
+        this.updates = Counter.builder(UPDATES_COUNTER).register(meterRegistry);
+        this.writes = Counter.builder(WRITES_COUNTER).register(meterRegistry);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            noteLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @return whether description updates are buffered instead of written right away.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers a new description for a note. The first update of a note since the last flush reads its current state,
+     * outside of any lock, and starts over when the buffered state or the note changed in the meantime.
+     * @param id the ID of the note to update.
+     * @param description the new description.
+     * @param expectedVersion the version the client based its changes on, or null to update unconditionally.
+     * @return the NoteDto of the note with the buffered changes applied.
+     */
+    public NoteDto updateDescription(Long id, String description, Long expectedVersion) {
+        NoteDto updatedNote = null;
+        while (updatedNote == null) {
+            int stripe = stripe(id);
+            long bypassCount = bypassCounts.get(stripe);
+            NoteDto bufferedNote = pending.get(id);
+            NoteDto note = bufferedNote != null ? bufferedNote : noteStore.findById(id)
+                    .orElseThrow(() -> new NoteNotFoundException(id));
+            if (expectedVersion != null && !expectedVersion.equals(note.version())) {
+                throw new OptimisticLockingFailureException("Note with id: " + id + " has version " + note.version()
+                        + " instead of " + expectedVersion);
+            }
+            NoteDto changedNote = new NoteDto(note.id(), note.name(), description, note.createdAt(), note.version() + 1,
+                    NoteStore.currentTimestamp());
+
+            noteLocks[stripe].lock();
+            try {
+                if (bypassCounts.get(stripe) != bypassCount) {
+                    continue;
+                }
+                boolean buffered = bufferedNote != null
+                        ? pending.replace(id, bufferedNote, changedNote)
+                        : pending.putIfAbsent(id, changedNote) == null;
+                if (buffered) {
+                    updatedNote = changedNote;
+                }
+            } finally {
+                noteLocks[stripe].unlock();
+            }
+        }
+        updates.increment();
+
+        if (pending.size() >= maxPending && running) {
+            flusher.execute(this::flushQuietly);
+        }
+        return updatedNote;
+    }
+
+    /**
+     * @param id the ID of the note.
+     * @return the buffered state of the note, empty when it has no pending changes.
+     */
+    public Optional<NoteDto> pending(Long id) {
+        return Optional.ofNullable(pending.get(id));
+    }
+
+    /**
+     * Writes all pending notes in a single transaction.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            write(List.copyOf(pending.values()));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Runs an update that bypasses the buffer: writes the pending changes of the note first, so the update applies on
+     * top of them, and keeps new descriptions of the note out of the buffer until the update is done. The update has
+     * to start its transaction itself, after the flush, so a caller never holds two connections at once.
+     * @param id the ID of the note.
+     * @param update the update, committing before it returns.
+     * @return the result of the update.
+     */
+    public <T> T bypass(Long id, Supplier<T> update) {
+        if (!enabled) {
+            return update.get();
+        }
+        int stripe = stripe(id);
+        noteLocks[stripe].lock();
+        bypassCounts.incrementAndGet(stripe);
+        try {
+            flush(id);
+            return update.get();
+        } finally {
+            endBypass(stripe);
+        }
+    }
+
+    /**
+     * Drops the pending changes of deleted notes.
+     * @param event the change published by the NoteService.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteChanged(NoteChangedEvent event) {
+        if (event.type() == NoteChangedEvent.Type.DELETED) {
+            pending.remove(event.id());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("note-write-buffer").daemon().factory());
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(flushInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Writes the given notes and removes them from the buffer unless they were updated again in the meantime.
+     * Notes stay in the buffer until their write has committed, so reads never fall back to an older database state.
+     * A note that reached its buffered version by another write gets its description applied on top of that write,
+     * and the cache and listeners learn the resulting state.
+     */
+    private void write(List<NoteDto> notes) {
+        if (notes.isEmpty()) {
+            return;
+        }
+        noteChangeCounter.changed();
+        List<NoteDto> reapplied;
+        try {
+            reapplied = transactionTemplate.execute(status -> {
+                List<NoteDto> reappliedNotes = new ArrayList<>();
+                for (NoteDto note : notes) {
+                    if (!noteStore.writeDescription(note.id(), note.description(), note.version())) {
+                        reapply(note).ifPresent(reappliedNotes::add);
+                    }
+                }
+                return reappliedNotes;
+            });
+        } finally {
+            noteChangeCounter.changed();
+        }
+        writes.increment(notes.size());
+        notes.forEach(note -> pending.remove(note.id(), note));
+
+        Cache notesCache = cacheManager.getCache(NoteCacheConfig.NOTES_CACHE);
+        for (NoteDto note : reapplied) {
+            if (notesCache != null) {
+                new VersionedNoteCache(notesCache).put(note.id(), note);
+            }
+            eventPublisher.publishEvent(NoteChangedEvent.updated(note));
+        }
+    }
+
+    private Optional<NoteDto> reapply(NoteDto note) {
+        Optional<NoteDto> reappliedNote = noteStore.update(note.id(), null, note.description(), null);
+        if (reappliedNote.isPresent()) {
+            log.warn("Note with id: {} moved past buffered version {}, applied the buffered description as version {}",
+                    note.id(), note.version(), reappliedNote.get().version());
+        } else {
+            log.warn("Note with id: {} no longer exists, dropped its buffered description", note.id());
+        }
+        return reappliedNote;
+    }
+
+    private void endBypass(int stripe) {
+        bypassCounts.incrementAndGet(stripe);
+        noteLocks[stripe].unlock();
+    }
+
+    /**
+     * Writes the pending changes of a single note.
+     */
+    private void flush(Long id) {
+        if (!pending.containsKey(id)) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            NoteDto note = pending.get(id);
+            if (note != null) {
+                write(List.of(note));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (LOCK_STRIPES - 1);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush {} buffered notes, retrying on the next flush", pending.size(), ex);
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package org.nazar.notesbackend.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * NoteStore keeping notes in the JVM heap, in a concurrent skip list ordered by id with a name index enforcing unique
+ * names. Reads never lock. Ids come from an atomic counter and a change of a note holds one of a fixed set of
+ * striped locks picked by its id, so changes of different notes rarely wait for each other. The skip list's own
+ * compute methods are not used because they may run their function more than once.
+ * Two more skip lists order the notes by update time and the tombstones of deleted notes by deletion time, for
+ * delta sync. A note moving to a new update time is added at the new time before it is removed from the old one,
+ * so a concurrent scan may meet it twice but never misses it.
+ * Writes apply immediately and are not undone when the surrounding transaction rolls back.
+ * <p>
+ * A durable store, created with open(), also appends every change to a NoteWriteAheadLog while holding the lock of
+ * the note, so the log order matches the order changes were applied in, and returns once the change is committed.
+ * Readers may see a change a few milliseconds before it is durable. snapshot() writes all notes and tombstones to a NoteSnapshot
+ * and drops the log segments it covers; open() loads the latest snapshot and replays the log written after it.
+ */
+public class InMemoryNoteStore implements NoteStore, AutoCloseable {
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentNavigableMap<Long, NoteDto> notes = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<String, Long> idsByName = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListSet<NoteTimeKey> changes = new ConcurrentSkipListSet<>();
+
+    private final ConcurrentSkipListSet<NoteTimeKey> tombstones = new ConcurrentSkipListSet<>();
+
+    private final AtomicLong lastId = new AtomicLong();
+
+    private final Lock[] noteLocks = new Lock[LOCK_STRIPES];
+
+    /**
+     * Directory of the log and snapshots, null for a store that lives only in memory.
+     */
+    private final Path directory;
+
+    private final NoteWriteAheadLog log;
+
+    /**
+     * Changes hold the read lock from applying a note until its record is appended, and snapshot() rotates the log
+     * under the write lock, so every record of the older segments is already visible to the snapshot.
+     */
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+
+    private final Lock snapshotLock = new ReentrantLock();
+
+    /**
+     * Creates a store that lives only in memory.
+     */
+    public InMemoryNoteStore() {
+        this.directory = null;
+        this.log = null;
+        initNoteLocks();
+    }
+
+    private InMemoryNoteStore(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        initNoteLocks();
+        Files.createDirectories(directory);
+        AtomicLong maxId = new AtomicLong();
+        NoteWriteAheadLog.Replay recovery = new NoteWriteAheadLog.Replay() {
+            @Override
+            public void put(NoteDto note) {
+                index(note);
+                maxId.accumulateAndGet(note.id(), Math::max);
+            }
+
+            @Override
+            public void delete(long id, Instant deletedAt) {
+                unindex(id, deletedAt);
+                maxId.accumulateAndGet(id, Math::max);
+            }
+        };
+        Optional<NoteSnapshot.Header> snapshot = NoteSnapshot.loadLatest(directory, recovery);
+        int firstSegment = snapshot.map(NoteSnapshot.Header::segment).orElse(1);
+        maxId.accumulateAndGet(snapshot.map(NoteSnapshot.Header::lastId).orElse(0L), Math::max);
+        int lastSegment = NoteWriteAheadLog.replay(directory, firstSegment, recovery);
+        notes.values().forEach(note -> {
+            if (note.name() != null) {
+                idsByName.put(note.name(), note.id());
+            }
+            maxId.accumulateAndGet(note.id(), Math::max);
+        });
+        lastId.set(maxId.get());
+        this.log = NoteWriteAheadLog.open(directory, lastSegment + 1, fsync);
+    }
+
+    /**
+     * Opens a durable store, recovering the notes kept in the directory by a previous run.
+     * @param directory the directory of the log and snapshots, created when missing.
+     * @param fsync whether changes wait for the disk, or only for the operating system, before they are acknowledged.
+     * @return the recovered store.
+     */
+    public static InMemoryNoteStore open(Path directory, boolean fsync) throws IOException {
+        return new InMemoryNoteStore(directory, fsync);
+    }
+
+    @Override
+    public Optional<NoteDto> findById(Long id) {
+        return Optional.ofNullable(notes.get(id));
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return findById(id).map(NoteDto::version);
+    }
+
+    @Override
+    public List<NoteDto> findAll() {
+        return new ArrayList<>(notes.values());
+    }
+
+    @Override
+    public List<NoteDto> findPage(long afterId, int limit) {
+        return notes.tailMap(afterId, false).values().stream().limit(limit).toList();
+    }
+
+    /**
+     * Descriptions are already on the heap, so this only saves copying them into the response.
+     */
+    @Override
+    public List<NoteSummary> findSummaryPage(long afterId, int limit, boolean withExcerpt) {
+        return notes.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(note -> new NoteSummary(note.id(), note.name(), note.createdAt(),
+                        withExcerpt ? NoteSummary.excerptOf(note.description()) : null))
+                .toList();
+    }
+
+    /**
+     * Skips index entries left behind by a note that has moved on to a later update time, where the scan meets it again.
+     */
+    @Override
+    public List<NoteDto> findChangedAfter(Instant updatedAt, long afterId, int limit) {
+        return changes.tailSet(new NoteTimeKey(updatedAt, afterId), false).stream()
+                .map(key -> {
+                    NoteDto note = notes.get(key.id());
+                    return note != null && key.time().equals(note.updatedAt()) ? note : null;
+                })
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<Long> findDeletedBetween(Instant after, Instant until) {
+        return tombstones.subSet(new NoteTimeKey(after, Long.MAX_VALUE), false, new NoteTimeKey(until, Long.MAX_VALUE), true)
+                .stream().map(NoteTimeKey::id).toList();
+    }
+
+    @Override
+    public List<NoteDto> findAllById(Collection<Long> ids) {
+        return ids.stream().map(notes::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public Stream<NoteDto> streamAll() {
+        return notes.values().stream();
+    }
+
+    @Override
+    public boolean existsByName(String name) {
+        return name != null && idsByName.containsKey(name);
+    }
+
+    @Override
+    public List<String> findExistingNames(Collection<String> names) {
+        return names.stream().filter(this::existsByName).toList();
+    }
+
+    @Override
+    public NoteDto create(NoteDto note) {
+        return change(() -> insert(note));
+    }
+
+    /**
+     * Creates all notes under a single commit of the log. All names are reserved before the first note is written,
+     * so a taken name leaves none of the notes behind.
+     */
+    @Override
+    public List<NoteDto> createAll(List<NoteDto> notesToCreate) {
+        return change(() -> {
+            long[] ids = new long[notesToCreate.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = lastId.incrementAndGet();
+                try {
+                    reserveName(notesToCreate.get(i).name(), ids[i]);
+                } catch (DuplicateKeyException ex) {
+                    for (int reserved = 0; reserved < i; reserved++) {
+                        releaseName(notesToCreate.get(reserved).name(), ids[reserved]);
+                    }
+                    throw ex;
+                }
+            }
+            List<NoteDto> createdNotes = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                createdNotes.add(add(ids[i], notesToCreate.get(i)));
+            }
+            return createdNotes;
+        });
+    }
+
+    @Override
+    public Optional<NoteDto> update(Long id, String name, String description, Long expectedVersion) {
+        return change(() -> withNoteLock(id, () -> {
+            NoteDto note = notes.get(id);
+            if (note == null || expectedVersion != null && !expectedVersion.equals(note.version())) {
+                return Optional.empty();
+            }
+            String newName = name != null ? name : note.name();
+            if (!Objects.equals(newName, note.name())) {
+                reserveName(newName, id);
+                releaseName(note.name(), id);
+            }
+            NoteDto newNote = new NoteDto(id, newName, description != null ? description : note.description(),
+                    note.createdAt(), note.version() + 1, NoteStore.currentTimestamp());
+            put(newNote);
+            return Optional.of(newNote);
+        }));
+    }
+
+    @Override
+    public boolean writeDescription(Long id, String description, Long version) {
+        return change(() -> withNoteLock(id, () -> {
+            NoteDto note = notes.get(id);
+            if (note == null || note.version() >= version) {
+                return false;
+            }
+            put(new NoteDto(id, note.name(), description, note.createdAt(), version, NoteStore.currentTimestamp()));
+            return true;
+        }));
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        return change(() -> remove(id));
+    }
+
+    /**
+     * Deletes all notes under a single commit of the log.
+     */
+    @Override
+    public List<Long> deleteAll(Collection<Long> ids) {
+        return change(() -> ids.stream().filter(this::remove).toList());
+    }
+
+    /**
+     * Purges are not logged: tombstones replayed from the log after a restart are purged again by the next call.
+     */
+    @Override
+    public int purgeTombstones(Instant before) {
+        Collection<NoteTimeKey> expired = tombstones.headSet(new NoteTimeKey(before, Long.MIN_VALUE), false);
+        int count = expired.size();
+        expired.clear();
+        return count;
+    }
+
+    /**
+     * Writes a snapshot of all notes and deletes the log segments and snapshots it replaces.
+     * Changes keep flowing while the snapshot is written. Does nothing for a store that lives only in memory.
+     */
+    public void snapshot() throws IOException {
+        if (log == null) {
+            return;
+        }
+        snapshotLock.lock();
+        try {
+            int segment;
+            long snapshotLastId;
+            rotationLock.writeLock().lock();
+            try {
+                segment = log.rotate();
+                snapshotLastId = lastId.get();
+            } finally {
+                rotationLock.writeLock().unlock();
+            }
+            NoteSnapshot.write(directory, segment, snapshotLastId, notes.values(), tombstones);
+            // The snapshot and its directory entry are on disk by now, so the segments it covers can go
+            log.deleteSegmentsBefore(segment);
+            NoteSnapshot.deleteBefore(directory, segment);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * @return the write-ahead log of a durable store, empty for a store that lives only in memory.
+     */
+    public Optional<NoteWriteAheadLog> writeAheadLog() {
+        return Optional.ofNullable(log);
+    }
+
+    /**
+     * Commits the changes still buffered in the log and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    /**
+     * Applies a change and, for a durable store, waits until the log has committed it.
+     */
+    private <T> T change(Supplier<T> change) {
+        if (log == null) {
+            return change.get();
+        }
+        T result;
+        rotationLock.readLock().lock();
+        try {
+            result = change.get();
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        log.sync();
+        return result;
+    }
+
+    private NoteDto insert(NoteDto note) {
+        long id = lastId.incrementAndGet();
+        reserveName(note.name(), id);
+        return add(id, note);
+    }
+
+    /**
+     * Writes a new note whose name is already reserved.
+     */
+    private NoteDto add(long id, NoteDto note) {
+        return withNoteLock(id, () -> {
+            NoteDto createdNote = new NoteDto(id, note.name(), note.description(), LocalDate.now(), 0L,
+                    NoteStore.currentTimestamp());
+            put(createdNote);
+            return createdNote;
+        });
+    }
+
+    private boolean remove(Long id) {
+        return withNoteLock(id, () -> {
+            if (!notes.containsKey(id)) {
+                return false;
+            }
+            Instant deletedAt = NoteStore.currentTimestamp();
+            NoteDto deletedNote = unindex(id, deletedAt);
+            if (log != null) {
+                log.appendDelete(id, deletedAt);
+            }
+            releaseName(deletedNote.name(), id);
+            return true;
+        });
+    }
+
+    private void put(NoteDto note) {
+        index(note);
+        if (log != null) {
+            log.appendPut(note);
+        }
+    }
+
+    private void index(NoteDto note) {
+        NoteDto previous = notes.put(note.id(), note);
+        if (note.updatedAt() != null) {
+            changes.add(new NoteTimeKey(note.updatedAt(), note.id()));
+        }
+        if (previous != null && previous.updatedAt() != null && !previous.updatedAt().equals(note.updatedAt())) {
+            changes.remove(new NoteTimeKey(previous.updatedAt(), note.id()));
+        }
+    }
+
+    /**
+     * Removes a note and records its tombstone. Recovery also records tombstones of notes it never saw.
+     * @return the removed note, null when recovery deletes a note it never saw.
+     */
+    private NoteDto unindex(long id, Instant deletedAt) {
+        NoteDto deletedNote = notes.remove(id);
+        tombstones.add(new NoteTimeKey(deletedAt, id));
+        if (deletedNote != null && deletedNote.updatedAt() != null) {
+            changes.remove(new NoteTimeKey(deletedNote.updatedAt(), id));
+        }
+        return deletedNote;
+    }
+
+    private <T> T withNoteLock(long id, Supplier<T> change) {
+        Lock lock = noteLocks[Long.hashCode(id) & (LOCK_STRIPES - 1)];
+        lock.lock();
+        try {
+            return change.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void initNoteLocks() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            noteLocks[i] = new ReentrantLock();
+        }
+    }
+
+    private void reserveName(String name, long id) {
+        if (name != null && idsByName.putIfAbsent(name, id) != null) {
+            throw new DuplicateKeyException("Note with such name: " + name + " already exists");
+        }
+    }
+
+    private void releaseName(String name, long id) {
+        if (name != null) {
+            idsByName.remove(name, id);
+        }
+    }
+}
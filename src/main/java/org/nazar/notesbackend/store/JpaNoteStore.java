@@ -0,0 +1,183 @@
+package org.nazar.notesbackend.store;
+
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.nazar.notesbackend.entity.Note;
+import org.nazar.notesbackend.entity.NoteTombstone;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.nazar.notesbackend.mapper.NoteMapper;
+import org.nazar.notesbackend.repository.NoteTombstoneRepository;
+import org.nazar.notesbackend.repository.NotesRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+/**
+ * NoteStore keeping notes in the database through the NotesRepository, and the tombstones of deleted notes
+ * through the NoteTombstoneRepository.
+ */
+@Component
+@ConditionalOnProperty(name = "notes.store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaNoteStore implements NoteStore {
+    /**
+     * Number of notes or tombstones flushed to the database and cleared from the persistence context at once during bulk
+     * creates and deletes.
+     */
+    private static final int BULK_FLUSH_SIZE = 500;
+
+    /**
+     * Number of ids bound into the IN list of a single delete statement during bulk deletes.
+     */
+    private static final int BULK_DELETE_SIZE = 1000;
+
+    private final NotesRepository notesRepository;
+
+    private final NoteTombstoneRepository noteTombstoneRepository;
+
+    private final NoteMapper noteMapper;
+
+    private final EntityManager entityManager;
+
+    public JpaNoteStore(NotesRepository notesRepository, NoteTombstoneRepository noteTombstoneRepository, NoteMapper noteMapper,
+                        EntityManager entityManager) {
+        this.notesRepository = notesRepository;
+        this.noteTombstoneRepository = noteTombstoneRepository;
+        this.noteMapper = noteMapper;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<NoteDto> findById(Long id) {
+        return notesRepository.findDtoById(id);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return notesRepository.findVersionById(id);
+    }
+
+    @Override
+    public List<NoteDto> findAll() {
+        return notesRepository.findAllDtos();
+    }
+
+    @Override
+    public List<NoteDto> findPage(long afterId, int limit) {
+        return notesRepository.findDtosByIdGreaterThan(afterId, Limit.of(limit));
+    }
+
+    @Override
+    public List<NoteSummary> findSummaryPage(long afterId, int limit, boolean withExcerpt) {
+        return withExcerpt
+                ? notesRepository.findSummariesWithExcerptByIdGreaterThan(afterId, Limit.of(limit))
+                : notesRepository.findSummariesByIdGreaterThan(afterId, Limit.of(limit));
+    }
+
+    @Override
+    public List<NoteDto> findChangedAfter(Instant updatedAt, long afterId, int limit) {
+        return notesRepository.findDtosChangedAfter(updatedAt, afterId, Limit.of(limit));
+    }
+
+    @Override
+    public List<Long> findDeletedBetween(Instant after, Instant until) {
+        return noteTombstoneRepository.findNoteIdsDeletedBetween(after, until);
+    }
+
+    @Override
+    public List<NoteDto> findAllById(Collection<Long> ids) {
+        return ids.isEmpty() ? List.of() : notesRepository.findDtosByIdIn(ids);
+    }
+
+    @Override
+    public Stream<NoteDto> streamAll() {
+        return notesRepository.streamAllDtos();
+    }
+
+    @Override
+    public boolean existsByName(String name) {
+        return notesRepository.existsNoteByName(name);
+    }
+
+    @Override
+    public List<String> findExistingNames(Collection<String> names) {
+        return names.isEmpty() ? List.of() : notesRepository.findExistingNames(names);
+    }
+
+    /**
+     * Saves and flushes the note right away, so a clash with the unique name constraint surfaces here.
+     */
+    @Override
+    public NoteDto create(NoteDto note) {
+        return noteMapper.mapToDto(notesRepository.saveAndFlush(noteMapper.mapToEntity(note)));
+    }
+
+    /**
+     * Inserts the notes with JDBC batching, flushing and clearing the persistence context every BULK_FLUSH_SIZE notes.
+     * The flush goes through the repository, so a clash with the unique name constraint surfaces as a
+     * DataIntegrityViolationException like it does on create.
+     */
+    @Override
+    public List<NoteDto> createAll(List<NoteDto> notes) {
+        List<NoteDto> createdNotes = new ArrayList<>(notes.size());
+        for (int from = 0; from < notes.size(); from += BULK_FLUSH_SIZE) {
+            int to = Math.min(from + BULK_FLUSH_SIZE, notes.size());
+            List<Note> savedNotes = notesRepository.saveAll(notes.subList(from, to).stream().map(noteMapper::mapToEntity).toList());
+            notesRepository.flush();
+            savedNotes.stream().map(noteMapper::mapToDto).forEach(createdNotes::add);
+            entityManager.clear();
+        }
+        return createdNotes;
+    }
+
+    @Override
+    public Optional<NoteDto> update(Long id, String name, String description, Long expectedVersion) {
+        return notesRepository.updateInPlace(id, name, description, expectedVersion, NoteStore.currentTimestamp());
+    }
+
+    @Override
+    public boolean writeDescription(Long id, String description, Long version) {
+        return notesRepository.writeBufferedDescription(id, description, version, NoteStore.currentTimestamp()) > 0;
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        if (notesRepository.deleteNoteById(id) == 0) {
+            return false;
+        }
+        entityManager.persist(new NoteTombstone(id, NoteStore.currentTimestamp()));
+        return true;
+    }
+
+    /**
+     * Deletes the notes in chunks of BULK_DELETE_SIZE ids and inserts the tombstones of the deleted ones with JDBC batching.
+     */
+    @Override
+    public List<Long> deleteAll(Collection<Long> ids) {
+        List<Long> idList = List.copyOf(ids);
+        List<Long> deletedIds = new ArrayList<>();
+        for (int from = 0; from < idList.size(); from += BULK_DELETE_SIZE) {
+            int to = Math.min(from + BULK_DELETE_SIZE, idList.size());
+            deletedIds.addAll(notesRepository.deleteNotesByIdIn(idList.subList(from, to)));
+        }
+        Instant deletedAt = NoteStore.currentTimestamp();
+        for (int i = 0; i < deletedIds.size(); i++) {
+            entityManager.persist(new NoteTombstone(deletedIds.get(i), deletedAt));
+            if ((i + 1) % BULK_FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return deletedIds;
+    }
+
+    @Override
+    public int purgeTombstones(Instant before) {
+        return noteTombstoneRepository.deleteByDeletedAtBefore(before);
+    }
+}
@@ -0,0 +1,64 @@
+package org.nazar.notesbackend.store;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+
+/**
+ * Binary form of a note shared by the write-ahead log and the snapshots. Strings are written as a byte length
+ * followed by UTF-8, so descriptions are not limited to the 64 KB of DataOutput.writeUTF.
+ */
+final class NoteCodec {
+    private static final int NULL_LENGTH = -1;
+
+    private static final long NULL_DAY = Long.MIN_VALUE;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private NoteCodec() {
+    }
+
+    static void write(DataOutput out, NoteDto note) throws IOException {
+        out.writeLong(note.id());
+        out.writeLong(note.version() == null ? 0L : note.version());
+        out.writeLong(note.createdAt() == null ? NULL_DAY : note.createdAt().toEpochDay());
+        out.writeLong(note.updatedAt() == null ? NULL_TIME : note.updatedAt().toEpochMilli());
+        writeString(out, note.name());
+        writeString(out, note.description());
+    }
+
+    static NoteDto read(DataInput in) throws IOException {
+        long id = in.readLong();
+        long version = in.readLong();
+        long epochDay = in.readLong();
+        long updatedAt = in.readLong();
+        String name = readString(in);
+        String description = readString(in);
+        return new NoteDto(id, name, description, epochDay == NULL_DAY ? null : LocalDate.ofEpochDay(epochDay), version,
+                updatedAt == NULL_TIME ? null : Instant.ofEpochMilli(updatedAt));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package org.nazar.notesbackend.store;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out note ids from blocks reserved in a shared sequence, so ids are unique across shards and application
+ * nodes while only one id in blockSize costs a round trip. Ids of a block left unused at shutdown are skipped.
+ */
+final class NoteIdAllocator {
+    private final LongSupplier nextBlock;
+
+    private final int blockSize;
+
+    private final Lock lock = new ReentrantLock();
+
+    private long next;
+
+    private long end;
+
+    /**
+     * @param nextBlock supplies the first id of a fresh block, every call a different one.
+     * @param blockSize the number of ids in a block, the increment of the sequence behind nextBlock.
+     */
+    NoteIdAllocator(LongSupplier nextBlock, int blockSize) {
+        this.nextBlock = nextBlock;
+        this.blockSize = blockSize;
+    }
+
+    long next() {
+        lock.lock();
+        try {
+            if (next == end) {
+                next = nextBlock.getAsLong();
+                end = next + blockSize;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.nazar.notesbackend.store;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Sweeps the name claims of a ShardedNoteStore in the background, removing those left behind by releases that failed,
+ * so their names can be used again. Claims younger than the grace period are kept, since the note write they were
+ * made for may still be in progress.
+ */
+@Slf4j
+public class NoteNameSweeper implements SmartLifecycle {
+    private final ShardedNoteStore noteStore;
+
+    private final Duration interval;
+
+    private final Duration grace;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    public NoteNameSweeper(ShardedNoteStore noteStore, Duration interval, Duration grace) {
+        this.noteStore = noteStore;
+        this.interval = interval;
+        this.grace = grace;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("note-name-sweeper").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void sweepQuietly() {
+        try {
+            int removed = noteStore.sweepNames(NoteStore.currentTimestamp().minus(grace));
+            if (removed > 0) {
+                log.info("Removed {} stale note name claims", removed);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to sweep note name claims, retrying on the next sweep", ex);
+        }
+    }
+}
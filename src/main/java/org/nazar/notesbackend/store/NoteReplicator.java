@@ -0,0 +1,179 @@
+package org.nazar.notesbackend.store;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stand-in for database replication, keeping H2 replicas of the JPA store close to the primary for local runs and tests.
+ * On start it copies the schema Hibernate created on the primary, then every interval it copies the notes changed and
+ * the tombstones written since the previous round, going back overlap further for transactions that committed late.
+ * Each replica applies a round in one transaction.
+ * Columns the database computes, such as the description excerpt, are computed again on the replicas.
+ * Unique constraints are left out on the replicas: the primary enforces them, and replaying only the latest state of
+ * the changed notes may pass through states where two notes briefly share a name.
+ * Tombstones purged on the primary stay on the replicas.
+ */
+@Slf4j
+public class NoteReplicator implements SmartLifecycle {
+    private final JdbcTemplate primary;
+
+    private final List<Replica> replicas;
+
+    private final Duration interval;
+
+    private final Duration overlap;
+
+    private ScheduledExecutorService scheduler;
+
+    private Instant replicatedUntil;
+
+    private List<String> noteColumns;
+
+    private List<String> tombstoneColumns;
+
+    private volatile boolean running;
+
+    /**
+     * @param primary the database Hibernate keeps the notes in.
+     * @param replicas the H2 databases to keep in sync, emptied on start.
+     * @param interval the time between two rounds, which is about how far the replicas lag behind.
+     * @param overlap how far before the previous round each round looks for changes.
+     */
+    public NoteReplicator(DataSource primary, List<DataSource> replicas, Duration interval, Duration overlap) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = replicas.stream()
+                .map(replica -> new Replica(new JdbcTemplate(replica), new TransactionTemplate(new DataSourceTransactionManager(replica))))
+                .toList();
+        this.interval = interval;
+        this.overlap = overlap;
+    }
+
+    /**
+     * Copies the changes of the primary since the previous round to every replica, or all notes and tombstones in
+     * the first round.
+     */
+    public synchronized void replicate() {
+        if (noteColumns == null) {
+            noteColumns = writableColumns("NOTE");
+            tombstoneColumns = writableColumns("NOTE_TOMBSTONE");
+        }
+        Instant roundStart = NoteStore.currentTimestamp();
+        Rows notes = replicatedUntil == null
+                ? query(noteColumns, "note", "")
+                : query(noteColumns, "note", " where updated_at >= ? order by updated_at, id", replicatedUntil.minus(overlap));
+        Rows tombstones = replicatedUntil == null
+                ? query(tombstoneColumns, "note_tombstone", "")
+                : query(tombstoneColumns, "note_tombstone", " where deleted_at >= ?", replicatedUntil.minus(overlap));
+        int noteId = tombstones.columnIndex("note_id");
+        List<Object[]> deletedIds = tombstones.values().stream().map(tombstone -> new Object[] {tombstone[noteId]}).toList();
+
+        for (Replica replica : replicas) {
+            replica.transactionTemplate().executeWithoutResult(status -> {
+                if (!notes.values().isEmpty()) {
+                    replica.jdbcTemplate().batchUpdate(notes.merge("note", "id"), notes.values());
+                }
+                if (!deletedIds.isEmpty()) {
+                    replica.jdbcTemplate().batchUpdate("delete from note where id = ?", deletedIds);
+                    replica.jdbcTemplate().batchUpdate(tombstones.merge("note_tombstone", "note_id"), tombstones.values());
+                }
+            });
+        }
+        replicatedUntil = roundStart;
+    }
+
+    @Override
+    public void start() {
+        for (Replica replica : replicas) {
+            copySchema(replica.jdbcTemplate());
+        }
+        replicate();
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("note-replicator").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::replicateQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void copySchema(JdbcTemplate replica) {
+        replica.execute("drop all objects");
+        primary.queryForList("script nodata", String.class).stream()
+                .filter(statement -> !statement.contains(" UNIQUE("))
+                .forEach(replica::execute);
+    }
+
+    /**
+     * @return the columns of the table the database does not compute itself, in table order.
+     */
+    private List<String> writableColumns(String table) {
+        return primary.queryForList("select column_name from information_schema.columns where table_schema = 'PUBLIC'"
+                + " and table_name = ? and is_generated = 'NEVER' order by ordinal_position", String.class, table);
+    }
+
+    /**
+     * Reads the given columns of the rows, turning large objects into Strings and byte arrays that outlive the connection.
+     */
+    private Rows query(List<String> columns, String table, String condition, Object... args) {
+        List<Object[]> values = primary.query("select " + String.join(", ", columns) + " from " + table + condition, (rs, rowNum) -> {
+            Object[] row = new Object[columns.size()];
+            for (int column = 0; column < row.length; column++) {
+                row[column] = JdbcUtils.getResultSetValue(rs, column + 1);
+            }
+            return row;
+        }, args);
+        return new Rows(columns, values);
+    }
+
+    private void replicateQuietly() {
+        try {
+            replicate();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to replicate notes, retrying in {}", interval, ex);
+        }
+    }
+
+    /**
+     * @param columns the column names.
+     * @param values the rows.
+     */
+    private record Rows(List<String> columns, List<Object[]> values) {
+        int columnIndex(String column) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).equalsIgnoreCase(column)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        String merge(String table, String key) {
+            return "merge into " + table + " (" + String.join(", ", columns) + ") key (" + key + ") values ("
+                    + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        }
+    }
+
+    private record Replica(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+    }
+}
@@ -0,0 +1,310 @@
+package org.nazar.notesbackend.store;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One database of the ShardedNoteStore, holding the notes and tombstones whose id hashes to it and the name claims
+ * whose name hashes to it. Statements that change more than one table run in a local transaction of the shard,
+ * started apart from the surrounding one, since a transaction cannot span shards.
+ */
+final class NoteShard {
+    private static final String SCHEMA = "db/note-shard-schema.sql";
+
+    private static final String NOTE_COLUMNS = "id, name, description, created_at, version, updated_at";
+
+    private static final RowMapper<NoteDto> NOTE_ROW = (rs, rowNum) -> new NoteDto(rs.getLong("id"), rs.getString("name"),
+            rs.getString("description"), rs.getObject("created_at", LocalDate.class), rs.getLong("version"),
+            rs.getObject("updated_at", Instant.class));
+
+    private final DataSource dataSource;
+
+    private final JdbcClient jdbcClient;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    NoteShard(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource));
+        this.jdbcClient = JdbcClient.create(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        new ResourceDatabasePopulator(new ClassPathResource(SCHEMA)).execute(dataSource);
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    Optional<NoteDto> findById(Long id) {
+        return jdbcClient.sql("select " + NOTE_COLUMNS + " from note where id = ?").param(id).query(NOTE_ROW).optional();
+    }
+
+    Optional<Long> findVersionById(Long id) {
+        return jdbcClient.sql("select version from note where id = ?").param(id).query(Long.class).optional();
+    }
+
+    List<NoteDto> findAll() {
+        return jdbcClient.sql("select " + NOTE_COLUMNS + " from note order by id").query(NOTE_ROW).list();
+    }
+
+    List<NoteDto> findPage(long afterId, int limit) {
+        return jdbcClient.sql("select " + NOTE_COLUMNS + " from note where id > ? order by id limit ?")
+                .params(afterId, limit)
+                .query(NOTE_ROW)
+                .list();
+    }
+
+    List<NoteSummary> findSummaryPage(long afterId, int limit, boolean withExcerpt) {
+        return jdbcClient.sql("select id, name, created_at" + (withExcerpt ? ", description_excerpt" : "")
+                        + " from note where id > ? order by id limit ?")
+                .params(afterId, limit)
+                .query((rs, rowNum) -> new NoteSummary(rs.getLong("id"), rs.getString("name"),
+                        rs.getObject("created_at", LocalDate.class), withExcerpt ? rs.getString("description_excerpt") : null))
+                .list();
+    }
+
+    List<NoteDto> findChangedAfter(Instant updatedAt, long afterId, int limit) {
+        return jdbcClient.sql("select " + NOTE_COLUMNS + " from note where updated_at >= :updatedAt"
+                        + " and (updated_at > :updatedAt or id > :id) order by updated_at, id limit :limit")
+                .param("updatedAt", updatedAt)
+                .param("id", afterId)
+                .param("limit", limit)
+                .query(NOTE_ROW)
+                .list();
+    }
+
+    List<Long> findDeletedBetween(Instant after, Instant until) {
+        return jdbcClient.sql("select note_id from note_tombstone where deleted_at > ? and deleted_at <= ?")
+                .params(after, until)
+                .query(Long.class)
+                .list();
+    }
+
+    List<NoteDto> findAllById(Collection<Long> ids) {
+        return jdbcClient.sql("select " + NOTE_COLUMNS + " from note where id in (:ids)").param("ids", ids).query(NOTE_ROW).list();
+    }
+
+    Stream<NoteDto> streamAll() {
+        return jdbcClient.sql("select " + NOTE_COLUMNS + " from note order by id").query(NOTE_ROW).stream();
+    }
+
+    void insert(List<NoteDto> notes) {
+        SqlParameterSource[] rows = notes.stream()
+                .map(note -> new MapSqlParameterSource()
+                        .addValue("id", note.id())
+                        .addValue("name", note.name())
+                        .addValue("description", note.description())
+                        .addValue("createdAt", note.createdAt())
+                        .addValue("version", note.version())
+                        .addValue("updatedAt", note.updatedAt()))
+                .toArray(SqlParameterSource[]::new);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate("insert into note (" + NOTE_COLUMNS + ")"
+                + " values (:id, :name, :description, :createdAt, :version, :updatedAt)", rows));
+    }
+
+    /**
+     * Updates the given fields in place, reading the previous row back from H2's OLD TABLE data change delta table,
+     * so the update and its outcome take one round trip.
+     * @return the updated note and its previous name, empty when no note has the id and expected version.
+     */
+    Optional<Updated> update(Long id, String name, String description, Long expectedVersion, Instant updatedAt) {
+        StringBuilder sql = new StringBuilder("select " + NOTE_COLUMNS + " from old table (")
+                .append("update note set version = version + 1, updated_at = :updatedAt");
+        MapSqlParameterSource params = new MapSqlParameterSource("id", id).addValue("updatedAt", updatedAt);
+        if (name != null) {
+            sql.append(", name = :name");
+            params.addValue("name", name);
+        }
+        if (description != null) {
+            sql.append(", description = :description");
+            params.addValue("description", description);
+        }
+        sql.append(" where id = :id");
+        if (expectedVersion != null) {
+            sql.append(" and version = :version");
+            params.addValue("version", expectedVersion);
+        }
+        sql.append(')');
+
+        return jdbcClient.sql(sql.toString()).paramSource(params).query(NOTE_ROW).optional()
+                .map(previous -> new Updated(new NoteDto(id, name != null ? name : previous.name(),
+                        description != null ? description : previous.description(), previous.createdAt(),
+                        previous.version() + 1, updatedAt), previous.name()));
+    }
+
+    boolean writeDescription(Long id, String description, Long version, Instant updatedAt) {
+        return jdbcClient.sql("update note set description = ?, version = ?, updated_at = ? where id = ? and version < ?")
+                .params(description, version, updatedAt, id, version)
+                .update() > 0;
+    }
+
+    /**
+     * Deletes the notes and leaves their tombstones in one local transaction.
+     * @return the ids and names of the notes that existed.
+     */
+    List<Deleted> delete(Collection<Long> ids, Instant deletedAt) {
+        return transactionTemplate.execute(status -> {
+            List<Deleted> deleted = jdbcClient.sql("select id, name from old table (delete from note where id in (:ids))")
+                    .param("ids", ids)
+                    .query((rs, rowNum) -> new Deleted(rs.getLong("id"), rs.getString("name")))
+                    .list();
+            SqlParameterSource[] tombstones = deleted.stream()
+                    .map(note -> new MapSqlParameterSource("noteId", note.id()).addValue("deletedAt", deletedAt))
+                    .toArray(SqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate("insert into note_tombstone (note_id, deleted_at) values (:noteId, :deletedAt)", tombstones);
+            return deleted;
+        });
+    }
+
+    int purgeTombstones(Instant before) {
+        return jdbcClient.sql("delete from note_tombstone where deleted_at < ?").param(before).update();
+    }
+
+    boolean nameExists(String name) {
+        return jdbcClient.sql("select count(*) from note_name where name = ?").param(name).query(Integer.class).single() > 0;
+    }
+
+    List<String> findExistingNames(Collection<String> names) {
+        return jdbcClient.sql("select name from note_name where name in (:names)").param("names", names).query(String.class).list();
+    }
+
+    /**
+     * Claims a name for a note. A claim the note already held is renewed, so the name sweep does not take it away
+     * while the note is being renamed back to it.
+     * @return true when the name was claimed now, false when the note already held it.
+     * @throws DuplicateKeyException when another note holds the name.
+     */
+    boolean claimName(String name, Long noteId) {
+        try {
+            jdbcClient.sql("insert into note_name (name, note_id) values (?, ?)").params(name, noteId).update();
+            return true;
+        } catch (DuplicateKeyException ex) {
+            int renewed = jdbcClient.sql("update note_name set claimed_at = current_timestamp(3) where name = ? and note_id = ?")
+                    .params(name, noteId)
+                    .update();
+            if (renewed > 0) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Claims all names at once, or none of them when one is taken.
+     * @param claims the note ids by name.
+     * @throws DuplicateKeyException when any of the names is held by a note.
+     */
+    void claimNames(Map<String, Long> claims) {
+        SqlParameterSource[] rows = claims.entrySet().stream()
+                .map(claim -> new MapSqlParameterSource("name", claim.getKey()).addValue("noteId", claim.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate("insert into note_name (name, note_id) values (:name, :noteId)", rows));
+    }
+
+    /**
+     * Releases names, each only while the given note still holds it.
+     * @param claims the note ids by name.
+     */
+    void releaseNames(Map<String, Long> claims) {
+        SqlParameterSource[] rows = claims.entrySet().stream()
+                .map(claim -> new MapSqlParameterSource("name", claim.getKey()).addValue("noteId", claim.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("delete from note_name where name = :name and note_id = :noteId", rows);
+    }
+
+    /**
+     * Reads a page of the name claims made before the given time, ordered by name.
+     * @param afterName the last name of the previous page, null for the first page.
+     */
+    List<Claim> findClaims(String afterName, Instant claimedBefore, int limit) {
+        return jdbcClient.sql("select name, note_id from note_name where claimed_at < :claimedBefore"
+                        + (afterName != null ? " and name > :afterName" : "") + " order by name limit :limit")
+                .param("claimedBefore", claimedBefore)
+                .param("afterName", afterName)
+                .param("limit", limit)
+                .query((rs, rowNum) -> new Claim(rs.getString("name"), rs.getLong("note_id")))
+                .list();
+    }
+
+    /**
+     * @return the names of the notes with the given ids that exist, by id.
+     */
+    Map<Long, String> findNames(Collection<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        jdbcClient.sql("select id, name from note where id in (:ids)")
+                .param("ids", ids)
+                .query(rs -> {
+                    names.put(rs.getLong("id"), rs.getString("name"));
+                });
+        return names;
+    }
+
+    /**
+     * Releases claims the name sweep found stale, each only while it is still older than claimedBefore, so a claim
+     * renewed in the meantime stays.
+     * @return the number of claims released.
+     */
+    int releaseStaleClaims(List<Claim> claims, Instant claimedBefore) {
+        SqlParameterSource[] rows = claims.stream()
+                .map(claim -> new MapSqlParameterSource("name", claim.name())
+                        .addValue("noteId", claim.noteId())
+                        .addValue("claimedBefore", claimedBefore))
+                .toArray(SqlParameterSource[]::new);
+        return Arrays.stream(jdbcTemplate.batchUpdate("delete from note_name where name = :name and note_id = :noteId"
+                + " and claimed_at < :claimedBefore", rows)).sum();
+    }
+
+    /**
+     * @return the first id of a block of ids no other caller gets, from the sequence of this shard.
+     */
+    long nextIdBlock() {
+        return jdbcClient.sql("select next value for note_id_seq").query(Long.class).single();
+    }
+
+    /**
+     * @param note the note after the update.
+     * @param previousName the name of the note before the update.
+     */
+    record Updated(NoteDto note, String previousName) {
+    }
+
+    /**
+     * @param id the id of the deleted note.
+     * @param name the name the note had.
+     */
+    record Deleted(long id, String name) {
+    }
+
+    /**
+     * @param name the claimed name.
+     * @param noteId the id of the note that claimed it.
+     */
+    record Claim(String name, long noteId) {
+    }
+}
@@ -0,0 +1,172 @@
+package org.nazar.notesbackend.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+
+/**
+ * Compact image of all notes and tombstones, written next to the log segments it replaces. A snapshot named after segment N holds
+ * every change of the segments before N, and possibly some of N and later ones, which replaying them applies again.
+ * It is written to a temporary file and moved into place once complete, so a crash never leaves a partial snapshot.
+ * The directory is synced after the move, so the snapshot survives a power loss before the segments it covers are deleted.
+ */
+final class NoteSnapshot {
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private static final int MAGIC = 0x4E4F5432;
+
+    private static final byte NOTE = 1;
+
+    private static final byte TOMBSTONE = 2;
+
+    private static final byte END = 0;
+
+    private NoteSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot and makes it the latest one.
+     * @param directory the directory holding the log and snapshots.
+     * @param segment the first log segment not fully covered by the snapshot.
+     * @param lastId the highest note id handed out so far.
+     * @param notes the notes to write.
+     * @param tombstones the deletion times and ids of the deleted notes to write.
+     */
+    static void write(Path directory, int segment, long lastId, Iterable<NoteDto> notes, Iterable<NoteTimeKey> tombstones)
+            throws IOException {
+        Path target = directory.resolve(String.format("snapshot-%010d.bin", segment));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(file, crc));
+            out.writeInt(MAGIC);
+            out.writeInt(segment);
+            out.writeLong(lastId);
+            for (NoteDto note : notes) {
+                out.writeByte(NOTE);
+                NoteCodec.write(out, note);
+            }
+            for (NoteTimeKey tombstone : tombstones) {
+                out.writeByte(TOMBSTONE);
+                out.writeLong(tombstone.id());
+                out.writeLong(tombstone.millis());
+            }
+            out.writeByte(END);
+            new DataOutputStream(file).writeLong(crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+    }
+
+    /**
+     * Makes the entries of a directory durable, such as a file just moved into it. Platforms that cannot open a
+     * directory as a channel, like Windows, are skipped.
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (AccessDeniedException | UnsupportedOperationException ex) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Loads the latest snapshot in the directory.
+     * @param directory the directory holding the log and snapshots.
+     * @param receiver the receiver of every note, as a put, and every tombstone, as a delete, in the snapshot.
+     * @return the segment and last id of the loaded snapshot, empty when there is none.
+     */
+    static Optional<Header> loadLatest(Path directory, NoteWriteAheadLog.Replay receiver) throws IOException {
+        List<Path> snapshots = snapshots(directory);
+        if (snapshots.isEmpty()) {
+            return Optional.empty();
+        }
+        Path latest = snapshots.getLast();
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(latest), 1 << 16), crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a note snapshot: " + latest);
+            }
+            Header header = new Header(in.readInt(), in.readLong());
+            for (byte type = in.readByte(); type != END; type = in.readByte()) {
+                if (type == NOTE) {
+                    receiver.put(NoteCodec.read(in));
+                } else if (type == TOMBSTONE) {
+                    receiver.delete(in.readLong(), Instant.ofEpochMilli(in.readLong()));
+                } else {
+                    throw new IOException("Damaged note snapshot: " + latest);
+                }
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Damaged note snapshot: " + latest);
+            }
+            return Optional.of(header);
+        }
+    }
+
+    /**
+     * Deletes the snapshots older than the given segment, along with leftovers of interrupted writes.
+     */
+    static void deleteBefore(Path directory, int segment) throws IOException {
+        List<Path> obsolete = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(".bin.tmp")).forEach(obsolete::add);
+        }
+        snapshots(directory).stream().filter(path -> snapshotSegment(path) < segment).forEach(obsolete::add);
+        for (Path path : obsolete) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static List<Path> snapshots(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> SNAPSHOT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted((a, b) -> Integer.compare(snapshotSegment(a), snapshotSegment(b)))
+                    .toList();
+        }
+    }
+
+    private static int snapshotSegment(Path path) {
+        Matcher matcher = SNAPSHOT_NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a note snapshot: " + path);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    /**
+     * @param segment the first log segment to replay on top of the snapshot.
+     * @param lastId the highest note id handed out when the snapshot was taken.
+     */
+    record Header(int segment, long lastId) {
+    }
+}
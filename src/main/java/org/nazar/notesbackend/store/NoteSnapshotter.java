@@ -0,0 +1,91 @@
+package org.nazar.notesbackend.store;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Takes snapshots of a durable InMemoryNoteStore in the background, so the log replayed on startup stays short.
+ * A snapshot is taken once the current log segment holds maxRecords records, or once the interval has elapsed
+ * since the last snapshot and the segment holds any record at all.
+ */
+@Slf4j
+public class NoteSnapshotter implements SmartLifecycle {
+    /**
+     * Stops after the NoteWriteBuffer has flushed, so its last writes go through a running store.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+
+    private static final Duration CHECK_INTERVAL = Duration.ofSeconds(1);
+
+    private final InMemoryNoteStore noteStore;
+
+    private final NoteWriteAheadLog writeAheadLog;
+
+    private final Duration interval;
+
+    private final long maxRecords;
+
+    private ScheduledExecutorService scheduler;
+
+    private long lastSnapshotNanos;
+
+    private volatile boolean running;
+
+    public NoteSnapshotter(InMemoryNoteStore noteStore, Duration interval, long maxRecords) {
+        this.noteStore = noteStore;
+        this.writeAheadLog = noteStore.writeAheadLog()
+                .orElseThrow(() -> new IllegalArgumentException("Only a durable note store can be snapshotted"));
+        this.interval = interval;
+        this.maxRecords = maxRecords;
+    }
+
+    @Override
+    public void start() {
+        lastSnapshotNanos = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("note-snapshotter").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::snapshotIfDue, CHECK_INTERVAL.toMillis(), CHECK_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void snapshotIfDue() {
+        long records = writeAheadLog.segmentRecords();
+        boolean intervalElapsed = System.nanoTime() - lastSnapshotNanos >= interval.toNanos();
+        if (records >= maxRecords || intervalElapsed && records > 0) {
+            try {
+                long start = System.nanoTime();
+                noteStore.snapshot();
+                lastSnapshotNanos = System.nanoTime();
+                log.info("Wrote a snapshot of the note store replacing {} log records in {} ms", records,
+                        TimeUnit.NANOSECONDS.toMillis(lastSnapshotNanos - start));
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Failed to write a snapshot of the note store, retrying later", ex);
+            }
+        }
+    }
+}
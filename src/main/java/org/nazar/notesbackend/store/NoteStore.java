@@ -0,0 +1,150 @@
+package org.nazar.notesbackend.store;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+
+/**
+ * Storage engine for notes, selected with the notes.store.type property: "jpa" (default) keeps notes in the database
+ * through JPA, "memory" keeps them in the JVM heap.
+ * Every engine enforces unique note names, throwing a DataIntegrityViolationException on a clash, starts versions
+ * at 0 and increments them on every update. Every change stamps the note with its update time and every delete
+ * leaves a tombstone with the deletion time, both at millisecond precision, so delta sync can find what changed.
+ */
+public interface NoteStore {
+    /**
+     * @return the current time at the millisecond precision update and deletion times are kept at.
+     */
+    static Instant currentTimestamp() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * @param id the ID of the note.
+     * @return the note, empty when it does not exist.
+     */
+    Optional<NoteDto> findById(Long id);
+
+    /**
+     * @param id the ID of the note.
+     * @return the version of the note, empty when it does not exist.
+     */
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * @return all notes ordered by id.
+     */
+    List<NoteDto> findAll();
+
+    /**
+     * @param afterId the id of the last note of the previous page, 0 for the first page.
+     * @param limit the maximum number of notes to return.
+     * @return the notes with an id greater than afterId, ordered by id.
+     */
+    List<NoteDto> findPage(long afterId, int limit);
+
+    /**
+     * Reads a page of notes like findPage without their descriptions, which may be large.
+     * @param afterId the id of the last note of the previous page, 0 for the first page.
+     * @param limit the maximum number of notes to return.
+     * @param withExcerpt whether to include the first NoteSummary.EXCERPT_LENGTH characters of the descriptions.
+     * @return the summaries of the notes with an id greater than afterId, ordered by id.
+     */
+    List<NoteSummary> findSummaryPage(long afterId, int limit, boolean withExcerpt);
+
+    /**
+     * @param updatedAt the update time of the last note of the previous page.
+     * @param afterId the id of the last note of the previous page, 0 to start right after the given time.
+     * @param limit the maximum number of notes to return.
+     * @return the notes changed after the given position, ordered by update time and id.
+     */
+    List<NoteDto> findChangedAfter(Instant updatedAt, long afterId, int limit);
+
+    /**
+     * @param after the start of the range, exclusive.
+     * @param until the end of the range, inclusive.
+     * @return the IDs of the notes deleted in the range, in no particular order.
+     */
+    List<Long> findDeletedBetween(Instant after, Instant until);
+
+    /**
+     * @param ids the IDs of the notes.
+     * @return the notes that exist among the given ids, in no particular order.
+     */
+    List<NoteDto> findAllById(Collection<Long> ids);
+
+    /**
+     * Streams all notes ordered by id without holding them all in memory.
+     * The stream must be closed, and for the database engine consumed inside a transaction.
+     * @return a Stream of all notes.
+     */
+    Stream<NoteDto> streamAll();
+
+    /**
+     * @param name the name to look for.
+     * @return whether a note with this name exists.
+     */
+    boolean existsByName(String name);
+
+    /**
+     * @param names the names to check.
+     * @return the subset of names that already belong to a note.
+     */
+    List<String> findExistingNames(Collection<String> names);
+
+    /**
+     * Stores a new note, assigning its id, creation date and initial version.
+     * @param note the name and description of the note.
+     * @return the stored note.
+     */
+    NoteDto create(NoteDto note);
+
+    /**
+     * Stores many new notes at once.
+     * @param notes the names and descriptions of the notes.
+     * @return the stored notes, in the given order.
+     */
+    List<NoteDto> createAll(List<NoteDto> notes);
+
+    /**
+     * Updates the given fields of a note and increments its version.
+     * @param id the ID of the note to update.
+     * @param name the new name, or null to keep the current one.
+     * @param description the new description, or null to keep the current one.
+     * @param expectedVersion the version the note must have to be updated, or null to update any version.
+     * @return the updated note, empty when no note has the ID and expected version.
+     */
+    Optional<NoteDto> update(Long id, String name, String description, Long expectedVersion);
+
+    /**
+     * Sets the description and version of a note, unless the note has already reached that version.
+     * @param id the ID of the note.
+     * @param description the new description.
+     * @param version the version the note reaches with this description.
+     * @return whether the note was updated.
+     */
+    boolean writeDescription(Long id, String description, Long version);
+
+    /**
+     * @param id the ID of the note to delete.
+     * @return whether the note existed.
+     */
+    boolean delete(Long id);
+
+    /**
+     * @param ids the IDs of the notes to delete.
+     * @return the IDs of the notes that existed and were deleted.
+     */
+    List<Long> deleteAll(Collection<Long> ids);
+
+    /**
+     * @param before the oldest deletion time to keep.
+     * @return the number of removed tombstones.
+     */
+    int purgeTombstones(Instant before);
+}
@@ -0,0 +1,24 @@
+package org.nazar.notesbackend.store;
+
+import java.time.Instant;
+
+/**
+ * Key of a note in the time ordered indexes of the InMemoryNoteStore: the time of a change or deletion at
+ * millisecond precision, then the note id.
+ */
+record NoteTimeKey(long millis, long id) implements Comparable<NoteTimeKey> {
+
+    NoteTimeKey(Instant time, long id) {
+        this(time.toEpochMilli(), id);
+    }
+
+    Instant time() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public int compareTo(NoteTimeKey other) {
+        int byTime = Long.compare(millis, other.millis);
+        return byTime != 0 ? byTime : Long.compare(id, other.id);
+    }
+}
@@ -0,0 +1,424 @@
+package org.nazar.notesbackend.store;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+
+/**
+ * Append-only log of note changes, split into numbered segment files. Every record holds the full state of a
+ * created or updated note, or the id and deletion time of a deleted one, so replaying records in order rebuilds the store.
+ * <p>
+ * Appends only copy the record into a memory buffer. A single committer thread writes everything buffered with one
+ * FileChannel write and one fsync, then wakes up the callers waiting in sync(). Records that arrive while an fsync
+ * is in flight are committed together by the next one, so the number of fsyncs grows with time spent in fsync,
+ * not with the number of writers.
+ * <p>
+ * On disk every record is its payload length, the CRC32 of the payload, then the payload: a type byte followed by
+ * the note, or the id and deletion time. A record cut short by a crash is dropped on recovery.
+ */
+public class NoteWriteAheadLog implements AutoCloseable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d+)\\.log");
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final Path directory;
+
+    private final boolean fsync;
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Condition appended = lock.newCondition();
+
+    private final Condition committed = lock.newCondition();
+
+    private final RecordBuffer recordBytes = new RecordBuffer();
+
+    private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+
+    private final CRC32 crc = new CRC32();
+
+    private final Thread committer;
+
+    private RecordBuffer pending = new RecordBuffer();
+
+    private RecordBuffer spare = new RecordBuffer();
+
+    private FileChannel channel;
+
+    private int segment;
+
+    private long appendedRecords;
+
+    private long committedRecords;
+
+    private long segmentRecords;
+
+    private long syncs;
+
+    private IOException failure;
+
+    private boolean closed;
+
+    private NoteWriteAheadLog(Path directory, int segment, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+        this.committer = Thread.ofPlatform().name("note-log-committer").daemon().start(this::commitLoop);
+    }
+
+    /**
+     * Opens a log appending to a new segment after all existing ones.
+     * @param directory the directory holding the segments.
+     * @param segment the number of the segment to start.
+     * @param fsync whether commits wait for the disk, or only for the operating system.
+     * @return the open log.
+     */
+    static NoteWriteAheadLog open(Path directory, int segment, boolean fsync) throws IOException {
+        return new NoteWriteAheadLog(directory, segment, fsync);
+    }
+
+    /**
+     * Buffers the new state of a note. Call sync() to wait until it is on disk.
+     */
+    void appendPut(NoteDto note) {
+        append(PUT, note, 0L, null);
+    }
+
+    /**
+     * Buffers the deletion of a note. Call sync() to wait until it is on disk.
+     */
+    void appendDelete(long id, Instant deletedAt) {
+        append(DELETE, null, id, deletedAt);
+    }
+
+    /**
+     * Waits until every record appended so far, by any thread, is committed.
+     * @throws UncheckedIOException when the log can no longer be written.
+     */
+    void sync() {
+        lock.lock();
+        try {
+            long target = appendedRecords;
+            while (committedRecords < target) {
+                throwIfFailed();
+                committed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits everything buffered and continues in a new segment. Records appended before the call are all in older
+     * segments, so a snapshot taken once no change is in flight makes those segments redundant.
+     * @return the number of the new segment.
+     */
+    int rotate() throws IOException {
+        lock.lock();
+        try {
+            while (committedRecords < appendedRecords) {
+                throwIfFailed();
+                committed.awaitUninterruptibly();
+            }
+            channel.force(true);
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            segmentRecords = 0;
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments older than the given one, once a snapshot covers them.
+     */
+    void deleteSegmentsBefore(int segment) throws IOException {
+        for (Path path : segments(directory)) {
+            if (segmentNumber(path) < segment) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * @return the number of records appended since the current segment was started.
+     */
+    public long segmentRecords() {
+        lock.lock();
+        try {
+            return segmentRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of records appended since the log was opened.
+     */
+    public long appendedRecords() {
+        lock.lock();
+        try {
+            return appendedRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of group commits since the log was opened.
+     */
+    public long syncs() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits everything buffered, then stops the committer and closes the current segment.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            while (committedRecords < appendedRecords && failure == null) {
+                committed.awaitUninterruptibly();
+            }
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Replays the records of the given segment and all later ones, oldest first. A record cut short at the end of
+     * the last segment is cut off the file; a damaged record anywhere else fails the replay.
+     * @param directory the directory holding the segments.
+     * @param fromSegment the first segment to replay.
+     * @param replay the receiver of the records.
+     * @return the number of the last segment found, or fromSegment - 1 when there is none.
+     */
+    static int replay(Path directory, int fromSegment, Replay replay) throws IOException {
+        List<Path> segments = segments(directory).stream().filter(path -> segmentNumber(path) >= fromSegment).toList();
+        for (int i = 0; i < segments.size(); i++) {
+            replaySegment(segments.get(i), i == segments.size() - 1, replay);
+        }
+        return segments.isEmpty() ? fromSegment - 1 : segmentNumber(segments.getLast());
+    }
+
+    /**
+     * @return the segment files in the directory, ordered by number.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted((a, b) -> Integer.compare(segmentNumber(a), segmentNumber(b)))
+                    .toList();
+        }
+    }
+
+    static int segmentNumber(Path path) {
+        Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a log segment: " + path);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private void append(byte type, NoteDto note, long id, Instant deletedAt) {
+        lock.lock();
+        try {
+            throwIfFailed();
+            if (closed) {
+                throw new IllegalStateException("Note log is closed");
+            }
+            recordBytes.reset();
+            recordOut.writeByte(type);
+            if (type == PUT) {
+                NoteCodec.write(recordOut, note);
+            } else {
+                recordOut.writeLong(id);
+                recordOut.writeLong(deletedAt.toEpochMilli());
+            }
+            crc.reset();
+            crc.update(recordBytes.asByteBuffer());
+            pending.writeInt(recordBytes.size());
+            pending.writeInt((int) crc.getValue());
+            recordBytes.writeTo(pending);
+            appendedRecords++;
+            segmentRecords++;
+            appended.signal();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            RecordBuffer batch;
+            long batchEnd;
+            FileChannel target;
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                batchEnd = appendedRecords;
+                target = channel;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                ByteBuffer buffer = batch.asByteBuffer();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                if (fsync) {
+                    target.force(false);
+                }
+            } catch (IOException ex) {
+                error = ex;
+            }
+            batch.reset();
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                    committed.signalAll();
+                    return;
+                }
+                committedRecords = batchEnd;
+                syncs++;
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void throwIfFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Failed to write the note log", failure);
+        }
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(directory.resolve(String.format("wal-%010d.log", number)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void replaySegment(Path path, boolean last, Replay replay) throws IOException {
+        long fileSize = Files.size(path);
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            CRC32 crc = new CRC32();
+            while (validLength + HEADER_SIZE <= fileSize) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 1 || validLength + HEADER_SIZE + length > fileSize) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(payload, replay);
+                validLength += HEADER_SIZE + length;
+            }
+        }
+        if (validLength < fileSize) {
+            if (!last) {
+                throw new IOException("Damaged record in note log segment " + path + " at offset " + validLength);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    private static void apply(byte[] payload, Replay replay) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        if (type == PUT) {
+            replay.put(NoteCodec.read(in));
+        } else if (type == DELETE) {
+            replay.delete(in.readLong(), Instant.ofEpochMilli(in.readLong()));
+        } else {
+            throw new IOException("Unknown note log record type: " + type);
+        }
+    }
+
+    /**
+     * Byte buffer that hands out its content without copying it.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+    }
+
+    /**
+     * Receiver of replayed log records.
+     */
+    interface Replay {
+        void put(NoteDto note);
+
+        void delete(long id, Instant deletedAt);
+    }
+}
@@ -0,0 +1,214 @@
+package org.nazar.notesbackend.store;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource handing out connections of the replicas to read-only transactions and of the primary to everything else.
+ * It decides when a connection is requested, so it has to sit behind a LazyConnectionDataSourceProxy: the proxy asks
+ * for the connection at the first statement, once the transaction has been marked read-only.
+ * A thread pinned to the primary reads from the primary too, which gives a client that just wrote read-your-writes
+ * consistency while the replicas catch up.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> LAST_READ_FROM_REPLICA = new ThreadLocal<>();
+
+    private final Pool primary;
+
+    private final List<Pool> replicas;
+
+    private final Balancing balancing;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * How a read-only transaction picks one of the replicas.
+     */
+    public enum Balancing {
+        /**
+         * Every replica in turn.
+         */
+        ROUND_ROBIN,
+        /**
+         * The replica with the fewest connections in use and threads waiting for one, every replica in turn on a tie.
+         * Replicas that are not Hikari pools count as idle.
+         */
+        LEAST_LOADED
+    }
+
+    /**
+     * @param primary the database taking the writes.
+     * @param replicas the copies of the primary serving read-only transactions, at least one.
+     * @param balancing how to pick a replica.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Balancing balancing) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.primary = new Pool(poolName(primary, "primary"), primary);
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Pool(poolName(replicas.get(i), "replica-" + i), replicas.get(i)));
+        }
+        this.balancing = balancing;
+    }
+
+    /**
+     * Runs the action with all its connections taken from the primary, read-only transactions included.
+     * @param action the action to run.
+     * @return the result of the action.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean pinned = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PINNED.set(pinned);
+        }
+    }
+
+    /**
+     * Takes all connections of the current thread from the primary until unpin is called.
+     */
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() == Boolean.TRUE;
+    }
+
+    /**
+     * Tells whether the last connection the current thread got came from a replica, so what it read may lag behind
+     * the primary.
+     */
+    public static boolean lastReadFromReplica() {
+        return LAST_READ_FROM_REPLICA.get() == Boolean.TRUE;
+    }
+
+    /**
+     * Forgets where the last connection of the current thread came from, so lastReadFromReplica only tells about the
+     * reads that follow.
+     */
+    public static void forgetLastRead() {
+        LAST_READ_FROM_REPLICA.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route().getConnection(username, password);
+    }
+
+    public DataSource primary() {
+        return primary.dataSource();
+    }
+
+    public List<DataSource> replicas() {
+        return replicas.stream().map(Pool::dataSource).toList();
+    }
+
+    /**
+     * @return the names of the pools, the primary first: the Hikari pool names, or primary and replica-0, replica-1
+     * and so on for other DataSources.
+     */
+    public List<String> poolNames() {
+        List<String> names = new ArrayList<>(replicas.size() + 1);
+        names.add(primary.name());
+        replicas.forEach(replica -> names.add(replica.name()));
+        return names;
+    }
+
+    /**
+     * @param poolName one of the poolNames.
+     * @return the number of connections handed out from the pool so far.
+     */
+    public long connectionsServed(String poolName) {
+        if (primary.name().equals(poolName)) {
+            return primary.connections().sum();
+        }
+        return replicas.stream().filter(replica -> replica.name().equals(poolName))
+                .mapToLong(replica -> replica.connections().sum())
+                .sum();
+    }
+
+    /**
+     * Closes the pools that can be closed, the primary included.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Pool replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary.dataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private DataSource route() {
+        boolean toReplica = TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isPinnedToPrimary();
+        LAST_READ_FROM_REPLICA.set(toReplica);
+        Pool pool = toReplica ? pickReplica() : primary;
+        pool.connections().increment();
+        return pool.dataSource();
+    }
+
+    private Pool pickReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        if (balancing == Balancing.ROUND_ROBIN) {
+            return replicas.get(start);
+        }
+        Pool leastLoaded = replicas.get(start);
+        int lowestLoad = load(leastLoaded);
+        for (int i = 1; i < replicas.size() && lowestLoad > 0; i++) {
+            Pool replica = replicas.get((start + i) % replicas.size());
+            int load = load(replica);
+            if (load < lowestLoad) {
+                leastLoaded = replica;
+                lowestLoad = load;
+            }
+        }
+        return leastLoaded;
+    }
+
+    private static int load(Pool pool) {
+        if (pool.dataSource() instanceof HikariDataSource hikari) {
+            HikariPoolMXBean bean = hikari.getHikariPoolMXBean();
+            return bean == null ? 0 : bean.getActiveConnections() + bean.getThreadsAwaitingConnection();
+        }
+        return 0;
+    }
+
+    private static String poolName(DataSource dataSource, String fallback) {
+        return dataSource instanceof HikariDataSource hikari && hikari.getPoolName() != null ? hikari.getPoolName() : fallback;
+    }
+
+    private record Pool(String name, DataSource dataSource, LongAdder connections) {
+        Pool(String name, DataSource dataSource) {
+            this(name, dataSource, new LongAdder());
+        }
+    }
+}
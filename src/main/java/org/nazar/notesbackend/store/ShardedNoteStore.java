@@ -0,0 +1,472 @@
+package org.nazar.notesbackend.store;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * NoteStore partitioning notes across several databases by a hash of their id. Reads and writes of one note go to
+ * the shard of its id. Reads over all notes ask every shard in parallel on virtual threads and merge the results,
+ * which each shard returns in order already.
+ * <p>
+ * Ids come from a NoteIdAllocator backed by the sequence of the first shard, so they stay unique across shards and
+ * application nodes. Names are claimed on the shard picked by a hash of the name, whose primary key keeps them unique
+ * across shards: a note claims its name before it is written and releases the name once it is renamed or deleted.
+ * A claim that fails leaves the note unwritten; a note write that fails after its claim releases the claim again.
+ * Releases run after the note write is done, so one that fails is only logged: the stale claim blocks its name until
+ * sweepNames removes it.
+ * <p>
+ * There is no transaction spanning shards. A change of one note is atomic on its shard, while a bulk change that
+ * fails on one shard may already have been applied on others, and the tombstones of a bulk delete may carry
+ * slightly different deletion times per shard.
+ */
+@Slf4j
+public class ShardedNoteStore implements NoteStore, AutoCloseable {
+    /**
+     * Number of ids reserved at once, the increment of note_id_seq in the shard schema.
+     */
+    static final int ID_BLOCK_SIZE = 50;
+
+    private static final int NAME_SWEEP_PAGE_SIZE = 500;
+
+    private static final Comparator<NoteDto> BY_ID = Comparator.comparing(NoteDto::id);
+
+    private static final Comparator<NoteSummary> SUMMARY_BY_ID = Comparator.comparing(NoteSummary::id);
+
+    private static final Comparator<NoteDto> BY_CHANGE = Comparator.comparing(NoteDto::updatedAt).thenComparing(NoteDto::id);
+
+    private final List<NoteShard> shards;
+
+    private final NoteIdAllocator idAllocator;
+
+    private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates the shard schema in every database that lacks it. The store closes the data sources that are
+     * AutoCloseable when it is closed.
+     * @param dataSources the databases of the shards, always given in the same order since a note's shard
+     *                    follows from its position.
+     */
+    public ShardedNoteStore(List<DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("A sharded note store needs at least one data source");
+        }
+        this.shards = dataSources.stream().map(NoteShard::new).toList();
+        this.idAllocator = new NoteIdAllocator(shards.getFirst()::nextIdBlock, ID_BLOCK_SIZE);
+    }
+
+    /**
+     * @return the number of shards.
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * @param id the ID of a note.
+     * @return the index of the shard keeping the note.
+     */
+    public int shardOf(long id) {
+        // Spread neighbouring ids, which come in blocks, with the 64-bit golden ratio before taking the modulo
+        return Math.floorMod((int) ((id * 0x9E3779B97F4A7C15L) >>> 32), shards.size());
+    }
+
+    @Override
+    public Optional<NoteDto> findById(Long id) {
+        return shardFor(id).findById(id);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return shardFor(id).findVersionById(id);
+    }
+
+    @Override
+    public List<NoteDto> findAll() {
+        return merge(onAllShards(NoteShard::findAll), BY_ID, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Takes up to limit notes after afterId from every shard and keeps the first limit of them.
+     */
+    @Override
+    public List<NoteDto> findPage(long afterId, int limit) {
+        return merge(onAllShards(shard -> shard.findPage(afterId, limit)), BY_ID, limit);
+    }
+
+    @Override
+    public List<NoteSummary> findSummaryPage(long afterId, int limit, boolean withExcerpt) {
+        return merge(onAllShards(shard -> shard.findSummaryPage(afterId, limit, withExcerpt)), SUMMARY_BY_ID, limit);
+    }
+
+    @Override
+    public List<NoteDto> findChangedAfter(Instant updatedAt, long afterId, int limit) {
+        return merge(onAllShards(shard -> shard.findChangedAfter(updatedAt, afterId, limit)), BY_CHANGE, limit);
+    }
+
+    @Override
+    public List<Long> findDeletedBetween(Instant after, Instant until) {
+        return onAllShards(shard -> shard.findDeletedBetween(after, until)).stream().flatMap(List::stream).toList();
+    }
+
+    @Override
+    public List<NoteDto> findAllById(Collection<Long> ids) {
+        return onShards(byIdShard(ids), NoteShard::findAllById).stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Merges the ordered streams of all shards, holding one note per shard at a time.
+     */
+    @Override
+    public Stream<NoteDto> streamAll() {
+        List<Stream<NoteDto>> streams = shards.stream().map(NoteShard::streamAll).toList();
+        Iterator<NoteDto> merged = new MergingIterator<>(streams.stream().map(Stream::iterator).toList(), BY_ID);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    @Override
+    public boolean existsByName(String name) {
+        return name != null && shardForName(name).nameExists(name);
+    }
+
+    @Override
+    public List<String> findExistingNames(Collection<String> names) {
+        return onShards(byNameShard(names), NoteShard::findExistingNames).stream().flatMap(List::stream).toList();
+    }
+
+    @Override
+    public NoteDto create(NoteDto note) {
+        NoteDto createdNote = newNote(note);
+        if (createdNote.name() != null) {
+            shardForName(createdNote.name()).claimName(createdNote.name(), createdNote.id());
+        }
+        try {
+            shardFor(createdNote.id()).insert(List.of(createdNote));
+        } catch (RuntimeException ex) {
+            releaseNames(List.of(createdNote));
+            throw ex;
+        }
+        return createdNote;
+    }
+
+    /**
+     * Claims the names of all notes, shard by shard in parallel, then inserts the notes with JDBC batching per shard.
+     * When a name is taken the claims made on other shards are released and no note is written.
+     */
+    @Override
+    public List<NoteDto> createAll(List<NoteDto> notes) {
+        List<NoteDto> createdNotes = notes.stream().map(this::newNote).toList();
+        List<NoteDto> named = createdNotes.stream().filter(note -> note.name() != null).toList();
+        if (named.stream().map(NoteDto::name).distinct().count() < named.size()) {
+            throw new DuplicateKeyException("The notes to create share a name");
+        }
+
+        Map<NoteShard, Map<String, Long>> claims = claimsByNameShard(named);
+        Map<NoteShard, Future<?>> claiming = new LinkedHashMap<>();
+        claims.forEach((shard, shardClaims) -> claiming.put(shard, fanOut.submit(() -> shard.claimNames(shardClaims))));
+        RuntimeException failure = null;
+        List<NoteShard> claimedShards = new ArrayList<>();
+        for (Map.Entry<NoteShard, Future<?>> claim : claiming.entrySet()) {
+            try {
+                join(claim.getValue());
+                claimedShards.add(claim.getKey());
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+        }
+        if (failure != null) {
+            releaseNames(claimedShards.stream()
+                    .flatMap(shard -> claims.get(shard).entrySet().stream())
+                    .map(claim -> new NoteDto(claim.getValue(), claim.getKey(), null, null))
+                    .toList());
+            throw failure;
+        }
+
+        try {
+            onShards(byIdShard(createdNotes, NoteDto::id), (shard, shardNotes) -> {
+                shard.insert(shardNotes);
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            releaseNames(named);
+            throw ex;
+        }
+        return createdNotes;
+    }
+
+    /**
+     * Claims a new name before updating the note on its shard, then releases the name it replaced.
+     */
+    @Override
+    public Optional<NoteDto> update(Long id, String name, String description, Long expectedVersion) {
+        boolean claimed = name != null && shardForName(name).claimName(name, id);
+        Optional<NoteShard.Updated> updated;
+        try {
+            updated = shardFor(id).update(id, name, description, expectedVersion, NoteStore.currentTimestamp());
+        } catch (RuntimeException ex) {
+            if (claimed) {
+                releaseNames(List.of(new NoteDto(id, name, null, null)));
+            }
+            throw ex;
+        }
+        if (updated.isEmpty()) {
+            if (claimed) {
+                releaseNames(List.of(new NoteDto(id, name, null, null)));
+            }
+            return Optional.empty();
+        }
+        String previousName = updated.get().previousName();
+        if (name != null && previousName != null && !previousName.equals(name)) {
+            releaseNames(List.of(new NoteDto(id, previousName, null, null)));
+        }
+        return Optional.of(updated.get().note());
+    }
+
+    @Override
+    public boolean writeDescription(Long id, String description, Long version) {
+        return shardFor(id).writeDescription(id, description, version, NoteStore.currentTimestamp());
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        List<NoteShard.Deleted> deleted = shardFor(id).delete(List.of(id), NoteStore.currentTimestamp());
+        releaseDeletedNames(deleted);
+        return !deleted.isEmpty();
+    }
+
+    @Override
+    public List<Long> deleteAll(Collection<Long> ids) {
+        Instant deletedAt = NoteStore.currentTimestamp();
+        List<NoteShard.Deleted> deleted = onShards(byIdShard(ids), (shard, shardIds) -> shard.delete(shardIds, deletedAt))
+                .stream().flatMap(List::stream).toList();
+        releaseDeletedNames(deleted);
+        return deleted.stream().map(NoteShard.Deleted::id).toList();
+    }
+
+    @Override
+    public int purgeTombstones(Instant before) {
+        return onAllShards(shard -> shard.purgeTombstones(before)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Removes the name claims that failed releases left behind: claims made before claimedBefore whose note no longer
+     * exists or has another name. Younger claims may belong to writes still in progress and are kept.
+     * @param claimedBefore only claims made before this time are checked.
+     * @return the number of claims removed.
+     */
+    public int sweepNames(Instant claimedBefore) {
+        return onAllShards(shard -> sweepNames(shard, claimedBefore)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Stops the fan-out threads and closes the data sources of the shards.
+     */
+    @Override
+    public void close() throws Exception {
+        fanOut.close();
+        for (NoteShard shard : shards) {
+            if (shard.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private NoteDto newNote(NoteDto note) {
+        return new NoteDto(idAllocator.next(), note.name(), note.description(), LocalDate.now(), 0L, NoteStore.currentTimestamp());
+    }
+
+    private NoteShard shardFor(Long id) {
+        return shards.get(shardOf(id));
+    }
+
+    private NoteShard shardForName(String name) {
+        return shards.get(Math.floorMod(name.hashCode(), shards.size()));
+    }
+
+    private Map<NoteShard, List<Long>> byIdShard(Collection<Long> ids) {
+        return byIdShard(ids, Function.identity());
+    }
+
+    private <T> Map<NoteShard, List<T>> byIdShard(Collection<T> items, Function<T, Long> id) {
+        Map<NoteShard, List<T>> byShard = new HashMap<>();
+        for (T item : items) {
+            byShard.computeIfAbsent(shardFor(id.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return byShard;
+    }
+
+    private Map<NoteShard, List<String>> byNameShard(Collection<String> names) {
+        Map<NoteShard, List<String>> byShard = new HashMap<>();
+        for (String name : names) {
+            byShard.computeIfAbsent(shardForName(name), shard -> new ArrayList<>()).add(name);
+        }
+        return byShard;
+    }
+
+    private Map<NoteShard, Map<String, Long>> claimsByNameShard(List<NoteDto> notes) {
+        Map<NoteShard, Map<String, Long>> byShard = new LinkedHashMap<>();
+        for (NoteDto note : notes) {
+            byShard.computeIfAbsent(shardForName(note.name()), shard -> new HashMap<>()).put(note.name(), note.id());
+        }
+        return byShard;
+    }
+
+    /**
+     * Releases the names of the notes, logging a failure instead of throwing it over a note write that is done.
+     */
+    private void releaseNames(List<NoteDto> notes) {
+        List<NoteDto> named = notes.stream().filter(note -> note.name() != null).toList();
+        try {
+            onShards(claimsByNameShard(named), (shard, claims) -> {
+                shard.releaseNames(claims);
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Failed to release {} note names, leaving them to the name sweep", named.size(), ex);
+        }
+    }
+
+    private int sweepNames(NoteShard nameShard, Instant claimedBefore) {
+        int removed = 0;
+        String afterName = null;
+        List<NoteShard.Claim> claims;
+        do {
+            claims = nameShard.findClaims(afterName, claimedBefore, NAME_SWEEP_PAGE_SIZE);
+            Map<Long, String> names = new HashMap<>();
+            onShards(byIdShard(claims, NoteShard.Claim::noteId), (shard, shardClaims) ->
+                    shard.findNames(shardClaims.stream().map(NoteShard.Claim::noteId).toList())).forEach(names::putAll);
+            List<NoteShard.Claim> stale = claims.stream()
+                    .filter(claim -> !claim.name().equals(names.get(claim.noteId())))
+                    .toList();
+            if (!stale.isEmpty()) {
+                removed += nameShard.releaseStaleClaims(stale, claimedBefore);
+            }
+            afterName = claims.isEmpty() ? afterName : claims.getLast().name();
+        } while (claims.size() == NAME_SWEEP_PAGE_SIZE);
+        return removed;
+    }
+
+    private void releaseDeletedNames(List<NoteShard.Deleted> deleted) {
+        releaseNames(deleted.stream().map(note -> new NoteDto(note.id(), note.name(), null, null)).toList());
+    }
+
+    private <T> List<T> onAllShards(Function<NoteShard, T> operation) {
+        return scatter(shards.stream().<Supplier<T>>map(shard -> () -> operation.apply(shard)).toList());
+    }
+
+    private <K, T> List<T> onShards(Map<NoteShard, K> work, ShardOperation<K, T> operation) {
+        return scatter(work.entrySet().stream()
+                .<Supplier<T>>map(entry -> () -> operation.apply(entry.getKey(), entry.getValue()))
+                .toList());
+    }
+
+    /**
+     * Runs the tasks in parallel and waits for all of them. A single task runs on the calling thread.
+     * @return the results in task order.
+     */
+    private <T> List<T> scatter(List<Supplier<T>> tasks) {
+        if (tasks.size() == 1) {
+            return Collections.singletonList(tasks.getFirst().get());
+        }
+        List<Future<T>> futures = tasks.stream().map(task -> fanOut.submit(task::get)).toList();
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private static <T> List<T> merge(List<List<T>> sortedLists, Comparator<T> order, int limit) {
+        Iterator<T> merged = new MergingIterator<>(sortedLists.stream().map(List::iterator).toList(), order);
+        List<T> result = new ArrayList<>();
+        while (result.size() < limit && merged.hasNext()) {
+            result.add(merged.next());
+        }
+        return result;
+    }
+
+    /**
+     * Work of one shard in a fan-out.
+     */
+    @FunctionalInterface
+    private interface ShardOperation<K, T> {
+        T apply(NoteShard shard, K work);
+    }
+
+    /**
+     * Merges sorted iterators into one sorted iterator, reading each source only as far as needed.
+     */
+    private static final class MergingIterator<T> implements Iterator<T> {
+        private final PriorityQueue<Head<T>> heads;
+
+        MergingIterator(List<Iterator<T>> sources, Comparator<T> order) {
+            heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> order.compare(a.value, b.value));
+            for (Iterator<T> source : sources) {
+                if (source.hasNext()) {
+                    heads.add(new Head<>(source.next(), source));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            Head<T> head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.source.hasNext()) {
+                heads.add(new Head<>(head.source.next(), head.source));
+            }
+            return head.value;
+        }
+
+        private record Head<T>(T value, Iterator<T> source) {
+        }
+    }
+}
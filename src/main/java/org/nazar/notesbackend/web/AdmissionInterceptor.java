@@ -0,0 +1,66 @@
+package org.nazar.notesbackend.web;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import org.nazar.notesbackend.exception.AdmissionRejectedException;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Admits API requests through the AdmissionLimiter of their class: reads for GET and HEAD, writes for everything else.
+ * A shed request ends with an AdmissionRejectedException, answered with 503 by the GlobalExceptionHandler.
+ * Streamed responses, the export and the change feed, give their slot back once streaming starts, so a long stream
+ * does not hold a slot.
+ */
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+    private static final String ADMISSION_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".admission";
+
+    private final AdmissionLimiter readLimiter;
+
+    private final AdmissionLimiter writeLimiter;
+
+    private final Duration retryAfter;
+
+    public AdmissionInterceptor(AdmissionLimiter readLimiter, AdmissionLimiter writeLimiter, Duration retryAfter) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        AdmissionLimiter limiter = read ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            throw new AdmissionRejectedException("Too many " + (read ? "reads" : "writes") + " in progress, try again later",
+                    retryAfter);
+        }
+        request.setAttribute(ADMISSION_ATTRIBUTE, new Admission(limiter, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private static void release(HttpServletRequest request) {
+        if (request.getAttribute(ADMISSION_ATTRIBUTE) instanceof Admission admission) {
+            request.removeAttribute(ADMISSION_ATTRIBUTE);
+            admission.limiter().release(System.nanoTime() - admission.start());
+        }
+    }
+
+    private record Admission(AdmissionLimiter limiter, long start) {
+    }
+}
@@ -0,0 +1,199 @@
+package org.nazar.notesbackend.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of requests of one class running at the same time. A request over the limit waits in a short
+ * queue until a slot frees up or its queue timeout elapses; a request finding the queue full is rejected right away.
+ * Rejecting early keeps a slow database from tying up every request thread while callers time out anyway.
+ * With the adaptive limit, the limit follows the latency of the admitted requests: it shrinks by the backoff ratio
+ * when a request is slower than the latency threshold and grows by one for a fast request while at least half of the
+ * limit is in use (AIMD), staying between the minimum limit and the configured maximum. Like TCP backing off once per
+ * round trip, the limit shrinks at most once per window of as many releases as the limit, so a burst of slow requests
+ * that were admitted together counts as one congestion signal.
+ */
+public class AdmissionLimiter {
+    public static final String IN_FLIGHT_GAUGE = "notes.admission.in.flight";
+
+    public static final String QUEUED_GAUGE = "notes.admission.queued";
+
+    public static final String LIMIT_GAUGE = "notes.admission.limit";
+
+    public static final String SHED_COUNTER = "notes.admission.shed";
+
+    private final int maxLimit;
+
+    private final int maxQueue;
+
+    private final long queueTimeoutNanos;
+
+    private final Adaptive adaptive;
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    private final Counter queueFull;
+
+    private final Counter queueTimeout;
+
+    private int limit;
+
+    private int inFlight;
+
+    private int queued;
+
+    /**
+     * Releases since the limit last shrank; it shrinks again only once this reaches the limit.
+     */
+    private long releasesSinceBackoff;
+
+    /**
+     * @param requestClass the class of requests limited, used as the class tag of the metrics.
+     * @param maxLimit the maximum number of requests running at the same time.
+     * @param maxQueue the maximum number of requests waiting for a slot.
+     * @param queueTimeout how long a request may wait for a slot.
+     * @param adaptive the settings of the adaptive limit, or null for a fixed limit.
+     */
+    public AdmissionLimiter(String requestClass, int maxLimit, int maxQueue, Duration queueTimeout, Adaptive adaptive,
+                            MeterRegistry meterRegistry) {
+        if (maxLimit < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException("Admission limit must be positive and queue size not negative");
+        }
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.adaptive = adaptive;
+        this.limit = maxLimit;
+        this.releasesSinceBackoff = maxLimit;
+        Gauge.builder(IN_FLIGHT_GAUGE, this, AdmissionLimiter::inFlight).tag("class", requestClass).register(meterRegistry);
+        Gauge.builder(QUEUED_GAUGE, this, AdmissionLimiter::queued).tag("class", requestClass).register(meterRegistry);
+        Gauge.builder(LIMIT_GAUGE, this, AdmissionLimiter::limit).tag("class", requestClass).register(meterRegistry);
+        this.queueFull = shedCounter(meterRegistry, requestClass, "queue_full");
+        this.queueTimeout = shedCounter(meterRegistry, requestClass, "queue_timeout");
+    }
+
+    /**
+     * Takes a slot, waiting in the queue for up to the queue timeout when all slots are taken.
+     * @return whether the request was admitted; if so it must call release once it completes.
+     * @throws InterruptedException when the thread is interrupted while waiting.
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < limit) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= maxQueue) {
+                queueFull.increment();
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (inFlight >= limit) {
+                    if (remaining <= 0) {
+                        queueTimeout.increment();
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the slot of a completed request and feeds its latency to the adaptive limit.
+     * @param latencyNanos how long the request ran after it was admitted.
+     */
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            if (adaptive != null) {
+                adapt(latencyNanos);
+            }
+            inFlight--;
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current limit of requests running at the same time.
+     */
+    public int limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests running.
+     */
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for a slot.
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adapt(long latencyNanos) {
+        releasesSinceBackoff++;
+        if (latencyNanos > adaptive.latencyThreshold().toNanos()) {
+            if (releasesSinceBackoff >= limit) {
+                limit = Math.max(adaptive.minLimit(), (int) (limit * adaptive.backoffRatio()));
+                releasesSinceBackoff = 0;
+            }
+        } else if (inFlight * 2 >= limit && limit < maxLimit) {
+            limit++;
+            released.signal();
+        }
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String requestClass, String reason) {
+        return Counter.builder(SHED_COUNTER)
+                .tag("class", requestClass)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Settings of the adaptive limit.
+     * @param latencyThreshold admitted requests slower than this shrink the limit.
+     * @param backoffRatio the factor the limit is multiplied by for a slow request, at most once per window.
+     * @param minLimit the limit never shrinks below this.
+     */
+    public record Adaptive(Duration latencyThreshold, double backoffRatio, int minLimit) {
+    }
+}
@@ -0,0 +1,29 @@
+-- Schema of every database of the sharded note store. Names are unique through note_name, whose rows live on the
+-- shard picked by a hash of the name, so the note table itself has no unique name constraint.
+-- Only the sequence of the first shard is used; it hands out ids in blocks of 50.
+-- A name claim records when it was made or last renewed, so the name sweep leaves claims of writes in progress alone.
+-- Descriptions are large objects; summary listings read the excerpt column the database keeps next to them instead.
+-- The excerpt stops one character short when the cut would split a surrogate pair (a high surrogate is 55296-56319).
+create table if not exists note (
+    id bigint primary key,
+    name varchar(255),
+    description character large object,
+    created_at date,
+    updated_at timestamp(3) with time zone,
+    version bigint not null,
+    description_excerpt varchar(200) generated always as (left(description,
+        200 - case when ascii(substring(description, 200, 1)) between 55296 and 56319 then 1 else 0 end))
+);
+create index if not exists idx_note_updated_at on note (updated_at, id);
+create table if not exists note_tombstone (
+    note_id bigint primary key,
+    deleted_at timestamp(3) with time zone not null
+);
+create index if not exists idx_note_tombstone_deleted_at on note_tombstone (deleted_at);
+create table if not exists note_name (
+    name varchar(255) primary key,
+    note_id bigint not null,
+    claimed_at timestamp(3) with time zone default current_timestamp(3) not null
+);
+alter table note_name add column if not exists claimed_at timestamp(3) with time zone default current_timestamp(3) not null;
+create sequence if not exists note_id_seq start with 1 increment by 50;
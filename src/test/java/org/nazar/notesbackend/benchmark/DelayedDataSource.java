@@ -0,0 +1,82 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Wraps a DataSource so that every executed statement first sleeps for a fixed time while holding its connection,
+ * simulating a slow database in front of the in-memory H2.
+ */
+final class DelayedDataSource {
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+            "executeBatch", "executeLargeBatch");
+
+    private DelayedDataSource() {
+    }
+
+    /**
+     * @return a BeanPostProcessor wrapping every DataSource bean with the given statement delay.
+     */
+    static BeanPostProcessor postProcessor(Duration delay) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? wrap(dataSource, delay) : bean;
+            }
+        };
+    }
+
+    static DataSource wrap(DataSource dataSource, Duration delay) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? wrapConnection(connection, delay) : result;
+        });
+    }
+
+    private static Connection wrapConnection(Connection connection, Duration delay) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Statement statement ? wrapStatement(statement, delay) : result;
+        });
+    }
+
+    private static Statement wrapStatement(Statement statement, Duration delay) {
+        Class<? extends Statement> statementType = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return proxy(statementType, statement, (target, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName())) {
+                Thread.sleep(delay);
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(DelayedDataSource.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,150 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.store.InMemoryNoteStore;
+import org.nazar.notesbackend.store.NoteWriteAheadLog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the durable in-memory store with millions of notes: bulk load, group commit under concurrent writers,
+ * and restart time when recovering from the log alone and from a snapshot plus log tail.
+ * Run with: mvn test -Pbenchmark -Dtest=DurableNoteStoreBenchmarkTest
+ * Every setting can be overridden with a system property, e.g. -Dbenchmark.durable.notes=5000000.
+ * The report is printed and written to target/benchmark/durable-store.txt.
+ */
+@Tag("benchmark")
+class DurableNoteStoreBenchmarkTest {
+    private static final int NOTES = Integer.getInteger("benchmark.durable.notes", 2_000_000);
+
+    private static final int BATCH_SIZE = Integer.getInteger("benchmark.durable.batchSize", 10_000);
+
+    private static final int WRITERS = Integer.getInteger("benchmark.durable.writers", 64);
+
+    private static final int TAIL_UPDATES = Integer.getInteger("benchmark.durable.tailUpdates", 100_000);
+
+    private static final Duration CONCURRENT_WRITES = Duration.ofSeconds(Long.getLong("benchmark.durable.writeSeconds", 10));
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * Loads, writes and restarts the store, checking that no acknowledged change is lost.
+     * Each phase runs in its own method, so the store of the previous phase can be collected.
+     */
+    @Test
+    void measureDurableStore() throws Exception {
+        String writeReport = load();
+        long logBytes = directorySize();
+        Duration logRestart = restart();
+
+        Duration snapshot = snapshotAndUpdateTail();
+        long snapshotBytes = directorySize();
+        Duration snapshotRestart = restart();
+
+        String report = String.format("""
+                        Durable in-memory store: %d notes, %d writers
+                        %s
+                        restart from log    %8d ms  %d MB of log
+                        snapshot            %8d ms
+                        restart from snap   %8d ms  %d MB of snapshot and log, %d tail updates replayed""",
+                NOTES, WRITERS, writeReport,
+                logRestart.toMillis(), logBytes >> 20,
+                snapshot.toMillis(),
+                snapshotRestart.toMillis(), snapshotBytes >> 20, TAIL_UPDATES);
+        System.out.println(report);
+        Path reportFile = Path.of("target", "benchmark", "durable-store.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+    }
+
+    /**
+     * Bulk loads the notes, then updates random notes from concurrent writers.
+     */
+    private String load() throws Exception {
+        try (InMemoryNoteStore store = InMemoryNoteStore.open(directory, true)) {
+            long start = System.nanoTime();
+            for (int from = 0; from < NOTES; from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, NOTES);
+                store.createAll(IntStream.range(from, to).mapToObj(DurableNoteStoreBenchmarkTest::note).toList());
+            }
+            Duration bulkLoad = Duration.ofNanos(System.nanoTime() - start);
+
+            NoteWriteAheadLog log = store.writeAheadLog().orElseThrow();
+            long recordsBefore = log.appendedRecords();
+            long syncsBefore = log.syncs();
+            AtomicLong writes = new AtomicLong();
+            long end = System.nanoTime() + CONCURRENT_WRITES.toNanos();
+            try (ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < WRITERS; i++) {
+                    writers.submit(() -> {
+                        while (System.nanoTime() < end) {
+                            long id = ThreadLocalRandom.current().nextLong(1, NOTES + 1);
+                            store.update(id, null, "Concurrent update " + writes.incrementAndGet(), null);
+                        }
+                    });
+                }
+            }
+            long records = log.appendedRecords() - recordsBefore;
+            long syncs = log.syncs() - syncsBefore;
+            assertTrue(syncs < records, records + " records in " + syncs + " fsyncs");
+
+            return String.format("""
+                            bulk load           %8d ms  %10.0f notes/s in batches of %d
+                            concurrent updates  %8.0f/s   %d records in %d fsyncs, %.1f records per fsync""",
+                    bulkLoad.toMillis(), NOTES / (bulkLoad.toNanos() / 1e9), BATCH_SIZE,
+                    records / (double) CONCURRENT_WRITES.toSeconds(), records, syncs, records / (double) Math.max(syncs, 1));
+        }
+    }
+
+    /**
+     * Snapshots the recovered store, then writes a tail of updates the next restart has to replay.
+     */
+    private Duration snapshotAndUpdateTail() throws Exception {
+        try (InMemoryNoteStore store = InMemoryNoteStore.open(directory, true)) {
+            long start = System.nanoTime();
+            store.snapshot();
+            Duration took = Duration.ofNanos(System.nanoTime() - start);
+            for (long id = 1; id <= TAIL_UPDATES; id++) {
+                store.update(id, null, "Tail update", null);
+            }
+            return took;
+        }
+    }
+
+    /**
+     * Measures how long opening the store takes, and checks that every note came back.
+     */
+    private Duration restart() throws Exception {
+        System.gc();
+        long start = System.nanoTime();
+        try (InMemoryNoteStore store = InMemoryNoteStore.open(directory, true)) {
+            Duration took = Duration.ofNanos(System.nanoTime() - start);
+            assertEquals(NOTES, store.findAll().size());
+            return took;
+        }
+    }
+
+    private long directorySize() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private static NoteDto note(int i) {
+        return new NoteDto(null, "Note " + i, "Description of durable note number " + i, null);
+    }
+}
@@ -0,0 +1,134 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.NotesBackendApplication;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.event.NoteChangeFeed;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Opens thousands of idle change streams, then measures what they cost and how long a change takes to reach them all.
+ * Run with: mvn test -Pbenchmark -Dtest=NoteChangeFeedBenchmarkTest
+ * Every setting can be overridden with a system property, e.g. -Dbenchmark.subscribers=10000.
+ * The report is printed and written to target/benchmark/change-feed.txt.
+ */
+@Tag("benchmark")
+class NoteChangeFeedBenchmarkTest {
+    private static final int SUBSCRIBERS = Integer.getInteger("benchmark.subscribers", 5000);
+
+    private static final int CHANGES = Integer.getInteger("benchmark.changes", 50);
+
+    /**
+     * Subscribes all clients, then sends changes one at a time and waits until every client has read each one.
+     */
+    @Test
+    void fanOutToIdleSubscribers() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NotesBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark_change_feed",
+                        "server.tomcat.max-connections=" + (SUBSCRIBERS + 100))
+                .run();
+        try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(readers).build()) {
+            NoteService noteService = context.getBean(NoteService.class);
+            NoteChangeFeed noteChangeFeed = context.getBean(NoteChangeFeed.class);
+            URI uri = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+                    + "/api/v1/notes/changes");
+
+            long heapBefore = usedHeap();
+            int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            AtomicReference<CountDownLatch> received = new AtomicReference<>(new CountDownLatch(SUBSCRIBERS));
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                HttpResponse<InputStream> response = httpClient.send(HttpRequest.newBuilder(uri).build(),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                BufferedReader stream = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+                readers.execute(() -> readEvents(stream, received));
+            }
+            assertEquals(SUBSCRIBERS, noteChangeFeed.subscriberCount());
+
+            long heapPerSubscriber = (usedHeap() - heapBefore) / SUBSCRIBERS;
+            int threadsAdded = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+            Histogram fanOut = new Histogram(Duration.ofMinutes(1).toNanos(), 3);
+            for (int i = 0; i < CHANGES; i++) {
+                CountDownLatch latch = new CountDownLatch(SUBSCRIBERS);
+                received.set(latch);
+                long start = System.nanoTime();
+                noteService.createNote(new NoteDto(null, "Fan-out note " + i, "Sent to every subscriber", null));
+                assertTrue(latch.await(1, TimeUnit.MINUTES));
+                fanOut.recordValue(System.nanoTime() - start);
+            }
+
+            String report = String.format("""
+                            %d idle SSE subscribers, %d changes
+                            heap per subscriber (server and client)  %d bytes
+                            platform threads added                    %d
+                            change to all subscribers                 p50 %.1f ms, p99 %.1f ms, max %.1f ms""",
+                    SUBSCRIBERS, CHANGES, heapPerSubscriber, threadsAdded,
+                    millis(fanOut.getValueAtPercentile(50)), millis(fanOut.getValueAtPercentile(99)), millis(fanOut.getMaxValue()));
+            System.out.println(report);
+            Path reportFile = Path.of("target", "benchmark", "change-feed.txt");
+            Files.createDirectories(reportFile.getParent());
+            Files.writeString(reportFile, report);
+
+            // ends every stream, so the readers and the client can finish
+            context.close();
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void readEvents(BufferedReader stream, AtomicReference<CountDownLatch> received) {
+        try {
+            String line;
+            while ((line = stream.readLine()) != null) {
+                if (line.startsWith("event:")) {
+                    received.get().countDown();
+                }
+            }
+        } catch (IOException ex) {
+            // the application stopped at the end of the run
+        }
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,202 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.NotesBackendApplication;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the whole application: boots it on a random port with a seeded H2 database and drives a mix of note
+ * operations over HTTP at a constant arrival rate, with latencies corrected for coordinated omission.
+ * Mixes: read-heavy (mostly reads by id and pages), write-heavy (creates and full updates) and autosave (repeated
+ * description patches of a few hot notes, as an editor saving drafts does).
+ * Run with: mvn test -Pbenchmark -Dtest=NoteLoadBenchmarkTest
+ * Every setting can be overridden with a system property, e.g. -Dbenchmark.rate=2000 -Dbenchmark.mixes=autosave.
+ * Application properties can be passed as well, e.g. -Dnotes.write-behind.enabled=true.
+ * To gate a release, set -Dbenchmark.maxP99Millis and -Dbenchmark.maxShedPercent: the test fails when a mix exceeds them.
+ * Requests failing for any reason other than shedding always fail the test.
+ * The report is printed and written to target/benchmark/load.txt.
+ */
+@Tag("benchmark")
+class NoteLoadBenchmarkTest {
+    private static final int NOTES = Integer.getInteger("benchmark.notes", 10000);
+
+    private static final int HOT_NOTES = Integer.getInteger("benchmark.hotNotes", 20);
+
+    private static final double RATE = Double.parseDouble(System.getProperty("benchmark.rate", "500"));
+
+    private static final List<String> MIXES = Arrays.asList(System.getProperty("benchmark.mixes", "read-heavy,write-heavy,autosave")
+            .split(","));
+
+    private static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("benchmark.warmUpSeconds", 5));
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("benchmark.measurementSeconds", 20));
+
+    private static final double MAX_P99_MILLIS = Double.parseDouble(System.getProperty("benchmark.maxP99Millis", "0"));
+
+    private static final double MAX_SHED_PERCENT = Double.parseDouble(System.getProperty("benchmark.maxShedPercent", "100"));
+
+    private static final long SEED = Long.getLong("benchmark.seed", 42);
+
+    /**
+     * Runs every selected mix against the same application, one after the other.
+     */
+    @Test
+    void runMixes() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NotesBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark_load",
+                        "server.tomcat.max-connections=20000")
+                .run();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build()) {
+            List<NoteDto> notes = seed(context.getBean(NoteService.class));
+            Requests requests = new Requests(((WebServerApplicationContext) context).getWebServer().getPort(), notes);
+            OpenLoopLoad load = new OpenLoopLoad(httpClient);
+
+            StringBuilder report = new StringBuilder(String.format("%d seeded notes, %.0f requests/s, %d s warm-up, %d s measured%n",
+                    NOTES, RATE, WARM_UP.toSeconds(), MEASUREMENT.toSeconds()));
+            List<String> violations = new ArrayList<>();
+            for (String name : MIXES) {
+                Mix mix = Mix.valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+                OpenLoopLoad.Result result = load.run(RATE, WARM_UP, MEASUREMENT, () -> requests.next(mix));
+                report.append(System.lineSeparator()).append(result.format(name.trim()));
+                violations.addAll(check(name.trim(), result));
+            }
+
+            System.out.println(report);
+            Path reportFile = Path.of("target", "benchmark", "load.txt");
+            Files.createDirectories(reportFile.getParent());
+            Files.writeString(reportFile, report);
+
+            assertTrue(violations.isEmpty(), String.join(System.lineSeparator(), violations));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<String> check(String mix, OpenLoopLoad.Result result) {
+        OpenLoopLoad.Stats total = result.total();
+        long requests = total.corrected().getTotalCount();
+        List<String> violations = new ArrayList<>();
+        if (total.errors() > 0) {
+            violations.add(mix + ": " + total.errors() + " requests failed");
+        }
+        double p99 = total.corrected().getValueAtPercentile(99) / 1_000_000.0;
+        if (MAX_P99_MILLIS > 0 && p99 > MAX_P99_MILLIS) {
+            violations.add(String.format("%s: p99 %.1f ms is over %.1f ms", mix, p99, MAX_P99_MILLIS));
+        }
+        double shedPercent = requests == 0 ? 0 : total.shed() * 100.0 / requests;
+        if (shedPercent > MAX_SHED_PERCENT) {
+            violations.add(String.format("%s: %.2f%% of requests shed, over %.2f%%", mix, shedPercent, MAX_SHED_PERCENT));
+        }
+        return violations;
+    }
+
+    private static List<NoteDto> seed(NoteService noteService) {
+        Random random = new Random(SEED);
+        List<NoteDto> seeded = new ArrayList<>(NOTES);
+        for (int from = 0; from < NOTES; from += 1000) {
+            List<NoteDto> notes = IntStream.range(from, Math.min(from + 1000, NOTES))
+                    .mapToObj(i -> new NoteDto(null, "Load note " + i, "Seeded description " + random.nextInt(1_000_000), null))
+                    .toList();
+            noteService.createNotes(notes).items().forEach(item -> seeded.add(item.note()));
+        }
+        return seeded;
+    }
+
+    /**
+     * Operation weights of a mix, in percent.
+     */
+    private enum Mix {
+        READ_HEAVY(70, 20, 2, 3, 5),
+        WRITE_HEAVY(25, 5, 35, 35, 0),
+        AUTOSAVE(15, 5, 0, 0, 80);
+
+        private final int[] thresholds;
+
+        Mix(int getNote, int listNotes, int createNote, int updateNote, int autosave) {
+            thresholds = new int[]{getNote, getNote + listNotes, getNote + listNotes + createNote,
+                    getNote + listNotes + createNote + updateNote, getNote + listNotes + createNote + updateNote + autosave};
+            if (thresholds[4] != 100) {
+                throw new IllegalArgumentException("Weights of " + name() + " do not add up to 100");
+            }
+        }
+    }
+
+    /**
+     * Builds the requests of the mixes. Reads and updates pick seeded notes at random; autosaves go to the hot notes.
+     * Only the scheduler thread calls it, so one seeded Random keeps runs repeatable.
+     */
+    private static final class Requests {
+        private final String baseUri;
+
+        private final List<NoteDto> notes;
+
+        private final Random random = new Random(SEED);
+
+        private final AtomicLong sequence = new AtomicLong();
+
+        Requests(int port, List<NoteDto> notes) {
+            this.baseUri = "http://localhost:" + port + "/api/v1/notes";
+            this.notes = notes;
+        }
+
+        OpenLoopLoad.Request next(Mix mix) {
+            int roll = random.nextInt(100);
+            long n = sequence.incrementAndGet();
+            if (roll < mix.thresholds[0]) {
+                return new OpenLoopLoad.Request("get", HttpRequest.newBuilder(URI.create(baseUri + "/" + randomNote().id())).build());
+            }
+            if (roll < mix.thresholds[1]) {
+                return new OpenLoopLoad.Request("list", HttpRequest.newBuilder(URI.create(baseUri + "?limit=50")).build());
+            }
+            if (roll < mix.thresholds[2]) {
+                return new OpenLoopLoad.Request("create", json(HttpRequest.newBuilder(URI.create(baseUri)),
+                        "POST", "{\"name\":\"Created note " + n + "\",\"description\":\"Created under load\"}"));
+            }
+            if (roll < mix.thresholds[3]) {
+                NoteDto note = randomNote();
+                return new OpenLoopLoad.Request("update", json(HttpRequest.newBuilder(URI.create(baseUri + "/" + note.id())),
+                        "PUT", "{\"name\":\"" + note.name() + "\",\"description\":\"Updated " + n + "\"}"));
+            }
+            NoteDto hot = notes.get(random.nextInt(Math.min(HOT_NOTES, notes.size())));
+            return new OpenLoopLoad.Request("autosave", json(HttpRequest.newBuilder(URI.create(baseUri + "/" + hot.id())),
+                    "PATCH", "{\"description\":\"Draft " + n + "\"}"));
+        }
+
+        private NoteDto randomNote() {
+            return notes.get(random.nextInt(notes.size()));
+        }
+
+        private static HttpRequest json(HttpRequest.Builder builder, String method, String body) {
+            return builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Sends requests at a constant arrival rate, whether or not the earlier ones have completed (open loop), the way
+ * independent users do. A closed loop of clients waiting for each response slows down with the server and hides its
+ * stalls, the coordinated omission problem. Here every request has an intended send time on a fixed schedule and its
+ * latency is measured from that time, so time spent behind a stall counts against the server.
+ * The time from the actual send is recorded as well, to show how much the correction adds.
+ */
+final class OpenLoopLoad {
+    private static final long HIGHEST_LATENCY = Duration.ofMinutes(5).toNanos();
+
+    private final HttpClient httpClient;
+
+    OpenLoopLoad(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Sends requests at the given rate for the warm-up and measurement time, then waits for all of them to complete.
+     * Only requests scheduled after the warm-up are measured.
+     * @param ratePerSecond the number of requests started per second.
+     * @param requests supplies the next request to send.
+     * @return the latencies and outcomes of the measured requests, per operation.
+     */
+    Result run(double ratePerSecond, Duration warmUp, Duration measurement, Supplier<Request> requests) {
+        Map<String, Stats> stats = new ConcurrentHashMap<>();
+        AtomicLong lastCompletion = new AtomicLong();
+        long period = (long) (1_000_000_000L / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmUp.toNanos();
+        long end = measureFrom + measurement.toNanos();
+
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + i * period;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Request request = requests.get();
+                Stats operation = intended >= measureFrom ? stats.computeIfAbsent(request.operation(), key -> new Stats()) : null;
+                senders.execute(() -> {
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = httpClient.send(request.request(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException ex) {
+                        status = -1;
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        status = -1;
+                    }
+                    long done = System.nanoTime();
+                    if (operation != null) {
+                        operation.record(intended, sent, done, status);
+                        lastCompletion.accumulateAndGet(done, Math::max);
+                    }
+                });
+            }
+        }
+        return new Result(new TreeMap<>(stats), Math.max(lastCompletion.get() - measureFrom, measurement.toNanos()));
+    }
+
+    /**
+     * @param operation the name the request is reported under.
+     * @param request the request to send.
+     */
+    record Request(String operation, HttpRequest request) {
+    }
+
+    /**
+     * The measured requests of one run.
+     * @param operations the outcomes per operation, by name.
+     * @param elapsedNanos from the start of the measurement to the completion of its last request.
+     */
+    record Result(Map<String, Stats> operations, long elapsedNanos) {
+
+        Stats total() {
+            Stats total = new Stats();
+            operations.values().forEach(total::add);
+            return total;
+        }
+
+        double throughput(Stats stats) {
+            return stats.corrected.getTotalCount() / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        String format(String title) {
+            StringBuilder report = new StringBuilder(title).append(System.lineSeparator())
+                    .append(String.format("%-10s %9s %8s %8s %8s %9s %9s %8s %6s %6s %15s%n", "operation", "requests",
+                            "rate/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms", "shed", "errors", "p99 uncorr. ms"));
+            operations.forEach((name, stats) -> report.append(formatLine(name, stats)));
+            return report.append(formatLine("total", total())).toString();
+        }
+
+        private String formatLine(String name, Stats stats) {
+            Histogram latencies = stats.corrected;
+            return String.format("%-10s %9d %8.0f %8.1f %8.1f %8.1f %9.1f %8.1f %6d %6d %15.1f%n", name,
+                    latencies.getTotalCount(), throughput(stats), millis(latencies.getValueAtPercentile(50)),
+                    millis(latencies.getValueAtPercentile(90)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()), stats.shed.get(),
+                    stats.errors.get(), millis(stats.uncorrected.getValueAtPercentile(99)));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Latencies and outcomes of the measured requests of one operation. Requests answered with 503 were shed by
+     * admission control; any other status outside 2xx, or no response at all, is an error.
+     */
+    static final class Stats {
+        private final Histogram corrected = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+
+        private final Histogram uncorrected = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+
+        private final AtomicLong shed = new AtomicLong();
+
+        private final AtomicLong errors = new AtomicLong();
+
+        Histogram corrected() {
+            return corrected;
+        }
+
+        long shed() {
+            return shed.get();
+        }
+
+        long errors() {
+            return errors.get();
+        }
+
+        private void record(long intended, long sent, long done, int status) {
+            corrected.recordValue(Math.min(done - intended, HIGHEST_LATENCY));
+            uncorrected.recordValue(Math.min(done - sent, HIGHEST_LATENCY));
+            if (status == 503) {
+                shed.incrementAndGet();
+            } else if (status < 200 || status >= 300) {
+                errors.incrementAndGet();
+            }
+        }
+
+        private void add(Stats other) {
+            corrected.add(other.corrected);
+            uncorrected.add(other.uncorrected);
+            shed.addAndGet(other.shed.get());
+            errors.addAndGet(other.errors.get());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.nazar.notesbackend.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.NotesBackendApplication;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares throughput and tail latency of GET /api/v1/notes/{id} served on Tomcat platform threads and on
+ * virtual threads, in front of a database that takes a fixed time per statement.
+ * Also records every virtual thread pinning event seen in virtual thread mode. Admission control is off, so no request is shed.
+ * Run with: mvn test -Pbenchmark -Dtest=VirtualThreadsBenchmarkTest
+ * Every setting can be overridden with a system property, e.g. -Dbenchmark.clients=1000.
+ * The report is printed and written to target/benchmark/virtual-threads.txt.
+ */
+@Tag("benchmark")
+class VirtualThreadsBenchmarkTest {
+    private static final int NOTES = Integer.getInteger("benchmark.notes", 1000);
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 300);
+
+    private static final int TOMCAT_THREADS = Integer.getInteger("benchmark.tomcatThreads", 20);
+
+    private static final int POOL_SIZE = Integer.getInteger("benchmark.poolSize", 150);
+
+    private static final Duration STATEMENT_DELAY = Duration.ofMillis(Long.getLong("benchmark.statementDelayMillis", 100));
+
+    private static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("benchmark.warmUpSeconds", 5));
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("benchmark.measurementSeconds", 15));
+
+    /**
+     * Runs the same load against both modes and reports them side by side.
+     */
+    @Test
+    void compareThreadModes() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        String report = String.format("""
+                        GET /api/v1/notes/{id}: %d clients, %d ms per statement, Tomcat threads %d, pool size %d, %d s measured
+                        mode      throughput     p50 ms   p99 ms   p999 ms  errors  pinned
+                        %s
+                        %s
+                        %s""",
+                CLIENTS, STATEMENT_DELAY.toMillis(), TOMCAT_THREADS, POOL_SIZE, MEASUREMENT.toSeconds(),
+                platform.format("platform"), virtual.format("virtual"), virtual.pinnedStacks());
+        System.out.println(report);
+        Path reportFile = Path.of("target", "benchmark", "virtual-threads.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+
+        assertEquals(0, platform.errors() + virtual.errors());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NotesBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark_" + (virtualThreads ? "virtual" : "platform"),
+                        "spring.cache.type=none",
+                        "notes.admission.enabled=false",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + TOMCAT_THREADS,
+                        "server.tomcat.max-connections=" + (CLIENTS * 2),
+                        "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "spring.datasource.hikari.minimum-idle=" + POOL_SIZE)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(DelayedDataSource.postProcessor(STATEMENT_DELAY)))
+                .run();
+        try (RecordingStream pinnedEvents = new RecordingStream();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clients).build()) {
+            List<Long> ids = seed(context.getBean(NoteService.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            Map<String, Integer> pinnedStacks = new TreeMap<>();
+            pinnedEvents.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            pinnedEvents.onEvent("jdk.VirtualThreadPinned", event -> {
+                List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+                String top = frames.stream().limit(3)
+                        .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                        .reduce((a, b) -> a + " <- " + b).orElse("unknown");
+                synchronized (pinnedStacks) {
+                    pinnedStacks.merge(top, 1, Integer::sum);
+                }
+            });
+            pinnedEvents.startAsync();
+
+            Histogram latencies = new ConcurrentHistogram(Duration.ofMinutes(1).toNanos(), 3);
+            AtomicLong completed = new AtomicLong();
+            AtomicLong errors = new AtomicLong();
+            long start = System.nanoTime();
+            long measureFrom = start + WARM_UP.toNanos();
+            long end = measureFrom + MEASUREMENT.toNanos();
+
+            List<Runnable> workers = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                workers.add(() -> {
+                    while (System.nanoTime() < end) {
+                        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/notes/" + id)).build();
+                        long sent = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (IOException | InterruptedException ex) {
+                            ok = false;
+                        }
+                        long received = System.nanoTime();
+                        if (sent >= measureFrom && received <= end) {
+                            latencies.recordValue(received - sent);
+                            completed.incrementAndGet();
+                            if (!ok) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+            }
+            workers.stream().map(clients::submit).toList().forEach(future -> {
+                try {
+                    future.get();
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+
+            return new Result(completed.get() / (double) MEASUREMENT.toSeconds(), latencies, errors.get(),
+                    virtualThreads ? pinnedStacks : Map.of());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<Long> seed(NoteService noteService) {
+        List<NoteDto> notes = IntStream.range(0, NOTES)
+                .mapToObj(i -> new NoteDto(null, "Benchmark note " + i, "Description of benchmark note " + i, null))
+                .toList();
+        return noteService.createNotes(notes).items().stream().map(item -> item.note().id()).toList();
+    }
+
+    private record Result(double throughput, Histogram latencies, long errors, Map<String, Integer> pinned) {
+
+        String format(String mode) {
+            return String.format("%-9s %9.0f/s %9.1f %8.1f %9.1f %7d %7d", mode, throughput,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), errors,
+                    pinned.values().stream().mapToInt(Integer::intValue).sum());
+        }
+
+        String pinnedStacks() {
+            if (pinned.isEmpty()) {
+                return "no virtual thread pinning recorded";
+            }
+            StringBuilder stacks = new StringBuilder("virtual thread pinning by top frames:");
+            pinned.forEach((stack, count) -> stacks.append(System.lineSeparator()).append("  ").append(count).append("x ").append(stack));
+            return stacks.toString();
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.nazar.notesbackend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for binary encodings and response compression, running against the embedded web server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class NoteContentNegotiationTest {
+    private static final String CBOR = "application/cbor";
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private NoteService noteService;
+
+    /**
+     * Test to verify that a note is returned as CBOR when the client asks for it.
+     */
+    @Test
+    void testGetById_WhenCborIsAccepted_ThenReturnCbor() throws Exception {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Cbor Note", "Encoded in CBOR", null));
+
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri("/api/v1/notes/" + created.id())).header("Accept", CBOR));
+
+        assertEquals(200, response.statusCode());
+        assertEquals(CBOR, response.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(created, cborMapper.readValue(response.body(), NoteDto.class));
+    }
+
+    /**
+     * Test to verify that every encoding of a note has its own strong ETag, which validates only that encoding.
+     */
+    @Test
+    void testGetById_WhenEncodingsDiffer_ThenSendStrongEtagPerEncoding() throws Exception {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Etag Note", "Tagged per encoding", null));
+        String cborEtag = "\"" + created.version() + "-cbor\"";
+
+        HttpResponse<byte[]> json = send(HttpRequest.newBuilder(uri("/api/v1/notes/" + created.id())));
+        HttpResponse<byte[]> cbor = send(HttpRequest.newBuilder(uri("/api/v1/notes/" + created.id())).header("Accept", CBOR));
+        HttpResponse<byte[]> cborNotModified = send(HttpRequest.newBuilder(uri("/api/v1/notes/" + created.id()))
+                .header("Accept", CBOR).header("If-None-Match", cborEtag));
+        HttpResponse<byte[]> smile = send(HttpRequest.newBuilder(uri("/api/v1/notes/" + created.id()))
+                .header("Accept", SMILE).header("If-None-Match", cborEtag));
+
+        assertEquals("\"" + created.version() + "\"", json.headers().firstValue("ETag").orElseThrow());
+        assertEquals(cborEtag, cbor.headers().firstValue("ETag").orElseThrow());
+        assertEquals(304, cborNotModified.statusCode());
+        assertEquals(200, smile.statusCode());
+        assertEquals("\"" + created.version() + "-smile\"", smile.headers().firstValue("ETag").orElseThrow());
+    }
+
+    /**
+     * Test to verify that a note can be created with a Smile body and answered in Smile.
+     */
+    @Test
+    void testCreateNote_WhenBodyIsSmile_ThenReturnSmile() throws Exception {
+        byte[] body = smileMapper.writeValueAsBytes(new NoteDto(null, "Smile Note", "Encoded in Smile", null));
+
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri("/api/v1/notes"))
+                .header("Content-Type", SMILE).header("Accept", SMILE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body)));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("Smile Note", smileMapper.readValue(response.body(), NoteDto.class).name());
+    }
+
+    /**
+     * Test to verify that a large page is gzipped while a single note stays below the compression threshold.
+     */
+    @Test
+    void testGetAll_WhenResponseIsLarge_ThenCompress() throws Exception {
+        List<NoteDto> notes = IntStream.range(0, 100)
+                .mapToObj(i -> new NoteDto(null, "Compressed Note " + i, "A description long enough to add up " + i, null))
+                .toList();
+        NoteDto first = noteService.createNotes(notes).items().getFirst().note();
+
+        HttpResponse<byte[]> page = send(HttpRequest.newBuilder(uri("/api/v1/notes?limit=100")).header("Accept-Encoding", "gzip"));
+        HttpResponse<byte[]> single = send(HttpRequest.newBuilder(uri("/api/v1/notes/" + first.id())).header("Accept-Encoding", "gzip"));
+
+        assertEquals("gzip", page.headers().firstValue("Content-Encoding").orElseThrow());
+        assertEquals(100, jsonMapper.readValue(gunzip(page.body()), NotePage.class).notes().size());
+        assertTrue(single.headers().firstValue("Content-Encoding").isEmpty());
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -2,40 +2,82 @@ package org.nazar.notesbackend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.advice.GlobalExceptionHandler;
+import org.nazar.notesbackend.entity.dto.NoteBatchItem;
+import org.nazar.notesbackend.entity.dto.NoteBatchResult;
+import org.nazar.notesbackend.entity.dto.NoteChanges;
+import org.nazar.notesbackend.entity.dto.NoteDeleteResult;
 import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.nazar.notesbackend.entity.dto.NoteSummaryPage;
+import org.nazar.notesbackend.entity.dto.NoteSearchHit;
+import org.nazar.notesbackend.entity.dto.NoteSearchResult;
+import org.nazar.notesbackend.event.NoteChangeFeed;
+import org.nazar.notesbackend.exception.NoteConflictException;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.exception.SyncTokenExpiredException;
 import org.nazar.notesbackend.service.NoteService;
+import org.nazar.notesbackend.service.NoteSyncService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * Spring MVC test for the NoteController class.
  */
 @WebMvcTest(NoteController.class)
+@Import(SimpleMeterRegistry.class)
 class NoteControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private NoteService noteService;
 
+    @MockBean
+    private NoteSyncService noteSyncService;
+
+    @MockBean
+    private NoteChangeFeed noteChangeFeed;
+
     /**
      * Helper method to convert an object into JSON string.
      * @param obj The object to be converted to JSON.
@@ -52,36 +94,199 @@ class NoteControllerTest {
     }
 
     /**
-     * Test to verify that the getAllNotes method returns all notes when notes exist.
+     * Test to verify that the getAll method returns a page of notes with the next cursor.
      * @throws Exception when mockMvc perform throws an exception.
      */
     @Test
-    void testGetAllNotes_WhenNotesExist_ThenReturnNotes() throws Exception {
+    void testGetAllNotes_WhenNotesExist_ThenReturnNotePage() throws Exception {
         LocalDate today = LocalDate.now();
-        List<NoteDto> notes = List.of(
-                new NoteDto(1L, "Test Note", "This is a test note", today)
-        );
-        when(noteService.getAllNotes()).thenReturn(notes);
+        NotePage page = new NotePage(List.of(new NoteDto(1L, "Test Note", "This is a test note", today)), "MQ");
+        when(noteService.getNotesPage(null, 50)).thenReturn(page);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[0].name").value("Test Note"))
-                .andExpect(jsonPath("$[0].description").value("This is a test note"))
-                .andExpect(jsonPath("$[0].createdAt").value(today.toString()));
+                .andExpect(jsonPath("$.notes[0].id").value(1L))
+                .andExpect(jsonPath("$.notes[0].name").value("Test Note"))
+                .andExpect(jsonPath("$.notes[0].description").value("This is a test note"))
+                .andExpect(jsonPath("$.notes[0].createdAt").value(today.toString()))
+                .andExpect(jsonPath("$.nextCursor").value("MQ"));
     }
 
     /**
-     * Test to verify that the getAllNotes method returns an empty list when no notes exist.
+     * Test to verify that the getAll method returns an empty page when no notes exist.
      * @throws Exception when mockMvc perform throws an exception.
      */
     @Test
     void testGetAllNotes_WhenNoNotesExist_ThenReturnEmpty() throws Exception {
-        when(noteService.getAllNotes()).thenReturn(Collections.emptyList());
+        when(noteService.getNotesPage(null, 50)).thenReturn(new NotePage(Collections.emptyList(), null));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[]"));
+                .andExpect(content().json("{\"notes\":[],\"nextCursor\":null}"));
+    }
+
+    /**
+     * Test to verify that the summary view returns names and dates without descriptions, with excerpts when asked for.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetSummaries_WhenExcerptRequested_ThenReturnSummariesWithoutDescriptions() throws Exception {
+        LocalDate today = LocalDate.now();
+        when(noteService.getNoteSummariesPage(null, 50, true))
+                .thenReturn(new NoteSummaryPage(List.of(new NoteSummary(1L, "Test Note", today, "This is a")), null));
+        when(noteService.getNoteSummariesPage(null, 50, false))
+                .thenReturn(new NoteSummaryPage(List.of(new NoteSummary(1L, "Test Note", today)), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes").param("view", "summary").param("excerpt", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes[0].name").value("Test Note"))
+                .andExpect(jsonPath("$.notes[0].createdAt").value(today.toString()))
+                .andExpect(jsonPath("$.notes[0].excerpt").value("This is a"))
+                .andExpect(jsonPath("$.notes[0].description").doesNotExist());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes").param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes[0].id").value(1L))
+                .andExpect(jsonPath("$.notes[0].excerpt").doesNotExist());
+        verify(noteService, never()).getNotesPage(any(), anyInt());
+    }
+
+    /**
+     * Test to verify that the getAll method answers 304 without querying notes when the collection did not change.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetAllNotes_WhenCollectionEtagMatches_ThenNotModified() throws Exception {
+        when(noteService.getNotesVersion()).thenReturn("abc-7");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes").header(HttpHeaders.IF_NONE_MATCH, "\"abc-7\""))
+                .andExpect(status().isNotModified());
+        verify(noteService, never()).getNotesPage(any(), anyInt());
+    }
+
+    /**
+     * Test to verify that a page read from a replica is sent without the collection ETag, which it may lag behind.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetAllNotes_WhenReadFromReplica_ThenNoEtag() throws Exception {
+        when(noteService.getNotesVersion()).thenReturn("abc-7");
+        when(noteService.getNotesPage(null, 50)).thenReturn(new NotePage(Collections.emptyList(), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"abc-7\""));
+        when(noteService.lastReadFromReplica()).thenReturn(true);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    /**
+     * Test to verify that a request with a sync token returns the changed and deleted notes instead of a page.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetChanges_WhenSinceGiven_ThenReturnChanges() throws Exception {
+        Instant updatedAt = Instant.parse("2024-05-01T10:15:30.123Z");
+        NoteDto note = new NoteDto(1L, "Changed Note", "Changed", LocalDate.now(), 2L, updatedAt);
+        when(noteSyncService.getChanges("MTIz", 10)).thenReturn(new NoteChanges(List.of(note), List.of(7L), "NDU2", false));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes").param("since", "MTIz").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes[0].id").value(1L))
+                .andExpect(jsonPath("$.notes[0].updatedAt").value("2024-05-01T10:15:30.123Z"))
+                .andExpect(jsonPath("$.deletedIds[0]").value(7L))
+                .andExpect(jsonPath("$.nextSince").value("NDU2"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+        verify(noteService, never()).getNotesPage(any(), anyInt());
+    }
+
+    /**
+     * Test to verify that an expired sync token is answered with 410 and counted.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetChanges_WhenTokenExpired_ThenGone() throws Exception {
+        when(noteSyncService.getChanges("MTIz", 50)).thenThrow(new SyncTokenExpiredException("Sync token expired"));
+        double before = meterRegistry.counter(GlobalExceptionHandler.ERRORS_COUNTER,
+                "handler", "sync_token_expired", "status", "410").count();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes").param("since", "MTIz"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.status").value(410));
+        assertEquals(before + 1, meterRegistry.counter(GlobalExceptionHandler.ERRORS_COUNTER,
+                "handler", "sync_token_expired", "status", "410").count());
+    }
+
+    /**
+     * Test to verify that the getAll method passes the cursor and limit to the service.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetAllNotes_WhenCursorGiven_ThenReturnNextPage() throws Exception {
+        LocalDate today = LocalDate.now();
+        NotePage page = new NotePage(List.of(new NoteDto(2L, "Second Note", "This is the second note", today)), null);
+        when(noteService.getNotesPage("MQ", 1)).thenReturn(page);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes").param("after", "MQ").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes[0].id").value(2L))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    /**
+     * Test to verify that the getAll method returns a BadRequest when the cursor is invalid.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetAllNotes_WhenCursorIsInvalid_ThenBadRequest() throws Exception {
+        when(noteService.getNotesPage("???", 50)).thenThrow(new IllegalArgumentException("Invalid cursor: ???"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes").param("after", "???"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test to verify that the export endpoint streams every note as a separate JSON line.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testExportNotes_WhenNotesExist_ThenStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<NoteDto> consumer = invocation.getArgument(0);
+            consumer.accept(new NoteDto(1L, "First", "First note", null));
+            consumer.accept(new NoteDto(2L, "Second", "Second note", null));
+            return null;
+        }).when(noteService).forEachNote(any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"name\":\"First\",\"description\":\"First note\",\"createdAt\":null,\"version\":null,\"updatedAt\":null}\n"
+                                + "{\"id\":2,\"name\":\"Second\",\"description\":\"Second note\",\"createdAt\":null,\"version\":null,\"updatedAt\":null}\n"));
+    }
+
+    /**
+     * Test to verify that the search endpoint returns the ranked hits.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testSearchNotes_WhenNotesMatch_ThenReturnHits() throws Exception {
+        NoteSearchResult result = new NoteSearchResult(
+                List.of(new NoteSearchHit(new NoteDto(1L, "Coffee beans", "Order more", null), 1.25)), 1, 42);
+        when(noteService.searchNotes("coff*", 10)).thenReturn(result);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes/search").param("q", "coff*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits[0].note.id").value(1L))
+                .andExpect(jsonPath("$.hits[0].score").value(1.25))
+                .andExpect(jsonPath("$.totalHits").value(1))
+                .andExpect(jsonPath("$.tookMicros").value(42));
     }
 
     /**
@@ -103,15 +308,51 @@ class NoteControllerTest {
     }
 
     /**
-     * Test to verify that the getNoteById method returns a BadRequest when the note does not exist.
+     * Test to verify that the getNoteById method answers 304 without loading the note when the ETag still matches.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetNoteById_WhenEtagMatches_ThenNotModified() throws Exception {
+        when(noteService.getNoteVersion(1L)).thenReturn(3L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+        verify(noteService, never()).getNoteById(any());
+    }
+
+    /**
+     * Test to verify that the getNoteById method returns the note with its new ETag when the ETag is outdated.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetNoteById_WhenEtagIsOutdated_ThenReturnNote() throws Exception {
+        when(noteService.getNoteVersion(1L)).thenReturn(4L);
+        when(noteService.getNoteById(1L)).thenReturn(new NoteDto(1L, "Test Note", "Changed", null, 4L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.version").value(4L));
+    }
+
+    /**
+     * Test to verify that the getNoteById method returns a NotFound when the note does not exist.
      * @throws Exception when mockMvc perform throws an exception.
      */
     @Test
-    void testGetNoteById_WhenNoteDoesNotExist_ThenBadRequest() throws Exception {
-        when(noteService.getNoteById(1L)).thenThrow(new IllegalArgumentException("Cannot find note with such id: 1"));
+    void testGetNoteById_WhenNoteDoesNotExist_ThenNotFound() throws Exception {
+        when(noteService.getNoteById(1L)).thenThrow(new NoteNotFoundException(1L));
+        double errorsBefore = meterRegistry.counter(GlobalExceptionHandler.ERRORS_COUNTER,
+                "handler", "note_not_found", "status", "404").count();
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/notes/1"))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+
+        assertEquals(errorsBefore + 1, meterRegistry.counter(GlobalExceptionHandler.ERRORS_COUNTER,
+                "handler", "note_not_found", "status", "404").count());
     }
 
     /**
@@ -136,21 +377,44 @@ class NoteControllerTest {
     }
 
     /**
-     * Test to verify that the createNote method returns a BadRequest when the note name already exists.
+     * Test to verify that the createNote method returns a Conflict when the note name already exists.
      * @throws Exception when mockMvc perform throws an exception.
      */
     @Test
-    void testCreateNote_WhenNameExists_ThenBadRequest() throws Exception {
+    void testCreateNote_WhenNameExists_ThenConflict() throws Exception {
         LocalDate today = LocalDate.now();
         NoteDto newNote = new NoteDto(null, "Existing Note", "This is a duplicate note", today);
 
         when(noteService.createNote(any(NoteDto.class)))
-                .thenThrow(new IllegalArgumentException("Note with such name: " + newNote.name() + " already exists"));
+                .thenThrow(new NoteConflictException(newNote.name()));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/notes")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(asJsonString(newNote)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Note with such name: Existing Note already exists"));
+    }
+
+    /**
+     * Test to verify that the createNotes method returns the per-item report of the batch.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testCreateNotes_WhenBatchIsPartiallyValid_ThenReturnReport() throws Exception {
+        NoteDto created = new NoteDto(3L, "New Note", "This is a new note", null);
+        NoteBatchResult result = new NoteBatchResult(1, 1, List.of(
+                new NoteBatchItem(0, created, null),
+                new NoteBatchItem(1, null, "Note with such name: Existing Note already exists")));
+        when(noteService.createNotes(any())).thenReturn(result);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/notes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(List.of(created, new NoteDto(null, "Existing Note", null, null)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].note.id").value(3L))
+                .andExpect(jsonPath("$.items[1].error").value("Note with such name: Existing Note already exists"));
     }
 
     /**
@@ -162,7 +426,7 @@ class NoteControllerTest {
         LocalDate today = LocalDate.now();
         NoteDto updatedNote = new NoteDto(1L, "Updated Name", "Updated Description", today);
 
-        when(noteService.updateNote(any(NoteDto.class), eq(1L))).thenReturn(updatedNote);
+        when(noteService.updateNote(any(NoteDto.class), eq(1L), isNull())).thenReturn(updatedNote);
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/notes/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -174,19 +438,84 @@ class NoteControllerTest {
     }
 
     /**
-     * Test to verify that the updateNote method returns a BadRequest when the note does not exist.
+     * Test to verify that the updateNote method passes the If-Match version and fails with 412 when it is outdated,
+     * counting the error under its handler.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testUpdateNote_WhenIfMatchIsOutdated_ThenPreconditionFailed() throws Exception {
+        double errorsBefore = meterRegistry.counter(GlobalExceptionHandler.ERRORS_COUNTER,
+                "handler", "optimistic_locking_failure", "status", "412").count();
+        when(noteService.updateNote(any(NoteDto.class), eq(1L), eq(2L)))
+                .thenThrow(new OptimisticLockingFailureException("Note with id: 1 has version 3 instead of 2"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/notes/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(new NoteDto(null, null, "Updated Description", null))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+
+        assertEquals(errorsBefore + 1, meterRegistry.counter(GlobalExceptionHandler.ERRORS_COUNTER,
+                "handler", "optimistic_locking_failure", "status", "412").count());
+    }
+
+    /**
+     * Test to verify that a weak ETag in If-Match fails with 412 without updating, while strong ETags of any encoding pass their version.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testUpdateNote_WhenIfMatchIsWeak_ThenPreconditionFailed() throws Exception {
+        NoteDto changes = new NoteDto(null, null, "Updated Description", null);
+        when(noteService.updateNote(changes, 1L, 3L)).thenReturn(new NoteDto(1L, "Test Note", "Updated Description", null, 4L));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/notes/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(changes)))
+                .andExpect(status().isPreconditionFailed());
+        verify(noteService, never()).updateNote(any(), any(), any());
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/notes/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"3-cbor\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(changes)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    /**
+     * Test to verify that the updateNote method returns a NotFound when the note does not exist.
      * @throws Exception when mockMvc perform throws an exception.
      */
     @Test
-    void testUpdateNote_WhenNoteDoesNotExist_ThenBadRequest() throws Exception {
-        when(noteService.updateNote(any(NoteDto.class), eq(1L))).thenThrow(new IllegalArgumentException("Cannot find note with such id: 1"));
+    void testUpdateNote_WhenNoteDoesNotExist_ThenNotFound() throws Exception {
+        when(noteService.updateNote(any(NoteDto.class), eq(1L), isNull())).thenThrow(new NoteNotFoundException(1L));
 
         NoteDto updatedNote = new NoteDto(1L, "Updated Name", "Updated Description", null);
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/notes/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(asJsonString(updatedNote)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test to verify that PATCH passes the present fields and the If-Match version and returns the new ETag.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testPatchNote_WhenNoteExists_ThenReturnUpdatedNote() throws Exception {
+        NoteDto changes = new NoteDto(null, null, "Autosaved", null);
+        when(noteService.updateNote(changes, 1L, 4L)).thenReturn(new NoteDto(1L, "Draft", "Autosaved", LocalDate.now(), 5L));
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/notes/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Autosaved\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
+                .andExpect(jsonPath("$.description").value("Autosaved"));
     }
 
     /**
@@ -203,14 +532,43 @@ class NoteControllerTest {
     }
 
     /**
-     * Test to verify that the deleteNote method returns a BadRequest when the note does not exist.
+     * Test to verify that the deleteNote method returns a NotFound when the note does not exist.
      * @throws Exception when mockMvc perform throws an exception.
      */
     @Test
-    void testDeleteNote_WhenNoteDoesNotExist_ThenBadRequest() throws Exception {
-        doThrow(new IllegalArgumentException("Cannot find note with such id: 1")).when(noteService).deleteById(1L);
+    void testDeleteNote_WhenNoteDoesNotExist_ThenNotFound() throws Exception {
+        doThrow(new NoteNotFoundException(1L)).when(noteService).deleteById(1L);
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/notes/1"))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test to verify that the deleteNotes method deletes the ids from the query string and reports the missing ones.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testDeleteNotes_WhenIdsGiven_ThenReturnReport() throws Exception {
+        when(noteService.deleteByIds(List.of(1L, 2L, 3L))).thenReturn(new NoteDeleteResult(2, List.of(3L)));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/notes").param("ids", "1,2,3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.notFound[0]").value(3));
+    }
+
+    /**
+     * Test to verify that the deleteNotesInBody method deletes the ids from the request body.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testDeleteNotesInBody_WhenIdsGiven_ThenReturnReport() throws Exception {
+        when(noteService.deleteByIds(List.of(1L, 2L))).thenReturn(new NoteDeleteResult(2, List.of()));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/notes/batch/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
     }
 }
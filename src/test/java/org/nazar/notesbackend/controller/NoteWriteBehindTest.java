@@ -0,0 +1,64 @@
+package org.nazar.notesbackend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.service.NoteService;
+import org.nazar.notesbackend.service.NoteWriteBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for conditional listings in write-behind mode, with a buffer that is only flushed when a test asks.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:app_write_behind;DB_CLOSE_ON_EXIT=FALSE",
+        "notes.write-behind.enabled=true",
+        "notes.write-behind.flush-interval=1h"
+})
+@AutoConfigureMockMvc
+class NoteWriteBehindTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteWriteBuffer noteWriteBuffer;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Test to verify that a page cached while a description was buffered is not validated once the flush wrote it.
+     * @throws Exception when mockMvc perform throws an exception.
+     */
+    @Test
+    void testGetAll_WhenBufferedDescriptionIsFlushed_ThenEtagChanges() throws Exception {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Buffered Note", "Before", null));
+        mockMvc.perform(get("/api/v1/notes").param("limit", "1000"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/v1/notes/" + created.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"After\"}"))
+                .andExpect(status().isOk());
+        String etag = mockMvc.perform(get("/api/v1/notes").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        noteWriteBuffer.flush();
+
+        mockMvc.perform(get("/api/v1/notes").param("limit", "1000").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes[*].description", hasItem("After")));
+    }
+}
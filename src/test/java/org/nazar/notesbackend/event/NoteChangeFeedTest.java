@@ -0,0 +1,170 @@
+package org.nazar.notesbackend.event;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for the note change stream, reading it over HTTP from the embedded web server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "notes.changes.buffer-size=4")
+class NoteChangeFeedTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final List<BufferedReader> streams = new ArrayList<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteChangeFeed noteChangeFeed;
+
+    @AfterEach
+    void closeStreams() throws IOException {
+        for (BufferedReader stream : streams) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Test to verify that created, updated and deleted notes are streamed in order.
+     */
+    @Test
+    void testStreamChanges_WhenNotesChange_ThenStreamEvents() throws Exception {
+        BufferedReader stream = open(null);
+        NoteDto note = noteService.createNote(new NoteDto(null, "Streamed Note", "First", null));
+        noteService.updateNote(new NoteDto(null, null, "Second", null), note.id(), null);
+        noteService.deleteById(note.id());
+
+        List<Event> events = read(stream, 3);
+
+        assertEquals(List.of("created", "updated", "deleted"), events.stream().map(Event::name).toList());
+        assertTrue(events.get(0).data().contains("\"name\":\"Streamed Note\""));
+        assertTrue(events.get(1).data().contains("\"description\":\"Second\""));
+        assertEquals("{\"id\":" + note.id() + "}", events.get(2).data());
+    }
+
+    /**
+     * Test to verify that a client reconnecting with Last-Event-ID receives exactly the changes it missed.
+     */
+    @Test
+    void testStreamChanges_WhenLastEventIdIsSent_ThenReplayMissedChanges() throws Exception {
+        BufferedReader stream = open(null);
+        noteService.createNote(new NoteDto(null, "Seen Note", "Seen", null));
+        Event seen = read(stream, 1).getFirst();
+        noteService.createNote(new NoteDto(null, "Missed Note 1", "Missed", null));
+        noteService.createNote(new NoteDto(null, "Missed Note 2", "Missed", null));
+
+        List<Event> missed = read(open(seen.id()), 2);
+
+        assertTrue(missed.get(0).data().contains("Missed Note 1"));
+        assertTrue(missed.get(1).data().contains("Missed Note 2"));
+    }
+
+    /**
+     * Test to verify that a client resuming from an event this node does not know is told to reload.
+     */
+    @Test
+    void testStreamChanges_WhenLastEventIdIsUnknown_ThenSendReset() throws Exception {
+        Event reset = read(open("unknown-42"), 1).getFirst();
+
+        assertEquals(NoteChangeFeed.RESET_EVENT, reset.name());
+    }
+
+    /**
+     * Test to verify that a subscriber that stops reading is disconnected once its buffer is full,
+     * while the notes keep being written.
+     */
+    @Test
+    void testStreamChanges_WhenSubscriberStopsReading_ThenDisconnect() throws Exception {
+        int subscribers = noteChangeFeed.subscriberCount();
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setReceiveBufferSize(1024);
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /api/v1/notes/changes HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertTimeoutPreemptively(TIMEOUT, () -> assertTrue(socket.getInputStream().read() > 0));
+            assertEquals(subscribers + 1, noteChangeFeed.subscriberCount());
+
+            String description = "x".repeat(250);
+            for (int batch = 0; noteChangeFeed.subscriberCount() > subscribers; batch++) {
+                assertTrue(batch < 100, "Subscriber was not disconnected");
+                int first = batch * 500;
+                noteService.createNotes(IntStream.range(first, first + 500)
+                        .mapToObj(i -> new NoteDto(null, "Unread Note " + i, description, null))
+                        .toList());
+            }
+        }
+    }
+
+    private BufferedReader open(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/notes/changes"));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        BufferedReader stream = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+        streams.add(stream);
+        return stream;
+    }
+
+    private static List<Event> read(BufferedReader stream, int count) {
+        return assertTimeoutPreemptively(TIMEOUT, () -> {
+            List<Event> events = new ArrayList<>();
+            String id = null;
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            while (events.size() < count) {
+                String line = stream.readLine();
+                if (line.isEmpty()) {
+                    if (name != null) {
+                        events.add(new Event(id, name, data.toString()));
+                    }
+                    id = null;
+                    name = null;
+                    data.setLength(0);
+                } else if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5));
+                }
+            }
+            return events;
+        });
+    }
+
+    private record Event(String id, String name, String data) {
+    }
+}
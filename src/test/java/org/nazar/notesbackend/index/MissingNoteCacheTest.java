@@ -0,0 +1,77 @@
+package org.nazar.notesbackend.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the MissingNoteCache class.
+ */
+class MissingNoteCacheTest {
+
+    /**
+     * Test to verify that a recorded miss is remembered until a note with that id is created.
+     */
+    @Test
+    void testIsMissing_WhenMissRecorded_ThenRememberUntilCreated() {
+        MissingNoteCache cache = cache(true);
+
+        cache.recordMiss(7L, cache.stamp());
+        assertTrue(cache.isMissing(7L));
+        assertFalse(cache.isMissing(8L));
+
+        cache.onNoteChanged(NoteChangedEvent.created(new NoteDto(7L, "Late Note", null, null)));
+        assertFalse(cache.isMissing(7L));
+    }
+
+    /**
+     * Test to verify that a miss is dropped when a note was created while the lookup was running,
+     * as the lookup may not have seen it.
+     */
+    @Test
+    void testRecordMiss_WhenNoteCreatedDuringLookup_ThenForgetMiss() {
+        MissingNoteCache cache = cache(true);
+
+        long stamp = cache.stamp();
+        cache.onNoteChanged(NoteChangedEvent.created(new NoteDto(7L, "Racing Note", null, null)));
+        cache.recordMiss(7L, stamp);
+
+        assertFalse(cache.isMissing(7L));
+    }
+
+    /**
+     * Test to verify that deleted notes are known to be missing right away.
+     */
+    @Test
+    void testIsMissing_WhenNoteDeleted_ThenReturnTrue() {
+        MissingNoteCache cache = cache(true);
+
+        cache.onNoteChanged(NoteChangedEvent.deleted(3L));
+
+        assertTrue(cache.isMissing(3L));
+    }
+
+    /**
+     * Test to verify that a disabled cache never reports an id as missing.
+     */
+    @Test
+    void testIsMissing_WhenDisabled_ThenReturnFalse() {
+        MissingNoteCache cache = cache(false);
+
+        cache.recordMiss(7L, cache.stamp());
+        cache.onNoteChanged(NoteChangedEvent.deleted(3L));
+
+        assertFalse(cache.isMissing(7L));
+        assertFalse(cache.isMissing(3L));
+    }
+
+    private static MissingNoteCache cache(boolean enabled) {
+        return new MissingNoteCache(new SimpleMeterRegistry(), enabled, 100, Duration.ofMinutes(10));
+    }
+}
@@ -0,0 +1,105 @@
+package org.nazar.notesbackend.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+import org.nazar.notesbackend.store.NoteStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the NoteNameIndex class.
+ */
+@ExtendWith(MockitoExtension.class)
+class NoteNameIndexTest {
+    @Mock
+    private NoteStore noteStore;
+
+    /**
+     * Test to verify that every name is reported as possibly taken until the index is warmed up.
+     */
+    @Test
+    void testMightContain_WhenNotWarmedUp_ThenReturnTrue() {
+        NoteNameIndex index = new NoteNameIndex(noteStore, true);
+
+        assertTrue(index.mightContain("Any Note"));
+    }
+
+    /**
+     * Test to verify that a warmed up index answers from memory and knows the names added for new notes.
+     */
+    @Test
+    void testMightContain_WhenWarmedUp_ThenReflectKnownNames() {
+        when(noteStore.findSummaryPage(0L, 1000, false)).thenReturn(List.of(new NoteSummary(1L, "Existing Note", null)));
+        NoteNameIndex index = new NoteNameIndex(noteStore, true);
+
+        index.warmUp();
+        index.add(2L, "Created Note");
+
+        assertTrue(index.mightContain("Existing Note"));
+        assertTrue(index.mightContain("Created Note"));
+        assertFalse(index.mightContain("Unknown Note"));
+        assertFalse(index.mightContain(null));
+    }
+
+    /**
+     * Test to verify that committed renames and deletes free the previous names, unless another note took them since.
+     */
+    @Test
+    void testOnNoteChanged_WhenNotesAreRenamedOrDeleted_ThenForgetPreviousNames() {
+        when(noteStore.findSummaryPage(0L, 1000, false)).thenReturn(List.of(
+                new NoteSummary(1L, "First Note", null), new NoteSummary(2L, "Second Note", null)));
+        NoteNameIndex index = new NoteNameIndex(noteStore, true);
+        index.warmUp();
+
+        index.add(1L, "Renamed Note");
+        index.onNoteChanged(NoteChangedEvent.updated(new NoteDto(1L, "Renamed Note", "Renamed", null)));
+        index.onNoteChanged(NoteChangedEvent.deleted(2L));
+        assertFalse(index.mightContain("First Note"));
+        assertFalse(index.mightContain("Second Note"));
+        assertTrue(index.mightContain("Renamed Note"));
+
+        index.add(3L, "First Note");
+        index.onNoteChanged(NoteChangedEvent.created(new NoteDto(3L, "First Note", "Reused name", null)));
+        index.onNoteChanged(NoteChangedEvent.deleted(1L));
+        assertTrue(index.mightContain("First Note"));
+        assertFalse(index.mightContain("Renamed Note"));
+    }
+
+    /**
+     * Test to verify that notes without a name are skipped when warming up and following changes.
+     */
+    @Test
+    void testOnNoteChanged_WhenNoteHasNoName_ThenSkipIt() {
+        when(noteStore.findSummaryPage(0L, 1000, false)).thenReturn(List.of(
+                new NoteSummary(1L, null, null), new NoteSummary(2L, "Named Note", null)));
+        NoteNameIndex index = new NoteNameIndex(noteStore, true);
+        index.warmUp();
+
+        index.onNoteChanged(NoteChangedEvent.created(new NoteDto(3L, null, "Nameless", null)));
+        index.onNoteChanged(NoteChangedEvent.updated(new NoteDto(2L, null, "Name dropped", null)));
+        index.onNoteChanged(NoteChangedEvent.deleted(3L));
+        assertFalse(index.mightContain("Named Note"));
+        assertFalse(index.mightContain(null));
+    }
+
+    /**
+     * Test to verify that a disabled index always sends callers to the store.
+     */
+    @Test
+    void testMightContain_WhenDisabled_ThenReturnTrue() {
+        NoteNameIndex index = new NoteNameIndex(noteStore, false);
+
+        index.warmUp();
+
+        assertTrue(index.mightContain("Any Note"));
+    }
+}
@@ -0,0 +1,83 @@
+package org.nazar.notesbackend.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the NoteSearchIndex class.
+ */
+class NoteSearchIndexTest {
+    private NoteSearchIndex index;
+
+    /**
+     * Set up an index with a few notes.
+     */
+    @BeforeEach
+    void setUp() {
+        index = new NoteSearchIndex(null);
+        index.onNoteChanged(NoteChangedEvent.created(new NoteDto(1L, "Shopping list", "Milk, bread and coffee", null)));
+        index.onNoteChanged(NoteChangedEvent.created(new NoteDto(2L, "Coffee beans", "Try the new coffee roaster", null)));
+        index.onNoteChanged(NoteChangedEvent.created(new NoteDto(3L, "Meeting notes", "Discuss the roadmap", null)));
+    }
+
+    /**
+     * Test to verify that the note mentioning a term most prominently ranks first.
+     */
+    @Test
+    void testSearch_WhenTermMatchesSeveralNotes_ThenRankByRelevance() {
+        NoteSearchIndex.Result result = index.search("coffee", 10);
+
+        assertEquals(2, result.totalMatches());
+        assertEquals(List.of(2L, 1L), result.matches().stream().map(NoteSearchIndex.Match::noteId).toList());
+    }
+
+    /**
+     * Test to verify that a word ending with '*' matches every term with that prefix.
+     */
+    @Test
+    void testSearch_WhenPrefixQuery_ThenMatchAllExpansions() {
+        NoteSearchIndex.Result result = index.search("roa*", 10);
+
+        assertEquals(List.of(2L, 3L), result.matches().stream().map(NoteSearchIndex.Match::noteId).sorted().toList());
+    }
+
+    /**
+     * Test to verify that only the requested number of best matches is returned.
+     */
+    @Test
+    void testSearch_WhenLimitIsSmallerThanMatches_ThenReturnTopK() {
+        NoteSearchIndex.Result result = index.search("coffee notes", 1);
+
+        assertEquals(3, result.totalMatches());
+        assertEquals(1, result.matches().size());
+    }
+
+    /**
+     * Test to verify that updates replace the indexed terms and deletes remove the note.
+     */
+    @Test
+    void testOnNoteChanged_WhenNotesAreUpdatedAndDeleted_ThenIndexFollows() {
+        index.onNoteChanged(NoteChangedEvent.updated(new NoteDto(1L, "Groceries", "Tea and bread", null)));
+        index.onNoteChanged(NoteChangedEvent.deleted(3L));
+
+        assertEquals(List.of(2L), index.search("coffee", 10).matches().stream().map(NoteSearchIndex.Match::noteId).toList());
+        assertTrue(index.search("roadmap", 10).matches().isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    /**
+     * Test to verify that a query without any word is rejected.
+     */
+    @Test
+    void testSearch_WhenQueryHasNoWords_ThenThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> index.search(" *, ", 10));
+    }
+}
@@ -0,0 +1,53 @@
+package org.nazar.notesbackend.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.mapper.NoteMapper;
+import org.springframework.aop.framework.ProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the MethodTimingInterceptor class.
+ */
+class MethodTimingInterceptorTest {
+
+    private MeterRegistry meterRegistry;
+
+    private NoteMapper noteMapper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ProxyFactory proxyFactory = new ProxyFactory(new NoteMapper());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new MethodTimingInterceptor(() -> meterRegistry, "test.timer"));
+        noteMapper = (NoteMapper) proxyFactory.getProxy();
+    }
+
+    /**
+     * Test to verify that successful calls are timed under their method name and the success outcome.
+     */
+    @Test
+    void testInvoke_WhenCallSucceeds_ThenRecordSuccess() {
+        noteMapper.mapToEntity(new NoteDto(null, "Name", "Description", null));
+        noteMapper.mapToEntity(new NoteDto(null, "Name", "Description", null));
+
+        assertEquals(2, meterRegistry.timer("test.timer", "method", "mapToEntity", "outcome", "success").count());
+        assertEquals(0, meterRegistry.timer("test.timer", "method", "mapToEntity", "outcome", "error").count());
+    }
+
+    /**
+     * Test to verify that failed calls are timed under the error outcome and the exception is rethrown.
+     */
+    @Test
+    void testInvoke_WhenCallThrows_ThenRecordErrorAndRethrow() {
+        assertThrows(NullPointerException.class, () -> noteMapper.mapToDto(null));
+
+        assertEquals(1, meterRegistry.timer("test.timer", "method", "mapToDto", "outcome", "error").count());
+    }
+}
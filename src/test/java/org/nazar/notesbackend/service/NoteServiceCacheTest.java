@@ -0,0 +1,134 @@
+package org.nazar.notesbackend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.config.NoteCacheConfig;
+import org.nazar.notesbackend.entity.dto.NoteDeleteResult;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.store.NoteStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Integration tests for the note cache in front of the NoteService, running against the embedded database.
+ */
+@SpringBootTest
+class NoteServiceCacheTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @SpyBean
+    private NoteStore noteStore;
+
+    private Cache notesCache;
+
+    /**
+     * Set up a clean cache for every test.
+     */
+    @BeforeEach
+    void setUp() {
+        notesCache = cacheManager.getCache(NoteCacheConfig.NOTES_CACHE);
+        notesCache.clear();
+    }
+
+    /**
+     * Test to verify that a read populates the cache with the note.
+     */
+    @Test
+    void testGetNoteById_WhenNoteExists_ThenCacheNote() {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Cached Note", "Read me twice", null));
+        notesCache.clear();
+
+        NoteDto found = noteService.getNoteById(created.id());
+
+        assertEquals(found, notesCache.get(created.id(), NoteDto.class));
+    }
+
+    /**
+     * Test to verify that an update refreshes the cached note, so the next read sees the new state.
+     */
+    @Test
+    void testUpdateNote_WhenNoteIsCached_ThenRefreshEntry() {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Note To Update", "Old description", null));
+        noteService.getNoteById(created.id());
+
+        noteService.updateNote(new NoteDto(null, null, "New description", null), created.id(), null);
+
+        assertEquals("New description", notesCache.get(created.id(), NoteDto.class).description());
+        assertEquals("New description", noteService.getNoteById(created.id()).description());
+    }
+
+    /**
+     * Test to verify that a read which loaded a note before an update committed does not put its stale copy over
+     * the updated note in the cache.
+     */
+    @Test
+    void testGetNoteById_WhenUpdateCommitsDuringRead_ThenKeepUpdatedNote() throws Exception {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Raced Note", "Old description", null));
+        notesCache.clear();
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Object note = invocation.callRealMethod();
+            loaded.countDown();
+            updated.await(5, TimeUnit.SECONDS);
+            return note;
+        }).when(noteStore).findById(created.id());
+
+        CompletableFuture<NoteDto> read = CompletableFuture.supplyAsync(() -> noteService.getNoteById(created.id()));
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        NoteDto updatedNote = noteService.updateNote(new NoteDto(null, null, "New description", null), created.id(), null);
+        updated.countDown();
+
+        assertEquals("Old description", read.get(5, TimeUnit.SECONDS).description());
+        assertEquals(updatedNote, notesCache.get(created.id(), NoteDto.class));
+    }
+
+    /**
+     * Test to verify that a delete evicts the cached note.
+     */
+    @Test
+    void testDeleteById_WhenNoteIsCached_ThenEvictEntry() {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Note To Delete", "Gone soon", null));
+        noteService.getNoteById(created.id());
+
+        noteService.deleteById(created.id());
+
+        assertNull(notesCache.get(created.id()));
+    }
+
+    /**
+     * Test to verify that a bulk delete evicts every deleted note and reports the ids it could not find.
+     */
+    @Test
+    void testDeleteByIds_WhenNotesAreCached_ThenEvictDeletedEntries() {
+        NoteDto first = noteService.createNote(new NoteDto(null, "Bulk Delete One", "Gone soon", null));
+        NoteDto second = noteService.createNote(new NoteDto(null, "Bulk Delete Two", "Gone soon", null));
+        noteService.getNoteById(first.id());
+        noteService.getNoteById(second.id());
+
+        NoteDeleteResult result = noteService.deleteByIds(List.of(first.id(), second.id(), -1L));
+
+        assertEquals(2, result.deleted());
+        assertEquals(List.of(-1L), result.notFound());
+        assertNull(notesCache.get(first.id()));
+        assertNull(notesCache.get(second.id()));
+    }
+}
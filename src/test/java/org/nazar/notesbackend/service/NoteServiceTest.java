@@ -3,25 +3,47 @@ package org.nazar.notesbackend.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.nazar.notesbackend.entity.Note;
+import org.nazar.notesbackend.entity.dto.NoteBatchResult;
+import org.nazar.notesbackend.entity.dto.NoteDeleteResult;
 import org.nazar.notesbackend.entity.dto.NoteDto;
-import org.nazar.notesbackend.mapper.NoteMapper;
-import org.nazar.notesbackend.repository.NotesRepository;
-
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.entity.dto.NoteSearchResult;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.nazar.notesbackend.entity.dto.NoteSummaryPage;
+import org.nazar.notesbackend.event.NoteChangeCounter;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+import org.nazar.notesbackend.exception.NoteConflictException;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.index.MissingNoteCache;
+import org.nazar.notesbackend.index.NoteNameIndex;
+import org.nazar.notesbackend.index.NoteSearchIndex;
+import org.nazar.notesbackend.store.NoteStore;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -29,30 +51,46 @@ import static org.mockito.Mockito.when;
  */
 @ExtendWith(MockitoExtension.class)
 class NoteServiceTest {
+    /**
+     * Batch size limit of the service under test, above the size of a single name lookup.
+     */
+    private static final int MAX_BATCH_SIZE = 2500;
+
+    @Mock
+    private NoteStore noteStore;
+
     @Mock
-    private NotesRepository notesRepository;
+    private NoteNameIndex noteNameIndex;
 
     @Mock
-    private NoteMapper noteMapper;
+    private NoteSearchIndex noteSearchIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private NoteWriteBuffer noteWriteBuffer;
+
+    @Mock
+    private MissingNoteCache missingNoteCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
-    @InjectMocks
     private NoteService noteService;
 
     private NoteDto noteDto;
 
-    private Note note;
-
     /**
      * Set up common test objects and configurations.
      */
     @BeforeEach
     void setUp() {
+        noteService = new NoteService(noteStore, noteNameIndex, noteSearchIndex, eventPublisher, new NoteChangeCounter(),
+                noteWriteBuffer, missingNoteCache, transactionManager, MAX_BATCH_SIZE);
         noteDto = new NoteDto(1L, "Sample Note", "This is a sample note.", null);
-
-        note = new Note();
-        note.setId(noteDto.id());
-        note.setName(noteDto.name());
-        note.setDescription(noteDto.description());
+        lenient().when(noteWriteBuffer.bypass(anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
     }
 
     /**
@@ -60,8 +98,7 @@ class NoteServiceTest {
      */
     @Test
     void testGetAllNotes_WhenNotesExist_ThenReturnNoteList() {
-        when(notesRepository.findAll()).thenReturn(List.of(note));
-        when(noteMapper.mapToDto(any(Note.class))).thenReturn(noteDto);
+        when(noteStore.findAll()).thenReturn(List.of(noteDto));
 
         List<NoteDto> noteDtos = noteService.getAllNotes();
 
@@ -69,13 +106,84 @@ class NoteServiceTest {
         assertEquals("Sample Note", noteDtos.getFirst().name());
     }
 
+    /**
+     * Test to verify that getNotesPage returns a cursor to the next page when more notes exist.
+     */
+    @Test
+    void testGetNotesPage_WhenMoreNotesExist_ThenReturnNextCursor() {
+        NoteDto second = new NoteDto(2L, null, null, null);
+        when(noteStore.findPage(0L, 2)).thenReturn(List.of(noteDto, second));
+
+        NotePage page = noteService.getNotesPage(null, 1);
+
+        assertEquals(1, page.notes().size());
+        assertNotNull(page.nextCursor());
+
+        when(noteStore.findPage(1L, 2)).thenReturn(List.of(second));
+
+        NotePage nextPage = noteService.getNotesPage(page.nextCursor(), 1);
+
+        assertEquals(2L, nextPage.notes().getFirst().id());
+        assertNull(nextPage.nextCursor());
+    }
+
+    /**
+     * Test to verify that getNotesPage throws an exception when the cursor cannot be decoded.
+     */
+    @Test
+    void testGetNotesPage_WhenCursorIsInvalid_ThenThrowException() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> noteService.getNotesPage("not-a-cursor", 10));
+
+        assertEquals("Invalid cursor: not-a-cursor", exception.getMessage());
+    }
+
+    /**
+     * Test to verify that getNotesPage throws an exception when the limit is out of range.
+     */
+    @Test
+    void testGetNotesPage_WhenLimitIsOutOfRange_ThenThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> noteService.getNotesPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> noteService.getNotesPage(null, NoteService.MAX_PAGE_SIZE + 1));
+    }
+
+    /**
+     * Test to verify that getNoteSummariesPage pages like getNotesPage and asks the store for excerpts only when wanted.
+     */
+    @Test
+    void testGetNoteSummariesPage_WhenMoreNotesExist_ThenReturnNextCursor() {
+        NoteSummary first = new NoteSummary(1L, "Sample Note", null, "This is a sample note.");
+        NoteSummary second = new NoteSummary(2L, "Second Note", null, null);
+        when(noteStore.findSummaryPage(0L, 2, true)).thenReturn(List.of(first, second));
+        when(noteStore.findSummaryPage(1L, 2, false)).thenReturn(List.of(second));
+
+        NoteSummaryPage page = noteService.getNoteSummariesPage(null, 1, true);
+        NoteSummaryPage nextPage = noteService.getNoteSummariesPage(page.nextCursor(), 1, false);
+
+        assertEquals(List.of(first), page.notes());
+        assertEquals(List.of(second), nextPage.notes());
+        assertNull(nextPage.nextCursor());
+        assertThrows(IllegalArgumentException.class, () -> noteService.getNoteSummariesPage(null, 0, false));
+    }
+
+    /**
+     * Test to verify that forEachNote hands over every streamed note.
+     */
+    @Test
+    void testForEachNote_WhenNotesExist_ThenConsumeEach() {
+        when(noteStore.streamAll()).thenReturn(Stream.of(noteDto));
+        List<NoteDto> exported = new ArrayList<>();
+
+        noteService.forEachNote(exported::add);
+
+        assertEquals(List.of(noteDto), exported);
+    }
+
     /**
      * Test to verify that getNoteById returns the correct note DTO when the note exists.
      */
     @Test
     void testGetNoteById_WhenNoteExists_ThenReturnNoteDto() {
-        when(notesRepository.findById(1L)).thenReturn(Optional.of(note));
-        when(noteMapper.mapToDto(any(Note.class))).thenReturn(noteDto);
+        when(noteStore.findById(1L)).thenReturn(Optional.of(noteDto));
 
         NoteDto foundNote = noteService.getNoteById(1L);
 
@@ -88,11 +196,42 @@ class NoteServiceTest {
      */
     @Test
     void testGetNoteById_WhenNoteDoesNotExist_ThenThrowException() {
-        when(notesRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(noteStore.findById(anyLong())).thenReturn(Optional.empty());
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> noteService.getNoteById(1L));
+        Exception exception = assertThrows(NoteNotFoundException.class, () -> noteService.getNoteById(1L));
 
         assertEquals("Cannot find note with such id: 1", exception.getMessage());
+        verify(missingNoteCache).recordMiss(1L, 0L);
+    }
+
+    /**
+     * Test to verify that getNoteById answers an id known to be missing without asking the store.
+     */
+    @Test
+    void testGetNoteById_WhenIdIsKnownMissing_ThenSkipStore() {
+        when(missingNoteCache.isMissing(1L)).thenReturn(true);
+
+        assertThrows(NoteNotFoundException.class, () -> noteService.getNoteById(1L));
+
+        verify(noteStore, never()).findById(any());
+        verify(noteWriteBuffer, never()).pending(any());
+    }
+
+    /**
+     * Test to verify that searchNotes returns the indexed matches as notes in ranking order.
+     */
+    @Test
+    void testSearchNotes_WhenNotesMatch_ThenReturnHitsInRankOrder() {
+        NoteDto secondDto = new NoteDto(2L, "Second", null, null);
+        when(noteSearchIndex.search("sample", 10)).thenReturn(new NoteSearchIndex.Result(
+                List.of(new NoteSearchIndex.Match(2L, 2.5), new NoteSearchIndex.Match(1L, 1.5)), 2));
+        when(noteStore.findAllById(List.of(2L, 1L))).thenReturn(List.of(noteDto, secondDto));
+
+        NoteSearchResult result = noteService.searchNotes("sample", 10);
+
+        assertEquals(2, result.totalHits());
+        assertEquals(secondDto, result.hits().get(0).note());
+        assertEquals(noteDto, result.hits().get(1).note());
     }
 
     /**
@@ -100,15 +239,41 @@ class NoteServiceTest {
      */
     @Test
     void testCreateNote_WhenNameIsUnique_ThenReturnSavedNote() {
-        when(noteMapper.mapToEntity(noteDto)).thenReturn(note);
-        when(notesRepository.existsNoteByName(noteDto.name())).thenReturn(false);
-        when(notesRepository.save(any(Note.class))).thenReturn(note);
-        when(noteMapper.mapToDto(any(Note.class))).thenReturn(noteDto);
+        when(noteNameIndex.mightContain(noteDto.name())).thenReturn(true);
+        when(noteStore.existsByName(noteDto.name())).thenReturn(false);
+        when(noteStore.create(noteDto)).thenReturn(noteDto);
 
         NoteDto savedNote = noteService.createNote(noteDto);
 
         assertNotNull(savedNote);
         assertEquals("Sample Note", savedNote.name());
+        verify(noteNameIndex).add(1L, "Sample Note");
+        verify(eventPublisher).publishEvent(NoteChangedEvent.created(noteDto));
+    }
+
+    /**
+     * Test to verify that createNote skips the store probe when the name index does not know the name.
+     */
+    @Test
+    void testCreateNote_WhenNameIsNotIndexed_ThenSkipExistsCheck() {
+        when(noteNameIndex.mightContain(noteDto.name())).thenReturn(false);
+        when(noteStore.create(noteDto)).thenReturn(noteDto);
+
+        noteService.createNote(noteDto);
+
+        verify(noteStore, never()).existsByName(any());
+    }
+
+    /**
+     * Test to verify that createNote turns a unique constraint violation into a duplicate name error.
+     */
+    @Test
+    void testCreateNote_WhenUniqueConstraintIsViolated_ThenThrowException() {
+        when(noteStore.create(noteDto)).thenThrow(new DataIntegrityViolationException("uk_note_name"));
+
+        Exception exception = assertThrows(NoteConflictException.class, () -> noteService.createNote(noteDto));
+
+        assertEquals("Note with such name: Sample Note already exists", exception.getMessage());
     }
 
     /**
@@ -116,26 +281,166 @@ class NoteServiceTest {
      */
     @Test
     void testCreateNote_WhenNameAlreadyExists_ThenThrowException() {
-        when(notesRepository.existsNoteByName(noteDto.name())).thenReturn(true);
+        when(noteNameIndex.mightContain(noteDto.name())).thenReturn(true);
+        when(noteStore.existsByName(noteDto.name())).thenReturn(true);
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> noteService.createNote(noteDto));
+        Exception exception = assertThrows(NoteConflictException.class, () -> noteService.createNote(noteDto));
 
         assertEquals("Note with such name: Sample Note already exists", exception.getMessage());
     }
 
     /**
-     * Test to verify that updateNote returns the updated note DTO when the original note exists.
+     * Test to verify that createNotes saves the unique notes and reports taken or repeated names as failed.
+     */
+    @Test
+    void testCreateNotes_WhenSomeNamesAreTaken_ThenReportPartialFailure() {
+        NoteDto taken = new NoteDto(null, "Taken", "Name already in use", null);
+        NoteDto repeated = new NoteDto(null, "Sample Note", "Same name again", null);
+        when(noteStore.findExistingNames(List.of("Sample Note", "Taken"))).thenReturn(List.of("Taken"));
+        when(noteStore.createAll(List.of(noteDto))).thenReturn(List.of(noteDto));
+
+        NoteBatchResult result = noteService.createNotes(List.of(noteDto, taken, repeated));
+
+        assertEquals(1, result.created());
+        assertEquals(2, result.failed());
+        assertEquals(noteDto, result.items().get(0).note());
+        assertEquals("Note with such name: Taken already exists", result.items().get(1).error());
+        assertEquals("Note with such name: Sample Note already exists", result.items().get(2).error());
+    }
+
+    /**
+     * Test to verify that createNotes looks up the names of a large batch in chunks instead of one huge IN list.
+     */
+    @Test
+    void testCreateNotes_WhenBatchHasManyNames_ThenLookUpNamesInChunks() {
+        List<NoteDto> requests = IntStream.range(0, MAX_BATCH_SIZE)
+                .mapToObj(i -> new NoteDto(null, "Note " + i, "Batch item", null)).toList();
+        when(noteStore.findExistingNames(any())).thenReturn(List.of());
+        when(noteStore.createAll(requests)).thenReturn(requests);
+
+        noteService.createNotes(requests);
+
+        verify(noteStore, times(3)).findExistingNames(any());
+        verify(noteStore).findExistingNames(requests.subList(2000, 2500).stream().map(NoteDto::name).toList());
+    }
+
+    /**
+     * Test to verify that createNotes refuses batches above the configured size limit.
+     */
+    @Test
+    void testCreateNotes_WhenBatchIsTooLarge_ThenThrowException() {
+        List<NoteDto> requests = IntStream.rangeClosed(0, MAX_BATCH_SIZE)
+                .mapToObj(i -> new NoteDto(null, "Note " + i, "Batch item", null)).toList();
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> noteService.createNotes(requests));
+
+        assertEquals("Cannot create more than 2500 notes at once", exception.getMessage());
+        verify(noteStore, never()).createAll(any());
+    }
+
+    /**
+     * Test to verify that createNotes retries a batch that lost a name to a concurrent write after the lookup,
+     * reporting only the item whose name was taken as failed.
+     */
+    @Test
+    void testCreateNotes_WhenNameIsTakenConcurrently_ThenReportOnlyThatItem() {
+        NoteDto other = new NoteDto(null, "Other Note", "Taken meanwhile", null);
+        when(noteStore.findExistingNames(List.of("Sample Note", "Other Note"))).thenReturn(List.of(), List.of("Other Note"));
+        when(noteStore.createAll(List.of(noteDto, other))).thenThrow(new DataIntegrityViolationException("uk_note_name"));
+        when(noteStore.createAll(List.of(noteDto))).thenReturn(List.of(noteDto));
+
+        NoteBatchResult result = noteService.createNotes(List.of(noteDto, other));
+
+        assertEquals(1, result.created());
+        assertEquals(1, result.failed());
+        assertEquals(noteDto, result.items().get(0).note());
+        assertEquals("Note with such name: Other Note already exists", result.items().get(1).error());
+        verify(eventPublisher).publishEvent(NoteChangedEvent.created(noteDto));
+    }
+
+    /**
+     * Test to verify that createNotes gives up with a conflict when every attempt loses a name it cannot find afterwards.
+     */
+    @Test
+    void testCreateNotes_WhenEveryAttemptConflicts_ThenThrowConflict() {
+        NoteDto other = new NoteDto(null, "Other Note", "Taken and freed again", null);
+        when(noteStore.findExistingNames(List.of("Sample Note", "Other Note"))).thenReturn(List.of());
+        when(noteStore.createAll(List.of(noteDto, other))).thenThrow(new DataIntegrityViolationException("uk_note_name"));
+
+        Exception exception = assertThrows(NoteConflictException.class, () -> noteService.createNotes(List.of(noteDto, other)));
+
+        assertEquals("A note with one of the names: Sample Note, Other Note already exists", exception.getMessage());
+        verify(noteStore, times(3)).createAll(List.of(noteDto, other));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    /**
+     * Test to verify that updateNote returns the state written by the in-place update.
      */
     @Test
     void testUpdateNote_WhenNoteExists_ThenReturnUpdatedNote() {
-        when(notesRepository.findNoteById(1L)).thenReturn(Optional.of(note));
-        when(notesRepository.save(any(Note.class))).thenReturn(note);
-        when(noteMapper.mapToDto(any(Note.class))).thenReturn(noteDto);
+        when(noteStore.update(1L, "Sample Note", "This is a sample note.", null)).thenReturn(Optional.of(noteDto));
+
+        NoteDto updatedNote = noteService.updateNote(noteDto, 1L, null);
+
+        assertEquals(noteDto, updatedNote);
+        verify(noteNameIndex).add(1L, "Sample Note");
+        verify(eventPublisher).publishEvent(NoteChangedEvent.updated(noteDto));
+    }
 
-        NoteDto updatedNote = noteService.updateNote(noteDto, 1L);
+    /**
+     * Test to verify that updateNote passes only the given fields and leaves the name index alone without a new name.
+     */
+    @Test
+    void testUpdateNote_WhenOnlyDescriptionGiven_ThenUpdateDescriptionOnly() {
+        NoteDto changes = new NoteDto(null, null, "New description", null);
+        when(noteStore.update(1L, null, "New description", 4L)).thenReturn(Optional.of(noteDto));
 
-        assertNotNull(updatedNote);
-        assertEquals("Sample Note", updatedNote.name());
+        noteService.updateNote(changes, 1L, 4L);
+
+        verify(noteNameIndex, never()).add(any(), any());
+    }
+
+    /**
+     * Test to verify that in write-behind mode a description change is buffered instead of written.
+     */
+    @Test
+    void testUpdateNote_WhenWriteBehindIsEnabled_ThenBufferDescription() {
+        NoteDto changes = new NoteDto(null, null, "Autosaved", null);
+        NoteDto bufferedNote = new NoteDto(1L, "Sample Note", "Autosaved", null, 5L);
+        when(noteWriteBuffer.isEnabled()).thenReturn(true);
+        when(noteWriteBuffer.updateDescription(1L, "Autosaved", 4L)).thenReturn(bufferedNote);
+
+        NoteDto updatedNote = noteService.updateNote(changes, 1L, 4L);
+
+        assertEquals(bufferedNote, updatedNote);
+        verify(noteStore, never()).update(any(), any(), any(), any());
+        verify(eventPublisher).publishEvent(NoteChangedEvent.updated(bufferedNote));
+    }
+
+    /**
+     * Test to verify that getNoteById answers with the buffered state of a note without reading the store.
+     */
+    @Test
+    void testGetNoteById_WhenNoteIsBuffered_ThenReturnBufferedState() {
+        when(noteWriteBuffer.pending(1L)).thenReturn(Optional.of(noteDto));
+
+        assertEquals(noteDto, noteService.getNoteById(1L));
+        verify(noteStore, never()).findById(any());
+    }
+
+    /**
+     * Test to verify that updateNote refuses to apply changes based on an outdated version.
+     */
+    @Test
+    void testUpdateNote_WhenExpectedVersionIsOutdated_ThenThrowException() {
+        when(noteStore.update(1L, "Sample Note", "This is a sample note.", 2L)).thenReturn(Optional.empty());
+        when(noteStore.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        Exception exception = assertThrows(OptimisticLockingFailureException.class, () -> noteService.updateNote(noteDto, 1L, 2L));
+
+        assertEquals("Note with id: 1 has version 3 instead of 2", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     /**
@@ -143,22 +448,49 @@ class NoteServiceTest {
      */
     @Test
     void testUpdateNote_WhenNoteDoesNotExist_ThenThrowException() {
-        when(notesRepository.findNoteById(anyLong())).thenReturn(Optional.empty());
+        when(noteStore.update(anyLong(), any(), any(), any())).thenReturn(Optional.empty());
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> noteService.updateNote(noteDto, 1L));
+        Exception exception = assertThrows(NoteNotFoundException.class, () -> noteService.updateNote(noteDto, 1L, null));
 
         assertEquals("Cannot find note with such id: 1", exception.getMessage());
     }
 
+    /**
+     * Test to verify that updateNote turns a unique constraint violation into a duplicate name error.
+     */
+    @Test
+    void testUpdateNote_WhenNameIsTaken_ThenThrowException() {
+        when(noteStore.update(1L, "Sample Note", "This is a sample note.", null))
+                .thenThrow(new DataIntegrityViolationException("uk_note_name"));
+
+        Exception exception = assertThrows(NoteConflictException.class, () -> noteService.updateNote(noteDto, 1L, null));
+
+        assertEquals("Note with such name: Sample Note already exists", exception.getMessage());
+    }
+
+    /**
+     * Test to verify that updateNote without any field to change returns the note as it is, checking the expected version.
+     */
+    @Test
+    void testUpdateNote_WhenNoFieldsGiven_ThenReturnCurrentNote() {
+        NoteDto noChanges = new NoteDto(null, null, null, null);
+        when(noteStore.findById(1L)).thenReturn(Optional.of(noteDto));
+
+        assertEquals(noteDto, noteService.updateNote(noChanges, 1L, null));
+        assertThrows(OptimisticLockingFailureException.class, () -> noteService.updateNote(noChanges, 1L, 7L));
+        verify(noteStore, never()).update(any(), any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     /**
      * Test to verify that deleteById completes without throwing an exception when the note exists.
      */
     @Test
     void testDeleteById_WhenNoteExists_ThenSuccess() {
-        when(notesRepository.existsNoteById(1L)).thenReturn(true);
-        doNothing().when(notesRepository).deleteById(1L);
+        when(noteStore.delete(1L)).thenReturn(true);
 
         assertDoesNotThrow(() -> noteService.deleteById(1L));
+        verify(eventPublisher).publishEvent(NoteChangedEvent.deleted(1L));
     }
 
     /**
@@ -166,10 +498,37 @@ class NoteServiceTest {
      */
     @Test
     void testDeleteById_WhenNoteDoesNotExist_ThenThrowException() {
-        when(notesRepository.existsNoteById(anyLong())).thenReturn(false);
+        when(noteStore.delete(anyLong())).thenReturn(false);
 
-        Exception exception = assertThrows(NoSuchElementException.class, () -> noteService.deleteById(1L));
+        Exception exception = assertThrows(NoteNotFoundException.class, () -> noteService.deleteById(1L));
 
         assertEquals("Cannot find note with such id: 1", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    /**
+     * Test to verify that deleteByIds deletes the existing notes once each and reports the missing ids.
+     */
+    @Test
+    void testDeleteByIds_WhenSomeNotesDoNotExist_ThenReportNotFound() {
+        when(noteStore.deleteAll(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+        NoteDeleteResult result = noteService.deleteByIds(List.of(1L, 2L, 3L, 1L));
+
+        assertEquals(2, result.deleted());
+        assertEquals(List.of(2L), result.notFound());
+        verify(eventPublisher).publishEvent(NoteChangedEvent.deleted(1L));
+        verify(eventPublisher).publishEvent(NoteChangedEvent.deleted(3L));
+    }
+
+    /**
+     * Test to verify that deleteByIds refuses requests above the bulk delete limit.
+     */
+    @Test
+    void testDeleteByIds_WhenTooManyIds_ThenThrowException() {
+        List<Long> ids = LongStream.rangeClosed(1, NoteService.MAX_BULK_DELETE + 1).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> noteService.deleteByIds(ids));
+        verify(noteStore, never()).deleteAll(any());
     }
 }
@@ -0,0 +1,120 @@
+package org.nazar.notesbackend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteChanges;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.exception.SyncTokenExpiredException;
+import org.nazar.notesbackend.store.InMemoryNoteStore;
+import org.nazar.notesbackend.store.InMemoryTransactionManager;
+import org.nazar.notesbackend.store.NoteStore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the NoteSyncService class on an InMemoryNoteStore.
+ */
+class NoteSyncServiceTest {
+    private NoteStore noteStore;
+
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Set up an empty store.
+     */
+    @BeforeEach
+    void setUp() {
+        noteStore = new InMemoryNoteStore();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    /**
+     * Test to verify that a full sync pages through all notes and the next sync returns only what changed since.
+     */
+    @Test
+    void testGetChanges_WhenSyncedAgain_ThenReturnOnlyChangesSinceLastSync() {
+        NoteSyncService noteSyncService = syncService(Duration.ofDays(7), Duration.ZERO);
+        List<NoteDto> created = noteStore.createAll(List.of(note("First"), note("Second"), note("Third")));
+        awaitNextMillisecond(created.getLast().updatedAt());
+
+        NoteChanges firstPage = noteSyncService.getChanges("", 2);
+        NoteChanges lastPage = noteSyncService.getChanges(firstPage.nextSince(), 2);
+
+        assertEquals(created.subList(0, 2), firstPage.notes());
+        assertTrue(firstPage.hasMore());
+        assertEquals(List.of(created.get(2)), lastPage.notes());
+        assertEquals(List.of(), lastPage.deletedIds());
+        assertFalse(lastPage.hasMore());
+
+        awaitNextMillisecond(NoteStore.currentTimestamp());
+        NoteDto updated = noteStore.update(created.get(1).id(), null, "Changed", null).orElseThrow();
+        noteStore.delete(created.get(0).id());
+
+        NoteChanges delta = noteSyncService.getChanges(lastPage.nextSince(), 50);
+
+        assertEquals(List.of(updated), delta.notes());
+        assertEquals(List.of(created.get(0).id()), delta.deletedIds());
+        assertFalse(delta.hasMore());
+    }
+
+    /**
+     * Test to verify that a token older than the tombstone retention is rejected.
+     */
+    @Test
+    void testGetChanges_WhenTokenIsOlderThanRetention_ThenThrowException() {
+        NoteSyncService noteSyncService = syncService(Duration.ZERO, Duration.ZERO);
+        String since = noteSyncService.getChanges("", 50).nextSince();
+        awaitNextMillisecond(NoteStore.currentTimestamp());
+
+        assertThrows(SyncTokenExpiredException.class, () -> noteSyncService.getChanges(since, 50));
+    }
+
+    /**
+     * Test to verify that a token not handed out by the service is refused.
+     */
+    @Test
+    void testGetChanges_WhenTokenIsInvalid_ThenThrowException() {
+        NoteSyncService noteSyncService = syncService(Duration.ofDays(7), Duration.ZERO);
+
+        assertThrows(IllegalArgumentException.class, () -> noteSyncService.getChanges("not a token", 50));
+    }
+
+    /**
+     * Test to verify that tombstones older than the retention are purged and counted.
+     */
+    @Test
+    void testPurgeTombstones_WhenTombstonesExpired_ThenRemoveAndCountThem() {
+        NoteSyncService noteSyncService = syncService(Duration.ZERO, Duration.ZERO);
+        NoteDto created = noteStore.create(note("First"));
+        noteStore.delete(created.id());
+        awaitNextMillisecond(NoteStore.currentTimestamp());
+
+        assertEquals(1, noteSyncService.purgeTombstones());
+        assertEquals(0, noteSyncService.purgeTombstones());
+        assertEquals(1.0, meterRegistry.get(NoteSyncService.PURGED_COUNTER).counter().count());
+    }
+
+    private NoteSyncService syncService(Duration retention, Duration overlap) {
+        return new NoteSyncService(noteStore, new InMemoryTransactionManager(), meterRegistry, retention, overlap,
+                Duration.ofHours(1));
+    }
+
+    private static void awaitNextMillisecond(Instant time) {
+        while (!NoteStore.currentTimestamp().isAfter(time)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static NoteDto note(String name) {
+        return new NoteDto(null, name, "Description of " + name, null);
+    }
+}
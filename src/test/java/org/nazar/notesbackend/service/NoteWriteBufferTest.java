@@ -0,0 +1,204 @@
+package org.nazar.notesbackend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.nazar.notesbackend.config.NoteCacheConfig;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.event.NoteChangeCounter;
+import org.nazar.notesbackend.event.NoteChangedEvent;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.store.NoteStore;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the NoteWriteBuffer class using Mockito.
+ */
+@ExtendWith(MockitoExtension.class)
+class NoteWriteBufferTest {
+    @Mock
+    private NoteStore noteStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CacheManager cacheManager;
+
+    private MeterRegistry meterRegistry;
+
+    private NoteWriteBuffer noteWriteBuffer;
+
+    /**
+     * Set up a buffer that is never flushed on its own.
+     */
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new ConcurrentMapCacheManager(NoteCacheConfig.NOTES_CACHE);
+        noteWriteBuffer = new NoteWriteBuffer(noteStore, transactionManager, cacheManager, eventPublisher, new NoteChangeCounter(),
+                meterRegistry, true, Duration.ofHours(1), 1000);
+        lenient().when(noteStore.findById(1L)).thenReturn(Optional.of(new NoteDto(1L, "Draft", "First", LocalDate.now(), 3L)));
+        lenient().when(noteStore.writeDescription(anyLong(), any(), anyLong())).thenReturn(true);
+    }
+
+    /**
+     * Test to verify that successive updates are coalesced into one write of the latest state and version.
+     */
+    @Test
+    void testFlush_WhenNoteWasUpdatedSeveralTimes_ThenWriteLatestStateOnce() {
+        noteWriteBuffer.updateDescription(1L, "Second", null);
+        noteWriteBuffer.updateDescription(1L, "Third", 4L);
+        NoteDto latest = noteWriteBuffer.updateDescription(1L, "Fourth", null);
+
+        assertEquals(6L, latest.version());
+        assertEquals(Optional.of(latest), noteWriteBuffer.pending(1L));
+        assertEquals(1.0, meterRegistry.get(NoteWriteBuffer.DEPTH_GAUGE).gauge().value());
+
+        noteWriteBuffer.flush();
+
+        verify(noteStore, times(1)).findById(1L);
+        verify(noteStore).writeDescription(1L, "Fourth", 6L);
+        assertTrue(noteWriteBuffer.pending(1L).isEmpty());
+        assertEquals(3.0, meterRegistry.get(NoteWriteBuffer.UPDATES_COUNTER).counter().count());
+        assertEquals(1.0, meterRegistry.get(NoteWriteBuffer.WRITES_COUNTER).counter().count());
+    }
+
+    /**
+     * Test to verify that a description buffered on a version another write already reached is applied on top of it.
+     */
+    @Test
+    void testFlush_WhenNoteMovedPastBufferedVersion_ThenReapplyDescription() {
+        noteWriteBuffer.updateDescription(1L, "Second", null);
+        NoteDto reappliedNote = new NoteDto(1L, "Renamed", "Second", LocalDate.now(), 5L);
+        when(noteStore.writeDescription(1L, "Second", 4L)).thenReturn(false);
+        when(noteStore.update(1L, null, "Second", null)).thenReturn(Optional.of(reappliedNote));
+
+        noteWriteBuffer.flush();
+
+        assertTrue(noteWriteBuffer.pending(1L).isEmpty());
+        assertEquals(reappliedNote, cacheManager.getCache(NoteCacheConfig.NOTES_CACHE).get(1L, NoteDto.class));
+        verify(eventPublisher).publishEvent(NoteChangedEvent.updated(reappliedNote));
+    }
+
+    /**
+     * Test to verify that a description update waits for a bypassing update of the note to complete and applies on top of it.
+     */
+    @Test
+    void testUpdateDescription_WhenBypassingUpdateIsInFlight_ThenBufferOnTopOfIt() throws Exception {
+        AtomicReference<NoteDto> storedNote = new AtomicReference<>(new NoteDto(1L, "Draft", "First", LocalDate.now(), 3L));
+        CountDownLatch read = new CountDownLatch(1);
+        when(noteStore.findById(1L)).thenAnswer(invocation -> {
+            read.countDown();
+            return Optional.of(storedNote.get());
+        });
+
+        CountDownLatch bypassing = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        CompletableFuture<NoteDto> renamedNote = CompletableFuture.supplyAsync(() -> noteWriteBuffer.bypass(1L, () -> {
+            bypassing.countDown();
+            awaitQuietly(commit);
+            storedNote.set(new NoteDto(1L, "Renamed", "First", LocalDate.now(), 4L));
+            return storedNote.get();
+        }));
+        assertTrue(bypassing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<NoteDto> bufferedNote = CompletableFuture.supplyAsync(
+                () -> noteWriteBuffer.updateDescription(1L, "Second", null));
+        assertTrue(read.await(5, TimeUnit.SECONDS));
+
+        commit.countDown();
+
+        assertEquals(4L, renamedNote.get(5, TimeUnit.SECONDS).version());
+        NoteDto note = bufferedNote.get(5, TimeUnit.SECONDS);
+        assertEquals("Renamed", note.name());
+        assertEquals("Second", note.description());
+        assertEquals(5L, note.version());
+    }
+
+    /**
+     * Test to verify that a buffered update based on an outdated version is refused.
+     */
+    @Test
+    void testUpdateDescription_WhenExpectedVersionIsOutdated_ThenThrowException() {
+        noteWriteBuffer.updateDescription(1L, "Second", 3L);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> noteWriteBuffer.updateDescription(1L, "Third", 3L));
+        assertEquals("Second", noteWriteBuffer.pending(1L).orElseThrow().description());
+    }
+
+    /**
+     * Test to verify that updating a note that does not exist fails without buffering anything.
+     */
+    @Test
+    void testUpdateDescription_WhenNoteDoesNotExist_ThenThrowException() {
+        when(noteStore.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(NoteNotFoundException.class, () -> noteWriteBuffer.updateDescription(2L, "Lost", null));
+        assertTrue(noteWriteBuffer.pending(2L).isEmpty());
+    }
+
+    /**
+     * Test to verify that the pending changes of a deleted note are dropped instead of written.
+     */
+    @Test
+    void testOnNoteChanged_WhenNoteIsDeleted_ThenDropPendingChanges() {
+        noteWriteBuffer.updateDescription(1L, "Second", null);
+
+        noteWriteBuffer.onNoteChanged(NoteChangedEvent.deleted(1L));
+        noteWriteBuffer.flush();
+
+        verify(noteStore, never()).writeDescription(anyLong(), any(), anyLong());
+    }
+
+    /**
+     * Test to verify that stopping the buffer writes everything still pending.
+     */
+    @Test
+    void testStop_WhenNotesArePending_ThenFlush() {
+        noteWriteBuffer.start();
+        noteWriteBuffer.updateDescription(1L, "Second", null);
+
+        noteWriteBuffer.stop();
+
+        verify(noteStore).writeDescription(1L, "Second", 4L);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.nazar.notesbackend.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the NoteStore contract against a durable InMemoryNoteStore and checks recovery after a restart.
+ */
+class DurableNoteStoreTest extends NoteStoreContractTest {
+    @TempDir
+    private Path directory;
+
+    private InMemoryNoteStore store;
+
+    /**
+     * Set up an empty durable store in a fresh directory.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        store = InMemoryNoteStore.open(directory, true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Override
+    NoteStore store() {
+        return store;
+    }
+
+    /**
+     * Test to verify that a restart replays creates, updates and deletes from the log alone.
+     */
+    @Test
+    void testOpen_WhenOnlyLogExists_ThenReplayChanges() throws IOException {
+        List<NoteDto> created = store.createAll(List.of(note("First"), note("Second"), note("Third")));
+        NoteDto renamed = store.update(created.get(0).id(), "Renamed", "Changed", 0L).orElseThrow();
+        store.delete(created.get(1).id());
+
+        InMemoryNoteStore reopened = reopen();
+
+        assertEquals(List.of(renamed, created.get(2)), reopened.findAll());
+        assertTrue(reopened.existsByName("Renamed"));
+        assertFalse(reopened.existsByName("First"));
+        assertEquals(4L, reopened.create(note("Fourth")).id());
+    }
+
+    /**
+     * Test to verify that a restart loads the snapshot, replays only the log written after it and that the snapshot
+     * replaced the older log segments.
+     */
+    @Test
+    void testOpen_WhenSnapshotExists_ThenLoadSnapshotAndReplayTail() throws IOException {
+        List<NoteDto> created = store.createAll(IntStream.range(0, 100).mapToObj(i -> note("Note " + i)).toList());
+        store.snapshot();
+        NoteDto updated = store.update(created.get(5).id(), null, "After snapshot", null).orElseThrow();
+        store.delete(created.get(99).id());
+
+        assertEquals(1, NoteWriteAheadLog.segments(directory).size());
+
+        InMemoryNoteStore reopened = reopen();
+
+        assertEquals(99, reopened.findAll().size());
+        assertEquals(updated, reopened.findById(created.get(5).id()).orElseThrow());
+        assertEquals(101L, reopened.create(note("Next")).id());
+    }
+
+    /**
+     * Test to verify that tombstones survive a restart, both from the snapshot and from the log written after it.
+     */
+    @Test
+    void testOpen_WhenNotesWereDeleted_ThenRecoverTombstones() throws IOException {
+        List<NoteDto> created = store.createAll(List.of(note("First"), note("Second"), note("Third")));
+        Instant before = NoteStore.currentTimestamp().minusMillis(1);
+        store.delete(created.get(0).id());
+        store.snapshot();
+        store.delete(created.get(1).id());
+        Instant after = NoteStore.currentTimestamp().plusMillis(1);
+
+        InMemoryNoteStore reopened = reopen();
+
+        assertEquals(List.of(created.get(0).id(), created.get(1).id()),
+                reopened.findDeletedBetween(before, after).stream().sorted().toList());
+        assertEquals(List.of(created.get(2)), reopened.findChangedAfter(Instant.EPOCH, 0L, 10));
+    }
+
+    /**
+     * Test to verify that a record cut short by a crash is dropped while every complete record is recovered.
+     */
+    @Test
+    void testOpen_WhenLastRecordIsTorn_ThenRecoverCompleteRecords() throws IOException {
+        store.create(note("Complete"));
+        store.create(note("Torn"));
+        store.close();
+        Path segment = NoteWriteAheadLog.segments(directory).getLast();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 3);
+        }
+
+        store = InMemoryNoteStore.open(directory, true);
+
+        assertEquals(List.of("Complete"), store.findAll().stream().map(NoteDto::name).toList());
+        assertTrue(store.create(note("Torn")).id() > 1L);
+    }
+
+    /**
+     * Test to verify that concurrent writers share fsyncs instead of paying one each.
+     */
+    @Test
+    void testCreate_WhenWritersRunConcurrently_ThenGroupCommits() throws Exception {
+        int writers = 32;
+        int notesPerWriter = 50;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int writer = 0; writer < writers; writer++) {
+                int current = writer;
+                executor.submit(() -> IntStream.range(0, notesPerWriter).forEach(i -> store.create(note(current + "-" + i))));
+            }
+        }
+
+        NoteWriteAheadLog log = store.writeAheadLog().orElseThrow();
+        assertEquals(writers * notesPerWriter, log.appendedRecords());
+        assertTrue(log.syncs() < log.appendedRecords(), "syncs: " + log.syncs());
+        assertEquals(writers * notesPerWriter, reopen().findAll().size());
+    }
+
+    private InMemoryNoteStore reopen() throws IOException {
+        store.close();
+        store = InMemoryNoteStore.open(directory, true);
+        return store;
+    }
+
+    private static NoteDto note(String name) {
+        return new NoteDto(null, name, "Description of " + name, null);
+    }
+}
@@ -0,0 +1,23 @@
+package org.nazar.notesbackend.store;
+
+import org.junit.jupiter.api.BeforeEach;
+
+/**
+ * Runs the NoteStore contract against the InMemoryNoteStore.
+ */
+class InMemoryNoteStoreTest extends NoteStoreContractTest {
+    private NoteStore store;
+
+    /**
+     * Set up an empty store.
+     */
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryNoteStore();
+    }
+
+    @Override
+    NoteStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,65 @@
+package org.nazar.notesbackend.store;
+
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.config.NoteCacheConfig;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.exception.NoteConflictException;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for the application running on the in-memory store, without any database.
+ */
+@SpringBootTest
+@ActiveProfiles("in-memory")
+class InMemoryStoreApplicationTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Test to verify that the in-memory profile starts without a DataSource and serves notes from the heap.
+     */
+    @Test
+    void testContext_WhenInMemoryProfileIsActive_ThenUseInMemoryStore() {
+        assertInstanceOf(InMemoryNoteStore.class, context.getBean(NoteStore.class));
+        assertTrue(context.getBeansOfType(DataSource.class).isEmpty());
+    }
+
+    /**
+     * Test to verify that service operations, duplicate name checks and cache updates work on the in-memory store.
+     */
+    @Test
+    void testNoteLifecycle_WhenInMemoryProfileIsActive_ThenBehaveLikeDatabase() {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Heap Note", "Kept in memory", null));
+        assertThrows(NoteConflictException.class,
+                () -> noteService.createNote(new NoteDto(null, "Heap Note", "Same name", null)));
+
+        NoteDto updated = noteService.updateNote(new NoteDto(null, null, "Still in memory", null), created.id(), 0L);
+        assertEquals(1L, updated.version());
+        assertEquals(updated, noteService.getNoteById(created.id()));
+
+        noteService.deleteById(created.id());
+        assertNull(cacheManager.getCache(NoteCacheConfig.NOTES_CACHE).get(created.id()));
+        assertThrows(NoteNotFoundException.class, () -> noteService.getNoteById(created.id()));
+    }
+}
@@ -0,0 +1,55 @@
+package org.nazar.notesbackend.store;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.config.JpaConfig;
+import org.nazar.notesbackend.mapper.NoteMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the NoteStore contract against the JpaNoteStore on an embedded database, rolled back after every test.
+ */
+@DataJpaTest
+@Import({JpaNoteStore.class, NoteMapper.class, JpaConfig.class})
+class JpaNoteStoreTest extends NoteStoreContractTest {
+    @Autowired
+    private JpaNoteStore store;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Override
+    NoteStore store() {
+        return store;
+    }
+
+    /**
+     * A refused flush leaves the session unusable, so the test transaction is rolled back as the service's would be.
+     */
+    @Override
+    void afterFailedWrite() {
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+        TestTransaction.start();
+    }
+
+    /**
+     * Test to verify that the delta sync query is served by a range scan on the updatedAt index, not a table scan.
+     */
+    @Test
+    void testFindChangedAfter_WhenExplained_ThenUseUpdatedAtIndex() {
+        String plan = (String) entityManager.createNativeQuery("explain select id from note"
+                        + " where updated_at >= timestamp with time zone '2024-01-01 00:00:00Z'"
+                        + " and (updated_at > timestamp with time zone '2024-01-01 00:00:00Z' or id > 5)"
+                        + " order by updated_at, id")
+                .getSingleResult();
+
+        assertTrue(plan.toUpperCase().contains("IDX_NOTE_UPDATED_AT"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+}
@@ -0,0 +1,272 @@
+package org.nazar.notesbackend.store;
+
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NoteSummary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour every NoteStore engine must share, run against each engine by its subclass.
+ * Spring looks for @Transactional on the class declaring the test methods, so it sits here; subclasses running
+ * without a Spring context ignore it.
+ */
+@Transactional
+abstract class NoteStoreContractTest {
+
+    /**
+     * @return the empty store under test.
+     */
+    abstract NoteStore store();
+
+    /**
+     * Called after a write the store refused, before the test reads the store again.
+     */
+    void afterFailedWrite() {
+    }
+
+    /**
+     * Test to verify that create assigns an id, the creation date and the initial version.
+     */
+    @Test
+    void testCreate_WhenNameIsUnique_ThenAssignIdDateAndVersion() {
+        NoteDto created = store().create(note("First"));
+
+        assertNotNull(created.id());
+        assertEquals(LocalDate.now(), created.createdAt());
+        assertEquals(0L, created.version());
+        assertEquals(Optional.of(created), store().findById(created.id()));
+        assertEquals(Optional.of(0L), store().findVersionById(created.id()));
+    }
+
+    /**
+     * Test to verify that create refuses a name that is already taken.
+     */
+    @Test
+    void testCreate_WhenNameIsTaken_ThenThrowException() {
+        store().create(note("First"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> store().create(note("First")));
+    }
+
+    /**
+     * Test to verify that a batch whose name clash comes partway through leaves none of its notes behind.
+     */
+    @Test
+    void testCreateAll_WhenNameIsTakenMidBatch_ThenCreateNothing() {
+        store().create(note("Taken"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> store().createAll(List.of(note("Before"), note("Taken"), note("After"))));
+        afterFailedWrite();
+
+        assertEquals(List.of(), store().findExistingNames(List.of("Before", "After")));
+        assertEquals(2, store().createAll(List.of(note("Before"), note("After"))).size());
+    }
+
+    /**
+     * Test to verify that reads of a missing note come back empty.
+     */
+    @Test
+    void testFindById_WhenNoteDoesNotExist_ThenReturnEmpty() {
+        assertTrue(store().findById(404L).isEmpty());
+        assertTrue(store().findVersionById(404L).isEmpty());
+    }
+
+    /**
+     * Test to verify that notes are listed, paged and streamed in id order.
+     */
+    @Test
+    void testFindPage_WhenNotesExist_ThenReturnNotesAfterIdInOrder() {
+        List<NoteDto> created = store().createAll(List.of(note("First"), note("Second"), note("Third")));
+
+        assertEquals(created, store().findAll());
+        assertEquals(created.subList(0, 2), store().findPage(0L, 2));
+        assertEquals(created.subList(2, 3), store().findPage(created.get(1).id(), 2));
+        try (Stream<NoteDto> notes = store().streamAll()) {
+            assertEquals(created, notes.toList());
+        }
+    }
+
+    /**
+     * Test to verify that summaries page like findPage without descriptions, and that excerpts follow the description.
+     */
+    @Test
+    void testFindSummaryPage_WhenDescriptionIsLarge_ThenCutExcerpt() {
+        String large = "A description far longer than any excerpt. ".repeat(5000);
+        List<NoteDto> created = store().createAll(List.of(note("First"), new NoteDto(null, "Second", large, null), note("Third")));
+        NoteDto first = created.get(0);
+        NoteDto second = created.get(1);
+
+        assertEquals(large, store().findById(second.id()).orElseThrow().description());
+        assertEquals(List.of(new NoteSummary(first.id(), "First", first.createdAt()), new NoteSummary(second.id(), "Second", second.createdAt())),
+                store().findSummaryPage(0L, 2, false));
+        assertEquals(List.of(new NoteSummary(second.id(), "Second", second.createdAt(), large.substring(0, NoteSummary.EXCERPT_LENGTH)),
+                        new NoteSummary(created.get(2).id(), "Third", created.get(2).createdAt(), "Description of Third")),
+                store().findSummaryPage(first.id(), 2, true));
+
+        store().update(second.id(), null, "Short again", null);
+        assertEquals("Short again", store().findSummaryPage(first.id(), 1, true).getFirst().excerpt());
+    }
+
+    /**
+     * Test to verify that an excerpt ending in the middle of a surrogate pair leaves the whole pair out.
+     */
+    @Test
+    void testFindSummaryPage_WhenCutSplitsSurrogatePair_ThenKeepPairWhole() {
+        String head = "a".repeat(NoteSummary.EXCERPT_LENGTH - 1);
+        NoteDto created = store().create(new NoteDto(null, "Emoji", head + "\uD83D\uDE00 and more", null));
+
+        assertEquals(head, store().findSummaryPage(created.id() - 1, 1, true).getFirst().excerpt());
+        assertEquals(head, NoteSummary.excerptOf(created.description()));
+    }
+
+    /**
+     * Test to verify that lookups by ids and names only return what exists.
+     */
+    @Test
+    void testFindAllById_WhenSomeNotesDoNotExist_ThenReturnExistingOnly() {
+        NoteDto created = store().create(note("First"));
+
+        assertEquals(List.of(created), store().findAllById(List.of(created.id(), 404L)));
+        assertTrue(store().existsByName("First"));
+        assertFalse(store().existsByName("Second"));
+        assertEquals(List.of("First"), store().findExistingNames(List.of("First", "Second")));
+    }
+
+    /**
+     * Test to verify that update changes only the given fields and moves the version.
+     */
+    @Test
+    void testUpdate_WhenOnlyDescriptionGiven_ThenKeepNameAndIncrementVersion() {
+        NoteDto created = store().create(note("First"));
+
+        NoteDto updated = store().update(created.id(), null, "Changed", 0L).orElseThrow();
+
+        assertEquals("First", updated.name());
+        assertEquals("Changed", updated.description());
+        assertEquals(1L, updated.version());
+        assertEquals(Optional.of(updated), store().findById(created.id()));
+    }
+
+    /**
+     * Test to verify that update does nothing when the note moved past the expected version or does not exist.
+     */
+    @Test
+    void testUpdate_WhenExpectedVersionIsOutdated_ThenReturnEmpty() {
+        NoteDto created = store().create(note("First"));
+
+        assertTrue(store().update(created.id(), "Renamed", null, 3L).isEmpty());
+        assertTrue(store().update(404L, "Renamed", null, null).isEmpty());
+        assertEquals(Optional.of(created), store().findById(created.id()));
+    }
+
+    /**
+     * Test to verify that a rename frees the old name and takes the new one.
+     */
+    @Test
+    void testUpdate_WhenRenamed_ThenReleasePreviousName() {
+        NoteDto created = store().create(note("First"));
+
+        store().update(created.id(), "Renamed", null, null);
+
+        assertFalse(store().existsByName("First"));
+        assertTrue(store().existsByName("Renamed"));
+        assertNotNull(store().create(note("First")).id());
+    }
+
+    /**
+     * Test to verify that renaming to a taken name is refused.
+     */
+    @Test
+    void testUpdate_WhenNameIsTaken_ThenThrowException() {
+        store().create(note("First"));
+        NoteDto second = store().create(note("Second"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> store().update(second.id(), "First", null, null));
+    }
+
+    /**
+     * Test to verify that writeDescription only ever moves a note to a newer version.
+     */
+    @Test
+    void testWriteDescription_WhenVersionIsNotNewer_ThenSkip() {
+        NoteDto created = store().create(note("First"));
+
+        assertTrue(store().writeDescription(created.id(), "Buffered", 2L));
+        assertFalse(store().writeDescription(created.id(), "Older", 1L));
+
+        NoteDto written = store().findById(created.id()).orElseThrow();
+        assertEquals("Buffered", written.description());
+        assertEquals(2L, written.version());
+    }
+
+    /**
+     * Test to verify that deletes report which notes existed and free their names.
+     */
+    @Test
+    void testDelete_WhenNotesExist_ThenReportDeleted() {
+        List<NoteDto> created = store().createAll(List.of(note("First"), note("Second"), note("Third")));
+
+        assertTrue(store().delete(created.get(0).id()));
+        assertFalse(store().delete(created.get(0).id()));
+        assertEquals(List.of(created.get(2).id()), store().deleteAll(List.of(created.get(2).id(), 404L)));
+        assertEquals(List.of(created.get(1)), store().findAll());
+        assertFalse(store().existsByName("First"));
+    }
+
+    /**
+     * Test to verify that changed notes are found after a position in update order, each at its latest update time.
+     */
+    @Test
+    void testFindChangedAfter_WhenNoteIsUpdated_ThenReturnItAfterUntouchedNotes() {
+        List<NoteDto> created = store().createAll(List.of(note("First"), note("Second"), note("Third")));
+        awaitNextMillisecond(created.getLast().updatedAt());
+        NoteDto updated = store().update(created.get(0).id(), null, "Changed", null).orElseThrow();
+
+        assertEquals(List.of(created.get(1), created.get(2), updated), store().findChangedAfter(Instant.EPOCH, 0L, 10));
+        assertEquals(List.of(created.get(1)), store().findChangedAfter(Instant.EPOCH, 0L, 1));
+        assertEquals(List.of(updated),
+                store().findChangedAfter(created.getLast().updatedAt(), created.getLast().id(), 10));
+        assertTrue(updated.updatedAt().isAfter(created.get(0).updatedAt()));
+    }
+
+    /**
+     * Test to verify that deletes leave tombstones found by deletion time until they are purged.
+     */
+    @Test
+    void testFindDeletedBetween_WhenNotesAreDeleted_ThenReturnTombstonesUntilPurged() {
+        List<NoteDto> created = store().createAll(List.of(note("First"), note("Second")));
+        Instant before = created.getLast().updatedAt().minusMillis(1);
+        store().delete(created.get(0).id());
+        Instant after = NoteStore.currentTimestamp().plusMillis(1);
+
+        assertEquals(List.of(created.get(0).id()), store().findDeletedBetween(before, after));
+        assertEquals(List.of(), store().findDeletedBetween(after, after.plusSeconds(1)));
+        assertEquals(0, store().purgeTombstones(before));
+        assertEquals(1, store().purgeTombstones(after));
+        assertEquals(List.of(), store().findDeletedBetween(before, after));
+    }
+
+    private static void awaitNextMillisecond(Instant time) {
+        while (!NoteStore.currentTimestamp().isAfter(time)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static NoteDto note(String name) {
+        return new NoteDto(null, name, "Description of " + name, null);
+    }
+}
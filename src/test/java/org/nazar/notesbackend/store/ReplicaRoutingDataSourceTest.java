@@ -0,0 +1,131 @@
+package org.nazar.notesbackend.store;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the ReplicaRoutingDataSource over in-memory H2 databases, telling the databases apart by their urls.
+ */
+class ReplicaRoutingDataSourceTest {
+    private final String prefix = "jdbc:h2:mem:routing_" + UUID.randomUUID() + "_";
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRoutingDataSource.unpin();
+        routingDataSource.close();
+    }
+
+    /**
+     * Test to verify that connections outside of read-only transactions come from the primary.
+     */
+    @Test
+    void testGetConnection_WhenNotReadOnly_ThenUsePrimary() throws SQLException {
+        routingDataSource = routing(2, ReplicaRoutingDataSource.Balancing.ROUND_ROBIN);
+
+        assertEquals(List.of("primary", "primary"), List.of(connect(), connect()));
+        assertFalse(ReplicaRoutingDataSource.lastReadFromReplica());
+        assertEquals(2, routingDataSource.connectionsServed("notes-primary"));
+    }
+
+    /**
+     * Test to verify that read-only transactions take turns on the replicas and the load split is counted per pool.
+     */
+    @Test
+    void testGetConnection_WhenReadOnly_ThenRoundRobinOverReplicas() throws SQLException {
+        routingDataSource = routing(2, ReplicaRoutingDataSource.Balancing.ROUND_ROBIN);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        List<String> databases = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            databases.add(connect());
+        }
+
+        assertEquals(List.of("replica_0", "replica_1", "replica_0", "replica_1"), databases);
+        assertTrue(ReplicaRoutingDataSource.lastReadFromReplica());
+        assertEquals(0, routingDataSource.connectionsServed("notes-primary"));
+        assertEquals(2, routingDataSource.connectionsServed("notes-replica-0"));
+        assertEquals(2, routingDataSource.connectionsServed("notes-replica-1"));
+    }
+
+    /**
+     * Test to verify that a thread pinned to the primary reads from it, also within onPrimary, which restores the pin.
+     */
+    @Test
+    void testGetConnection_WhenPinnedToPrimary_ThenUsePrimary() throws SQLException {
+        routingDataSource = routing(1, ReplicaRoutingDataSource.Balancing.ROUND_ROBIN);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        String onPrimary = ReplicaRoutingDataSource.onPrimary(this::connectQuietly);
+        assertEquals("primary", onPrimary);
+        assertEquals("replica_0", connect());
+
+        ReplicaRoutingDataSource.pinToPrimary();
+        assertEquals("primary", connect());
+        assertFalse(ReplicaRoutingDataSource.lastReadFromReplica());
+        ReplicaRoutingDataSource.onPrimary(this::connectQuietly);
+        assertTrue(ReplicaRoutingDataSource.isPinnedToPrimary());
+    }
+
+    /**
+     * Test to verify that least-loaded balancing avoids a replica whose connections are in use.
+     */
+    @Test
+    void testGetConnection_WhenLeastLoaded_ThenSkipBusyReplica() throws SQLException {
+        routingDataSource = routing(2, ReplicaRoutingDataSource.Balancing.LEAST_LOADED);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        try (Connection busy = routingDataSource.replicas().get(0).getConnection()) {
+            List<String> databases = IntStream.range(0, 4).mapToObj(i -> connectQuietly()).toList();
+            assertEquals(List.of("replica_1", "replica_1", "replica_1", "replica_1"), databases);
+        }
+    }
+
+    private ReplicaRoutingDataSource routing(int replicaCount, ReplicaRoutingDataSource.Balancing balancing) {
+        List<DataSource> replicas = IntStream.range(0, replicaCount)
+                .<DataSource>mapToObj(replica -> pool("notes-replica-" + replica, "replica_" + replica))
+                .toList();
+        return new ReplicaRoutingDataSource(pool("notes-primary", "primary"), replicas, balancing);
+    }
+
+    private HikariDataSource pool(String poolName, String database) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setJdbcUrl(prefix + database);
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+
+    /**
+     * @return the name of the database the connection went to.
+     */
+    private String connect() throws SQLException {
+        try (Connection connection = routingDataSource.getConnection()) {
+            return connection.getMetaData().getURL().substring(prefix.length());
+        }
+    }
+
+    private String connectQuietly() {
+        try {
+            return connect();
+        } catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
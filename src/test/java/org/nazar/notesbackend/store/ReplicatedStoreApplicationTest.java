@@ -0,0 +1,164 @@
+package org.nazar.notesbackend.store;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.config.NoteCacheConfig;
+import org.nazar.notesbackend.config.ReplicaRoutingConfig;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.index.MissingNoteCache;
+import org.nazar.notesbackend.service.NoteService;
+import org.nazar.notesbackend.web.ReadYourWritesFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the JPA store with two H2 replicas, kept in sync by the NoteReplicator only when a test asks
+ * for it, so reads from the replicas visibly lag behind.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:app_replicated_primary;DB_CLOSE_ON_EXIT=FALSE",
+        "notes.replicas.enabled=true",
+        "notes.replicas.urls=jdbc:h2:mem:app_replica_0,jdbc:h2:mem:app_replica_1",
+        "notes.replicas.replicator.interval=1h"
+})
+@AutoConfigureMockMvc
+class ReplicatedStoreApplicationTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteReplicator noteReplicator;
+
+    @Autowired
+    private MissingNoteCache missingNoteCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Test to verify that read-only transactions see the replicas, which catch up with writes once replicated.
+     */
+    @Test
+    void testGetAllNotes_WhenReplicasLagBehind_ThenSeeChangesOnceReplicated() {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Replicated Note", "Written to the primary", null));
+        assertFalse(names(noteService.getAllNotes()).contains("Replicated Note"));
+        assertTrue(names(ReplicaRoutingDataSource.onPrimary(noteService::getAllNotes)).contains("Replicated Note"));
+
+        noteReplicator.replicate();
+        assertTrue(names(noteService.getAllNotes()).contains("Replicated Note"));
+
+        noteService.deleteById(created.id());
+        noteReplicator.replicate();
+        assertFalse(names(noteService.getAllNotes()).contains("Replicated Note"));
+        assertTrue(connections("notes-primary") > 0);
+        assertTrue(connections("notes-replica-0") + connections("notes-replica-1") >= 3);
+    }
+
+    /**
+     * Test to verify that a note not replicated yet is found on the primary and not remembered as missing.
+     */
+    @Test
+    void testGetNoteById_WhenNoteIsNotReplicatedYet_ThenFindOnPrimary() {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Fresh Note", "Not on the replicas yet", null));
+        cacheManager.getCache(NoteCacheConfig.NOTES_CACHE).evict(created.id());
+
+        assertEquals(created, noteService.getNoteById(created.id()));
+        assertEquals(created.version(), noteService.getNoteVersion(created.id()));
+        assertFalse(missingNoteCache.isMissing(created.id()));
+    }
+
+    /**
+     * Test to verify that a client reads its own writes through the cookie set on writes, while others read the replicas.
+     */
+    @Test
+    void testGetAll_WhenClientJustWrote_ThenReadFromPrimary() throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/v1/notes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Own Note\",\"description\":\"Read back right away\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Cookie cookie = created.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+
+        mockMvc.perform(get("/api/v1/notes").param("limit", "1000").cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes[*].name", hasItem("Own Note")));
+        mockMvc.perform(get("/api/v1/notes").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes[*].name", not(hasItem("Own Note"))));
+    }
+
+    /**
+     * Test to verify that a note read from a replica is not cached, while one read from the primary is.
+     */
+    @Test
+    void testGetNoteById_WhenReadFromReplica_ThenNotCached() {
+        NoteDto created = noteService.createNote(new NoteDto(null, "Uncached Note", "Read from a replica", null));
+        noteReplicator.replicate();
+        Cache notesCache = cacheManager.getCache(NoteCacheConfig.NOTES_CACHE);
+        notesCache.evict(created.id());
+
+        assertEquals(created, noteService.getNoteById(created.id()));
+        assertNull(notesCache.get(created.id()));
+        assertEquals(created, ReplicaRoutingDataSource.onPrimary(() -> noteService.getNoteById(created.id())));
+        assertNotNull(notesCache.get(created.id()));
+    }
+
+    /**
+     * Test to verify that only pages read from the primary carry the collection ETag.
+     */
+    @Test
+    void testGetAll_WhenReadFromReplica_ThenNoEtag() throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/v1/notes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Etag Note\",\"description\":\"Not replicated yet\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Cookie cookie = created.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+        mockMvc.perform(get("/api/v1/notes").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/v1/notes").param("limit", "1000").cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    private double connections(String pool) {
+        return meterRegistry.get(ReplicaRoutingConfig.CONNECTIONS_COUNTER).tag("pool", pool).functionCounter().count();
+    }
+
+    private static List<String> names(List<NoteDto> notes) {
+        return notes.stream().map(NoteDto::name).toList();
+    }
+}
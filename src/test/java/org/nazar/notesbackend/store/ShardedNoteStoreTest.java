@@ -0,0 +1,125 @@
+package org.nazar.notesbackend.store;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the NoteStore contract against a ShardedNoteStore over three in-memory H2 databases, and checks what only
+ * sharding brings: ids and names unique across shards and across nodes sharing the shards.
+ */
+class ShardedNoteStoreTest extends NoteStoreContractTest {
+    private static final int SHARDS = 3;
+
+    private List<DataSource> dataSources;
+
+    private ShardedNoteStore store;
+
+    /**
+     * Set up a store over fresh databases.
+     */
+    @BeforeEach
+    void setUp() {
+        String prefix = "jdbc:h2:mem:shard_" + UUID.randomUUID() + "_";
+        dataSources = IntStream.range(0, SHARDS).<DataSource>mapToObj(shard -> {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(prefix + shard);
+            dataSource.setMaximumPoolSize(4);
+            return dataSource;
+        }).toList();
+        store = new ShardedNoteStore(dataSources);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    @Override
+    NoteStore store() {
+        return store;
+    }
+
+    /**
+     * Test to verify that notes spread over every shard and come back merged in id order.
+     */
+    @Test
+    void testFindAll_WhenNotesSpreadOverShards_ThenMergeInIdOrder() {
+        List<NoteDto> created = store.createAll(IntStream.range(0, 30).mapToObj(i -> note("Note " + i)).toList());
+
+        Set<Integer> usedShards = created.stream().map(note -> store.shardOf(note.id())).collect(Collectors.toSet());
+        assertEquals(SHARDS, usedShards.size());
+        assertEquals(created, store.findAll());
+        assertEquals(created.subList(10, 15), store.findPage(created.get(9).id(), 5));
+        try (Stream<NoteDto> notes = store.streamAll()) {
+            assertEquals(created, notes.toList());
+        }
+    }
+
+    /**
+     * Test to verify that a batch with a taken name writes nothing and releases the names it claimed on other shards.
+     */
+    @Test
+    void testCreateAll_WhenOneNameIsTaken_ThenReleaseOtherClaims() {
+        store.create(note("Taken"));
+        List<NoteDto> batch = IntStream.range(0, 10).mapToObj(i -> note("New " + i)).collect(Collectors.toList());
+        batch.add(note("Taken"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> store.createAll(batch));
+
+        assertEquals(1, store.findAll().size());
+        assertEquals(List.of(), store.findExistingNames(List.of("New 0", "New 5", "New 9")));
+        assertEquals(10, store.createAll(batch.subList(0, 10)).size());
+    }
+
+    /**
+     * Test to verify that two nodes sharing the shards never hand out the same id and see each other's names.
+     */
+    @Test
+    void testCreate_WhenTwoNodesShareShards_ThenKeepIdsAndNamesUnique() {
+        ShardedNoteStore otherNode = new ShardedNoteStore(dataSources);
+
+        NoteDto first = store.create(note("First"));
+        NoteDto second = otherNode.create(note("Second"));
+
+        assertNotEquals(first.id(), second.id());
+        assertThrows(DataIntegrityViolationException.class, () -> otherNode.create(note("First")));
+        assertEquals(List.of(first, second), otherNode.findAll());
+    }
+
+    /**
+     * Test to verify that the name sweep frees a name whose release was lost, and keeps claims still held or too young.
+     */
+    @Test
+    void testSweepNames_WhenReleaseWasLost_ThenFreeName() {
+        NoteDto lost = store.create(note("Lost"));
+        store.create(note("Kept"));
+        new JdbcTemplate(dataSources.get(store.shardOf(lost.id()))).update("delete from note where id = ?", lost.id());
+
+        assertEquals(0, store.sweepNames(Instant.now().minusSeconds(60)));
+        assertEquals(1, store.sweepNames(Instant.now().plusSeconds(60)));
+        assertEquals(List.of("Kept"), store.findExistingNames(List.of("Lost", "Kept")));
+        assertEquals("Lost", store.create(note("Lost")).name());
+    }
+
+    private static NoteDto note(String name) {
+        return new NoteDto(null, name, "Description of " + name, null);
+    }
+}
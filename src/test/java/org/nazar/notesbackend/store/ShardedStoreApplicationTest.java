@@ -0,0 +1,71 @@
+package org.nazar.notesbackend.store;
+
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.entity.dto.NotePage;
+import org.nazar.notesbackend.exception.NoteConflictException;
+import org.nazar.notesbackend.exception.NoteNotFoundException;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for the application running on the sharded store over four in-memory H2 databases.
+ */
+@SpringBootTest(properties = "notes.store.sharded.urls=jdbc:h2:mem:app_shard_0,jdbc:h2:mem:app_shard_1,"
+        + "jdbc:h2:mem:app_shard_2,jdbc:h2:mem:app_shard_3")
+@ActiveProfiles("sharded")
+class ShardedStoreApplicationTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private NoteService noteService;
+
+    /**
+     * Test to verify that the sharded profile starts without the single DataSource and serves notes from the shards.
+     */
+    @Test
+    void testContext_WhenShardedProfileIsActive_ThenUseShardedStore() {
+        ShardedNoteStore noteStore = assertInstanceOf(ShardedNoteStore.class, context.getBean(NoteStore.class));
+        assertEquals(4, noteStore.shardCount());
+        assertTrue(context.getBeansOfType(DataSource.class).isEmpty());
+    }
+
+    /**
+     * Test to verify that service operations and paging across shards behave like the single database.
+     */
+    @Test
+    void testNoteLifecycle_WhenShardedProfileIsActive_ThenBehaveLikeDatabase() {
+        List<NoteDto> created = noteService.createNotes(IntStream.range(0, 12)
+                .mapToObj(i -> new NoteDto(null, "Sharded Note " + i, "Kept on a shard", null)).toList())
+                .items().stream().map(item -> item.note()).toList();
+        assertThrows(NoteConflictException.class,
+                () -> noteService.createNote(new NoteDto(null, "Sharded Note 3", "Same name", null)));
+
+        NotePage firstPage = noteService.getNotesPage(null, 5);
+        NotePage secondPage = noteService.getNotesPage(firstPage.nextCursor(), 5);
+        assertEquals(created.subList(0, 5), firstPage.notes());
+        assertEquals(created.subList(5, 10), secondPage.notes());
+
+        NoteDto updated = noteService.updateNote(new NoteDto(null, "Renamed", null, null), created.get(0).id(), 0L);
+        assertEquals(1L, updated.version());
+        assertEquals(updated, noteService.getNoteById(created.get(0).id()));
+        noteService.createNote(new NoteDto(null, "Sharded Note 0", "Freed by the rename", null));
+
+        noteService.deleteById(created.get(1).id());
+        assertThrows(NoteNotFoundException.class, () -> noteService.getNoteById(created.get(1).id()));
+    }
+}
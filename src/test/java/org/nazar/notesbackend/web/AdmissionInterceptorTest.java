@@ -0,0 +1,93 @@
+package org.nazar.notesbackend.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.nazar.notesbackend.advice.GlobalExceptionHandler;
+import org.nazar.notesbackend.entity.dto.NoteDto;
+import org.nazar.notesbackend.service.NoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Integration tests for admission control, running against the embedded web server with a single write slot.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "notes.admission.writes.max-concurrent=1",
+        "notes.admission.writes.max-queue=0",
+        "notes.admission.retry-after=2s"})
+class AdmissionInterceptorTest {
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private NoteService noteService;
+
+    /**
+     * Test to verify that a write over the limit is shed with 503 and Retry-After while reads are still served,
+     * and that the slot is reusable once the running write completes.
+     */
+    @Test
+    void testCreateNote_WhenWriteSlotIsTaken_ThenServiceUnavailable() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        NoteDto created = new NoteDto(1L, "Slow Note", "Slow", LocalDate.now(), 0L);
+        when(noteService.createNote(any())).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(proceed.await(10, TimeUnit.SECONDS));
+            return created;
+        });
+        when(noteService.getNoteById(1L)).thenReturn(created);
+
+        CompletableFuture<HttpResponse<String>> slowWrite = httpClient.sendAsync(post(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        HttpResponse<String> shed = httpClient.send(post(), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> read = httpClient.send(HttpRequest.newBuilder(uri("/api/v1/notes/1")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(503, shed.statusCode());
+        assertEquals("2", shed.headers().firstValue("Retry-After").orElseThrow());
+        assertTrue(shed.body().contains("\"status\":503"));
+        assertEquals(200, read.statusCode());
+        assertEquals(1.0, meterRegistry.get(AdmissionLimiter.SHED_COUNTER).tag("class", "write").tag("reason", "queue_full")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get(GlobalExceptionHandler.ERRORS_COUNTER).tag("handler", "admission_rejected")
+                .counter().count());
+
+        proceed.countDown();
+        assertEquals(200, slowWrite.get(10, TimeUnit.SECONDS).statusCode());
+        assertEquals(200, httpClient.send(post(), HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private HttpRequest post() {
+        return HttpRequest.newBuilder(uri("/api/v1/notes"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Slow Note\",\"description\":\"Slow\"}"))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,119 @@
+package org.nazar.notesbackend.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the AdmissionLimiter class.
+ */
+class AdmissionLimiterTest {
+    private static final AdmissionLimiter.Adaptive ADAPTIVE = new AdmissionLimiter.Adaptive(Duration.ofMillis(100), 0.5, 2);
+
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Set up a fresh registry, so every test counts its own sheds.
+     */
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    /**
+     * Test to verify that a request over the limit waits in the queue and is admitted once a slot is released.
+     */
+    @Test
+    void testTryAcquire_WhenSlotIsReleasedInTime_ThenAdmitQueuedRequest() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("read", 1, 1, Duration.ofSeconds(10), null, meterRegistry);
+        assertTrue(limiter.tryAcquire());
+
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.tryAcquire();
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        while (limiter.queued() == 0) {
+            Thread.onSpinWait();
+        }
+        limiter.release(0);
+
+        assertTrue(queued.get(10, TimeUnit.SECONDS));
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+    }
+
+    /**
+     * Test to verify that a request finding the queue full is rejected without waiting and counted.
+     */
+    @Test
+    void testTryAcquire_WhenQueueIsFull_ThenRejectImmediately() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("write", 1, 0, Duration.ofSeconds(10), null, meterRegistry);
+        assertTrue(limiter.tryAcquire());
+
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire());
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1.0, shed("write", "queue_full"));
+    }
+
+    /**
+     * Test to verify that a queued request is rejected once its queue timeout elapses.
+     */
+    @Test
+    void testTryAcquire_WhenQueueTimeoutElapses_ThenReject() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("read", 1, 4, Duration.ofMillis(20), null, meterRegistry);
+        assertTrue(limiter.tryAcquire());
+
+        assertFalse(limiter.tryAcquire());
+
+        assertEquals(0, limiter.queued());
+        assertEquals(1.0, shed("read", "queue_timeout"));
+    }
+
+    /**
+     * Test to verify that the adaptive limit backs off once per window of slow requests and grows back on fast ones under load.
+     */
+    @Test
+    void testRelease_WhenAdaptive_ThenFollowLatency() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("read", 8, 0, Duration.ZERO, ADAPTIVE, meterRegistry);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(500));
+        }
+        assertEquals(4, limiter.limit());
+        assertTrue(limiter.tryAcquire());
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(2, limiter.limit());
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(3, limiter.limit());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertEquals(3, limiter.inFlight());
+        assertEquals(3.0, meterRegistry.get(AdmissionLimiter.LIMIT_GAUGE).tag("class", "read").gauge().value());
+    }
+
+    private double shed(String requestClass, String reason) {
+        return meterRegistry.get(AdmissionLimiter.SHED_COUNTER).tag("class", requestClass).tag("reason", reason)
+                .counter().count();
+    }
+}